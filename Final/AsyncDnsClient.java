@@ -0,0 +1,132 @@
+package Final;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking DNS client with a timeout and a hedged second query
+ *
+ * A query goes to the primary server. If no answer has arrived after the
+ * hedge delay, the same query is also sent to the secondary (which may be
+ * the same server, standing in for a replica), and whichever answers first
+ * wins. If neither has answered by the timeout the future fails with a
+ * TimeoutException. Timers run on DNSSimulator's timer thread, so a
+ * pending query holds no thread. The default hedge delay sits just past
+ * the normal 10-60ms round trip, so only queries stuck in the slow tail
+ * are sent twice.
+ */
+public class AsyncDnsClient {
+    public static final long DEFAULT_HEDGE_AFTER_MS = Long.getLong("dcs.dns.hedge.ms", 60);
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("dcs.dns.timeout.ms", 200);
+
+    private final DNSSimulator primary;
+    private final DNSSimulator secondary;
+    private final ScheduledExecutorService timer;
+    private volatile long hedgeAfterMillis;
+    private volatile long timeoutMillis;
+
+    // Statistics
+    private final LatencyHistogram latency;
+    private final LongAdder queries;
+    private final LongAdder hedges;
+    private final LongAdder hedgeWins;
+    private final LongAdder timeouts;
+
+    public AsyncDnsClient(DNSSimulator primary, DNSSimulator secondary) {
+        this(primary, secondary, DEFAULT_HEDGE_AFTER_MS, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * @param secondary server for hedged queries, or null to never hedge
+     * @param hedgeAfterMillis delay before hedging (0 = never hedge)
+     */
+    public AsyncDnsClient(DNSSimulator primary, DNSSimulator secondary, long hedgeAfterMillis, long timeoutMillis) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.timer = DNSSimulator.timer();
+        this.hedgeAfterMillis = hedgeAfterMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.latency = new LatencyHistogram();
+        this.queries = new LongAdder();
+        this.hedges = new LongAdder();
+        this.hedgeWins = new LongAdder();
+        this.timeouts = new LongAdder();
+    }
+
+    public CompletableFuture<Optional<String>> lookup(String domainName) {
+        return resolve(domainName).thenApply(record -> record.map(DNSRecord::getAddress));
+    }
+
+    /**
+     * Resolve a domain; the future fails with a TimeoutException if no server answers in time
+     */
+    public CompletableFuture<Optional<DNSRecord>> resolve(String domainName) {
+        long start = System.nanoTime();
+        queries.increment();
+        CompletableFuture<Optional<DNSRecord>> result = new CompletableFuture<>();
+
+        primary.resolveAsync(domainName).whenComplete((record, error) -> settle(result, record, error, false));
+
+        long hedgeAfter = hedgeAfterMillis;
+        ScheduledFuture<?> hedge = secondary == null || hedgeAfter <= 0 ? null : timer.schedule(() -> {
+            if (!result.isDone()) {
+                hedges.increment();
+                secondary.resolveAsync(domainName).whenComplete((record, error) -> settle(result, record, error, true));
+            }
+        }, hedgeAfter, TimeUnit.MILLISECONDS);
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("DNS query for " + domainName + " timed out"))) {
+                timeouts.increment();
+                if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                    SimLog.debug("Async DNS: '{}' timed out after {}ms", domainName, timeoutMillis);
+                }
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        result.whenComplete((record, error) -> {
+            if (hedge != null) hedge.cancel(false);
+            timeout.cancel(false);
+            if (error == null) latency.record(System.nanoTime() - start);
+        });
+        return result;
+    }
+
+    private void settle(CompletableFuture<Optional<DNSRecord>> result, Optional<DNSRecord> record,
+                        Throwable error, boolean hedged) {
+        boolean won = error == null ? result.complete(record) : result.completeExceptionally(error);
+        if (won && hedged) {
+            hedgeWins.increment();
+        }
+    }
+
+    public long getHedgeAfterMillis() { return hedgeAfterMillis; }
+    public void setHedgeAfterMillis(long hedgeAfterMillis) { this.hedgeAfterMillis = hedgeAfterMillis; }
+    public long getTimeoutMillis() { return timeoutMillis; }
+    public void setTimeoutMillis(long timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+
+    /**
+     * Latency of answered queries, including the hedge when it won
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public long getQueryCount() { return queries.sum(); }
+    public long getHedgeCount() { return hedges.sum(); }
+    public long getHedgeWins() { return hedgeWins.sum(); }
+    public long getTimeoutCount() { return timeouts.sum(); }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = getLatency();
+        return String.format("%d queries, %d hedged (%d won), %d timed out, mean %.1fms, p99 %.1fms",
+                             getQueryCount(), getHedgeCount(), getHedgeWins(), getTimeoutCount(),
+                             snapshot.getMeanMillis(), snapshot.quantileMillis(0.99));
+    }
+}
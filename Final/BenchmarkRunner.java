@@ -0,0 +1,409 @@
+package Final;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless benchmark runner for nightly performance jobs
+ *
+ * Loads a scenario, drives the simulator with a configurable client
+ * workload, discards the warmup period and writes throughput, latency
+ * percentiles, replication lag and violation rates as JSON and CSV.
+ *
+ * Usage: java Final.BenchmarkRunner scenario.properties
+ */
+public class BenchmarkRunner {
+    private static final String[] TYPES = {"PUT", "GET", "DELETE"};
+
+    private final BenchmarkScenario scenario;
+    private final DistributedSystemSimulator simulator;
+    private final AtomicBoolean measuring = new AtomicBoolean(false);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final LatencyHistogram[] clientLatencies = new LatencyHistogram[TYPES.length];
+
+    // Sampled once per second while measuring
+    private final List<Double> lagSamples = new ArrayList<>();
+    private final List<Double> violationSamples = new ArrayList<>();
+    private int maxLagOps;
+    private double maxLagMs;
+
+    public BenchmarkRunner(BenchmarkScenario scenario) {
+        this.scenario = scenario;
+        this.simulator = new DistributedSystemSimulator(scenario.getNodeIds());
+        simulator.setConsistencyMode(scenario.getConsistencyMode());
+        simulator.setStalenessBound(scenario.getStalenessBoundOps());
+        simulator.getNetwork().setDefaultProfile(scenario.getNetworkProfile());
+        for (int t = 0; t < TYPES.length; t++) {
+            clientLatencies[t] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Run warmup and measurement, then collect the results
+     */
+    public BenchmarkResult run() throws InterruptedException {
+        if (scenario.isResourceAccounting()) {
+            simulator.enableResourceAccounting(0);
+        }
+        simulator.startServices();
+        if (scenario.getMetricsPort() >= 0) {
+            try {
+                int port = simulator.startMetricsEndpoint(scenario.getMetricsPort());
+                System.err.println("Metrics at http://127.0.0.1:" + port + "/metrics");
+            } catch (java.io.IOException e) {
+                System.err.println("Metrics endpoint not started: " + e.getMessage());
+            }
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < scenario.getClientThreads(); i++) {
+            ClientWorker worker = new ClientWorker(i);
+            Thread thread = new Thread(worker, "bench-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        try {
+            Thread.sleep(scenario.getWarmupSeconds() * 1000L);
+            Map<String, Map<String, LatencyHistogram.Snapshot>> serverBefore = serverSnapshots();
+            startFlightRecording();
+            if (scenario.getTraceSampleRate() > 0) {
+                simulator.enableTracing(scenario.getTraceSampleRate());
+            }
+            Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> resourcesBefore = ResourceAccounting.snapshot();
+            measuring.set(true);
+            long measureStart = System.nanoTime();
+
+            for (int second = 0; second < scenario.getDurationSeconds(); second++) {
+                Thread.sleep(1000);
+                sampleReplication();
+            }
+
+            measuring.set(false);
+            long measureNanos = System.nanoTime() - measureStart;
+            Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> resources = null;
+            if (ResourceAccounting.isEnabled()) {
+                resources = new EnumMap<>(ResourceAccounting.Subsystem.class);
+                for (Map.Entry<ResourceAccounting.Subsystem, ResourceAccounting.Usage> entry
+                        : ResourceAccounting.snapshot().entrySet()) {
+                    resources.put(entry.getKey(), entry.getValue().minus(resourcesBefore.get(entry.getKey())));
+                }
+                System.err.print(ResourceAccounting.formatReport(resourcesBefore, ResourceAccounting.snapshot(),
+                                                                 measureNanos / 1_000_000));
+            }
+            simulator.stopFlightRecording();
+            Map<String, Map<String, LatencyHistogram.Snapshot>> serverLatencies = serverSnapshots();
+            for (Map.Entry<String, Map<String, LatencyHistogram.Snapshot>> metric : serverLatencies.entrySet()) {
+                Map<String, LatencyHistogram.Snapshot> before = serverBefore.getOrDefault(metric.getKey(), Map.of());
+                metric.getValue().replaceAll((label, after) ->
+                    after.minus(before.getOrDefault(label, LatencyHistogram.Snapshot.EMPTY)));
+            }
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            exportTraces();
+
+            Map<String, LatencyHistogram.Snapshot> client = new LinkedHashMap<>();
+            for (int t = 0; t < TYPES.length; t++) {
+                client.put(TYPES[t], clientLatencies[t].snapshot());
+            }
+            return new BenchmarkResult(scenario, client, serverLatencies, measureNanos,
+                                       lagSamples, maxLagOps, maxLagMs, violationSamples, resources);
+        } finally {
+            running.set(false);
+            simulator.disableResourceAccounting();
+            simulator.stopFlightRecording();
+            simulator.stopMetricsEndpoint();
+            simulator.stopSimulation();
+        }
+    }
+
+    private void startFlightRecording() {
+        String file = scenario.getFlightRecordingFile();
+        if (file.isEmpty()) return;
+        try {
+            simulator.startFlightRecording(file);
+            System.err.println("Flight recording to " + file);
+        } catch (IOException e) {
+            System.err.println("Flight recording not started: " + e.getMessage());
+        }
+    }
+
+    private void exportTraces() {
+        String file = scenario.getTraceExportFile();
+        TraceCollector collector = simulator.getTraceCollector();
+        if (file.isEmpty() || collector == null) return;
+        try {
+            simulator.exportTraces(file);
+            System.err.println("Traces of " + collector.getFinishedTraces().size() + " operations written to " + file);
+        } catch (IOException e) {
+            System.err.println("Trace export failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Latencies recorded inside the simulator, per metric and label
+     */
+    private Map<String, Map<String, LatencyHistogram.Snapshot>> serverSnapshots() {
+        LatencyTracker tracker = simulator.getLatencyTracker();
+        Map<String, Map<String, LatencyHistogram.Snapshot>> result = new LinkedHashMap<>();
+        for (String metric : new String[] {LatencyTracker.OP_BY_NODE, LatencyTracker.NODE_APPLY,
+                                           LatencyTracker.COORDINATOR_SUBMIT, LatencyTracker.REPLICA_STALENESS,
+                                           LatencyTracker.CONVERGENCE}) {
+            result.put(metric, tracker.snapshots(metric));
+        }
+        return result;
+    }
+
+    private void sampleReplication() {
+        ReplicationLagTracker tracker = simulator.getReplicationLagTracker();
+        Map<String, ReplicationLagTracker.NodeLag> lags = tracker.getLagByNode();
+        long totalLag = 0;
+        for (ReplicationLagTracker.NodeLag lag : lags.values()) {
+            totalLag += lag.getLagOps();
+        }
+        lagSamples.add(lags.isEmpty() ? 0.0 : (double) totalLag / lags.size());
+        maxLagOps = Math.max(maxLagOps, tracker.getMaxLagOps());
+        maxLagMs = Math.max(maxLagMs, tracker.getMaxLagMillis());
+        violationSamples.add(tracker.getViolationRate());
+    }
+
+    /**
+     * Closed-loop client that issues operations against random nodes
+     */
+    class ClientWorker implements Runnable {
+        private final Random random;
+        private final String value;
+
+        ClientWorker(int index) {
+            this.random = new Random(index * 7919L + System.nanoTime());
+            this.value = "v".repeat(scenario.getValueSize());
+        }
+
+        @Override
+        public void run() {
+            List<String> nodeIds = scenario.getNodeIds();
+            double rate = scenario.getOpsPerSecondPerClient();
+            long intervalNanos = rate > 0 ? (long) (1_000_000_000L / rate) : 0;
+            long nextIssue = System.nanoTime();
+
+            while (running.get()) {
+                if (intervalNanos > 0) {
+                    long wait = nextIssue - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                    nextIssue += intervalNanos;
+                }
+
+                String nodeId = nodeIds.get(random.nextInt(nodeIds.size()));
+                String type = scenario.pickOperation(random);
+                String key = "key" + random.nextInt(scenario.getKeySpace());
+
+                long start = System.nanoTime();
+                simulator.performOperation(nodeId, type, key, "DELETE".equals(type) ? null : value);
+                long elapsed = System.nanoTime() - start;
+
+                if (measuring.get()) {
+                    clientLatencies[typeIndex(type)].record(elapsed);
+                }
+            }
+        }
+    }
+
+    private static int typeIndex(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) return i;
+        }
+        throw new IllegalArgumentException("Unexpected operation " + type);
+    }
+
+    /**
+     * Aggregated outcome of one benchmark run
+     */
+    static class BenchmarkResult {
+        final BenchmarkScenario scenario;
+        final long timestamp = System.currentTimeMillis();
+        final long operations;
+        final double throughput;
+        final Map<String, LatencyHistogram.Snapshot> clientLatencies;
+        final LatencyHistogram.Snapshot overall;
+        final Map<String, Map<String, LatencyHistogram.Snapshot>> serverLatencies;
+        final double meanLagOps;
+        final int maxLagOps;
+        final double maxLagMs;
+        final double meanViolationRate;
+        final double maxViolationRate;
+        final double measureSeconds;
+        final Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> resources; // null unless accounted
+
+        static final double[] QUANTILES = {0.50, 0.90, 0.99, 0.999, 1.0};
+        static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999", "max"};
+
+        BenchmarkResult(BenchmarkScenario scenario, Map<String, LatencyHistogram.Snapshot> clientLatencies,
+                        Map<String, Map<String, LatencyHistogram.Snapshot>> serverLatencies, long measureNanos,
+                        List<Double> lagSamples, int maxLagOps, double maxLagMs, List<Double> violationSamples,
+                        Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> resources) {
+            this.scenario = scenario;
+            this.clientLatencies = clientLatencies;
+            this.serverLatencies = serverLatencies;
+            LatencyHistogram.Snapshot all = LatencyHistogram.Snapshot.EMPTY;
+            for (LatencyHistogram.Snapshot snapshot : clientLatencies.values()) {
+                all = all.plus(snapshot);
+            }
+            this.overall = all;
+            this.operations = all.getCount();
+            this.throughput = operations / (measureNanos / 1e9);
+            this.meanLagOps = lagSamples.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            this.maxLagOps = maxLagOps;
+            this.maxLagMs = maxLagMs;
+            this.meanViolationRate = violationSamples.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            this.maxViolationRate = violationSamples.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+            this.measureSeconds = measureNanos / 1e9;
+            this.resources = resources;
+        }
+
+        private static double[] percentiles(LatencyHistogram.Snapshot snapshot) {
+            double[] result = new double[QUANTILES.length];
+            for (int i = 0; i < QUANTILES.length; i++) {
+                result[i] = snapshot.quantileMillis(QUANTILES[i]);
+            }
+            return result;
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\n");
+            json.append("  \"scenario\": \"").append(scenario.getName()).append("\",\n");
+            json.append("  \"timestamp\": ").append(timestamp).append(",\n");
+            json.append("  \"config\": {\"nodes\": ").append(scenario.getNodeIds().size())
+                .append(", \"clients\": ").append(scenario.getClientThreads())
+                .append(", \"mix\": \"").append(scenario.getMix())
+                .append("\", \"keys\": ").append(scenario.getKeySpace())
+                .append(", \"valueSize\": ").append(scenario.getValueSize())
+                .append(", \"consistency\": \"").append(scenario.getConsistencyMode())
+                .append("\", \"stalenessBoundOps\": ").append(scenario.getStalenessBoundOps())
+                .append(", \"warmupSeconds\": ").append(scenario.getWarmupSeconds())
+                .append(", \"durationSeconds\": ").append(scenario.getDurationSeconds()).append("},\n");
+            json.append("  \"operations\": ").append(operations).append(",\n");
+            json.append(String.format(Locale.ROOT, "  \"throughputOpsPerSec\": %.2f,%n", throughput));
+            json.append("  \"latencyMs\": {\n");
+            json.append("    \"ALL\": ").append(jsonPercentiles(percentiles(overall)));
+            for (Map.Entry<String, LatencyHistogram.Snapshot> entry : clientLatencies.entrySet()) {
+                json.append(",\n    \"").append(entry.getKey()).append("\": ")
+                    .append(jsonPercentiles(percentiles(entry.getValue())));
+            }
+            json.append("\n  },\n");
+            json.append("  \"serverLatencyMs\": {");
+            boolean firstMetric = true;
+            for (Map.Entry<String, Map<String, LatencyHistogram.Snapshot>> metric : serverLatencies.entrySet()) {
+                json.append(firstMetric ? "\n" : ",\n").append("    \"").append(metric.getKey()).append("\": {");
+                firstMetric = false;
+                boolean firstLabel = true;
+                for (Map.Entry<String, LatencyHistogram.Snapshot> label : metric.getValue().entrySet()) {
+                    json.append(firstLabel ? "" : ", ").append('"').append(label.getKey()).append("\": ")
+                        .append(jsonPercentiles(percentiles(label.getValue())));
+                    firstLabel = false;
+                }
+                json.append('}');
+            }
+            json.append("\n  },\n");
+            json.append(String.format(Locale.ROOT, "  \"replicationLagOps\": {\"mean\": %.2f, \"max\": %d},%n",
+                                      meanLagOps, maxLagOps));
+            json.append(String.format(Locale.ROOT, "  \"replicationLagMs\": {\"max\": %.2f},%n", maxLagMs));
+            json.append(String.format(Locale.ROOT, "  \"violationRate\": {\"mean\": %.4f, \"max\": %.4f}",
+                                      meanViolationRate, maxViolationRate));
+            if (resources != null) {
+                json.append(",\n  \"resources\": {");
+                boolean first = true;
+                for (Map.Entry<ResourceAccounting.Subsystem, ResourceAccounting.Usage> entry : resources.entrySet()) {
+                    ResourceAccounting.Usage usage = entry.getValue();
+                    json.append(first ? "\n" : ",\n").append(String.format(Locale.ROOT,
+                        "    \"%s\": {\"calls\": %d, \"allocMBPerSec\": %.3f, \"bytesPerCall\": %.0f, \"cpuPercent\": %.2f}",
+                        entry.getKey(), usage.getCalls(),
+                        usage.getAllocatedBytes() / measureSeconds / (1024 * 1024),
+                        usage.getBytesPerCall(), usage.getCpuNanos() / 1e7 / measureSeconds));
+                    first = false;
+                }
+                json.append("\n  }");
+            }
+            json.append("\n}\n");
+            return json.toString();
+        }
+
+        private static String jsonPercentiles(double[] values) {
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('"').append(QUANTILE_NAMES[i]).append("\": ")
+                  .append(String.format(Locale.ROOT, "%.3f", values[i]));
+            }
+            return sb.append('}').toString();
+        }
+
+        static String csvHeader() {
+            return "timestamp,scenario,nodes,clients,consistency,operations,throughput_ops_s,"
+                 + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms,mean_lag_ops,max_lag_ops,max_lag_ms,mean_violation_rate,max_violation_rate";
+        }
+
+        String csvRow() {
+            double[] overallPercentiles = percentiles(overall);
+            return String.format(Locale.ROOT, "%d,%s,%d,%d,%s,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.2f,%d,%.2f,%.4f,%.4f",
+                timestamp, scenario.getName(), scenario.getNodeIds().size(), scenario.getClientThreads(),
+                scenario.getConsistencyMode(), operations, throughput,
+                overallPercentiles[0], overallPercentiles[1], overallPercentiles[2],
+                overallPercentiles[3], overallPercentiles[4],
+                meanLagOps, maxLagOps, maxLagMs, meanViolationRate, maxViolationRate);
+        }
+    }
+
+    /**
+     * Write the JSON result and append a row to the scenario's CSV history
+     */
+    static void writeResults(BenchmarkResult result, File outputDir) throws IOException {
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create output directory " + outputDir);
+        }
+
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(result.timestamp));
+        File jsonFile = new File(outputDir, result.scenario.getName() + "-" + stamp + ".json");
+        try (Writer writer = new FileWriter(jsonFile)) {
+            writer.write(result.toJson());
+        }
+
+        File csvFile = new File(outputDir, result.scenario.getName() + ".csv");
+        boolean newFile = !csvFile.exists();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(csvFile, true))) {
+            if (newFile) {
+                writer.println(BenchmarkResult.csvHeader());
+            }
+            writer.println(result.csvRow());
+        }
+
+        System.err.println("Results written to " + jsonFile.getPath() + " and " + csvFile.getPath());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java Final.BenchmarkRunner <scenario.properties>");
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        BenchmarkScenario scenario = BenchmarkScenario.load(new File(args[0]));
+        System.err.println("Running scenario '" + scenario.getName() + "': " + scenario.getNodeIds().size()
+                         + " nodes, " + scenario.getClientThreads() + " clients, "
+                         + scenario.getWarmupSeconds() + "s warmup + " + scenario.getDurationSeconds() + "s");
+
+        // Per-operation logging is DEBUG; log lines go to stderr so stdout stays clean for the JSON result
+        SimLog.setLevel(scenario.getLogLevel());
+        SimLog.setOutput(System.err);
+        BenchmarkResult result = new BenchmarkRunner(scenario).run();
+
+        writeResults(result, new File(scenario.getOutputDir()));
+        System.out.print(result.toJson());
+    }
+}
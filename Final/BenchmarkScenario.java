@@ -0,0 +1,140 @@
+package Final;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Benchmark scenario loaded from a properties file
+ * Unset properties fall back to the defaults below
+ */
+public class BenchmarkScenario {
+    private final String name;
+    private final List<String> nodeIds;
+    private final int clientThreads;
+    private final int putPercent;
+    private final int getPercent;
+    private final int deletePercent;
+    private final int keySpace;
+    private final int valueSize;
+    private final double opsPerSecondPerClient; // 0 = unthrottled
+    private final ConsistencyMode consistencyMode;
+    private final int stalenessBoundOps;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final LinkProfile networkProfile;
+    private final String outputDir;
+    private final int metricsPort;
+    private final SimLog.Level logLevel;
+    private final String flightRecordingFile;
+    private final double traceSampleRate;
+    private final String traceExportFile;
+    private final boolean resourceAccounting;
+
+    private BenchmarkScenario(Properties p) {
+        this.name = p.getProperty("scenario.name", "default");
+        this.nodeIds = parseNodes(p);
+        this.clientThreads = intProperty(p, "workload.clients", 4);
+        this.putPercent = intProperty(p, "workload.mix.put", 40);
+        this.getPercent = intProperty(p, "workload.mix.get", 50);
+        this.deletePercent = intProperty(p, "workload.mix.delete", 10);
+        this.keySpace = intProperty(p, "workload.keys", 1000);
+        this.valueSize = intProperty(p, "workload.value.size", 64);
+        this.opsPerSecondPerClient = Double.parseDouble(p.getProperty("workload.rate", "0").trim());
+        this.consistencyMode = ConsistencyMode.valueOf(p.getProperty("consistency.mode", "hybrid").trim().toUpperCase());
+        this.stalenessBoundOps = intProperty(p, "consistency.staleness.bound.ops", ReplicationLagTracker.DEFAULT_STALENESS_BOUND_OPS);
+        this.warmupSeconds = intProperty(p, "warmup.seconds", 5);
+        this.durationSeconds = intProperty(p, "duration.seconds", 30);
+        this.outputDir = p.getProperty("output.dir", "results");
+        this.metricsPort = intProperty(p, "metrics.port", -1);
+        this.logLevel = SimLog.parseLevel(p.getProperty("log.level"), SimLog.Level.WARN);
+        this.flightRecordingFile = p.getProperty("jfr.file", "").trim();
+        this.traceSampleRate = Double.parseDouble(p.getProperty("tracing.sample.rate", "0").trim());
+        this.traceExportFile = p.getProperty("tracing.export", "").trim();
+        this.resourceAccounting = Boolean.parseBoolean(p.getProperty("accounting.enabled", "false").trim());
+        this.networkProfile = new LinkProfile(
+            LinkProfile.Distribution.valueOf(p.getProperty("network.latency.distribution", "uniform").trim().toUpperCase()),
+            Double.parseDouble(p.getProperty("network.latency.mean.ms", "50").trim()),
+            Double.parseDouble(p.getProperty("network.latency.jitter.ms", "30").trim()),
+            Long.parseLong(p.getProperty("network.bandwidth.bytes", "1000000").trim()),
+            Double.parseDouble(p.getProperty("network.loss.rate", "0.01").trim()),
+            intProperty(p, "network.loss.retries", 2),
+            Long.parseLong(p.getProperty("network.retry.timeout.ms", "200").trim()));
+
+        if (putPercent + getPercent + deletePercent != 100) {
+            throw new IllegalArgumentException("Workload mix must add up to 100, got "
+                                             + (putPercent + getPercent + deletePercent));
+        }
+        if (clientThreads < 1 || keySpace < 1 || durationSeconds < 1 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("Clients, keys and duration must be positive");
+        }
+    }
+
+    /**
+     * Load a scenario from a properties file
+     */
+    public static BenchmarkScenario load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            properties.load(fis);
+        }
+        return new BenchmarkScenario(properties);
+    }
+
+    private static List<String> parseNodes(Properties p) {
+        String explicit = p.getProperty("cluster.nodes");
+        if (explicit != null && !explicit.trim().isEmpty()) {
+            List<String> ids = new ArrayList<>();
+            for (String id : explicit.split(",")) {
+                ids.add(id.trim());
+            }
+            return ids;
+        }
+        int size = intProperty(p, "cluster.size", 3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ids.add("Node" + (i < 26 ? String.valueOf((char) ('A' + i)) : String.valueOf(i)));
+        }
+        return ids;
+    }
+
+    private static int intProperty(Properties p, String key, int defaultValue) {
+        String value = p.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Pick an operation type according to the configured mix
+     */
+    public String pickOperation(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < putPercent) return "PUT";
+        if (roll < putPercent + getPercent) return "GET";
+        return "DELETE";
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public List<String> getNodeIds() { return nodeIds; }
+    public int getClientThreads() { return clientThreads; }
+    public int getKeySpace() { return keySpace; }
+    public int getValueSize() { return valueSize; }
+    public double getOpsPerSecondPerClient() { return opsPerSecondPerClient; }
+    public ConsistencyMode getConsistencyMode() { return consistencyMode; }
+    /** Operations a replica may trail the head before it counts as a violation */
+    public int getStalenessBoundOps() { return stalenessBoundOps; }
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public int getDurationSeconds() { return durationSeconds; }
+    public LinkProfile getNetworkProfile() { return networkProfile; }
+    public String getOutputDir() { return outputDir; }
+    /** Port for the Prometheus endpoint, or -1 when disabled */
+    public int getMetricsPort() { return metricsPort; }
+    public SimLog.Level getLogLevel() { return logLevel; }
+    /** JFR output for the measurement window, or empty when disabled */
+    public String getFlightRecordingFile() { return flightRecordingFile; }
+    public double getTraceSampleRate() { return traceSampleRate; }
+    /** Chrome trace JSON written after the run, or empty */
+    public String getTraceExportFile() { return traceExportFile; }
+    /** Whether to attribute allocation and CPU time to subsystems during the measurement window */
+    public boolean isResourceAccounting() { return resourceAccounting; }
+    public String getMix() { return putPercent + "/" + getPercent + "/" + deletePercent; }
+}
@@ -0,0 +1,313 @@
+package Final;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node caching DNS resolver in front of DNSSimulator
+ *
+ * Answers are kept for their record's TTL and NXDOMAIN answers for the
+ * service's negative TTL, in an LRU map of bounded capacity. Only misses
+ * pay the simulated query round trip. Hits are credited with the mean
+ * round trip measured on misses, which is reported as latency saved.
+ * resolveAsync answers misses through an AsyncDnsClient instead of
+ * sleeping the caller's thread.
+ *
+ * The resolver also watches every domain on its service and drops just
+ * the entries a change touches (the name, aliases leading to it, or the
+ * names under a changed wildcard) when the change's batch arrives, so a
+ * record that changes is not served stale until its TTL runs out. A miss
+ * whose query overlapped a batch is answered but not cached, since its
+ * answer may predate the change.
+ *
+ * Entries keep the record rather than one address, so a cached record set
+ * still picks an address per lookup and skips addresses that are down.
+ */
+public class CachingResolver {
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("dcs.dns.cache.capacity", 1024);
+
+    private final DNSSimulator dns;
+    private final int capacity;
+    private final Map<String, CacheEntry> cache;
+    private long generation;
+    private long version; // Bumped by every flush and every batch of change events
+    private final NamingWatchHub.Subscription subscription;
+    private volatile AsyncDnsClient asyncClient;
+
+    // Statistics
+    private final LongAdder hits;
+    private final LongAdder negativeHits;
+    private final LongAdder misses;
+    private final LongAdder expirations;
+    private final LongAdder evictions;
+    private final LongAdder invalidations;
+    private final LongAdder upstreamNanos;
+    private final LongAdder savedNanos;
+
+    public CachingResolver(DNSSimulator dns) {
+        this(dns, DEFAULT_CAPACITY);
+    }
+
+    public CachingResolver(DNSSimulator dns, int capacity) {
+        this.dns = dns;
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > CachingResolver.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.generation = dns.getCacheGeneration();
+        this.asyncClient = new AsyncDnsClient(dns, dns);
+        this.hits = new LongAdder();
+        this.negativeHits = new LongAdder();
+        this.misses = new LongAdder();
+        this.expirations = new LongAdder();
+        this.evictions = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.upstreamNanos = new LongAdder();
+        this.savedNanos = new LongAdder();
+        this.subscription = dns.watchSuffix("", this::invalidate);
+    }
+
+    /**
+     * Resolve a domain, from cache while the cached answer is fresh
+     */
+    public Answer resolve(String domainName) {
+        String domain = domainName.toLowerCase();
+        long now = System.nanoTime();
+        Answer cached = fromCache(domain, now);
+        if (cached != null) {
+            return cached;
+        }
+        long queriedVersion = currentVersion();
+        // Query outside the lock so one slow miss does not stall hits on other names
+        return store(domain, dns.resolveWithDelay(domain), queriedVersion, now);
+    }
+
+    /**
+     * Resolve a domain without blocking: hits complete at once, misses when
+     * the async client's query (hedged, with a timeout) answers
+     */
+    public CompletableFuture<Answer> resolveAsync(String domainName) {
+        String domain = domainName.toLowerCase();
+        long now = System.nanoTime();
+        Answer cached = fromCache(domain, now);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long queriedVersion = currentVersion();
+        return asyncClient.resolve(domain).thenApply(record -> store(domain, record, queriedVersion, now));
+    }
+
+    /**
+     * Fresh cached answer, or null on a miss
+     */
+    private Answer fromCache(String domain, long now) {
+        synchronized (cache) {
+            long current = dns.getCacheGeneration();
+            if (current != generation) { // DNSSimulator.expireCache was called
+                cache.clear();
+                generation = current;
+                version++;
+            }
+            CacheEntry entry = cache.get(domain);
+            if (entry != null) {
+                if (now - entry.expiresAtNanos < 0) {
+                    hits.increment();
+                    if (entry.record == null) negativeHits.increment();
+                    savedNanos.add(meanUpstreamNanos());
+                    return new Answer(dns.answer(entry.record), true);
+                }
+                cache.remove(domain);
+                expirations.increment();
+            }
+            return null;
+        }
+    }
+
+    private long currentVersion() {
+        synchronized (cache) {
+            return version;
+        }
+    }
+
+    /**
+     * Count a miss that took since queryStart and cache its answer
+     */
+    private Answer store(String domain, Optional<DNSRecord> record, long queriedVersion, long queryStart) {
+        misses.increment();
+        upstreamNanos.add(System.nanoTime() - queryStart);
+
+        DNSRecord answer = record.orElse(null);
+        long ttlMillis = record.map(DNSRecord::getTtlMillis).orElse(dns.getNegativeTtlMillis());
+        if (ttlMillis > 0) {
+            synchronized (cache) {
+                if (version == queriedVersion) { // Not flushed or changed while we were asking
+                    cache.put(domain, new CacheEntry(answer, System.nanoTime() + ttlMillis * 1_000_000));
+                }
+            }
+        }
+        return new Answer(dns.answer(answer), false);
+    }
+
+    private long meanUpstreamNanos() {
+        long count = misses.sum();
+        return count == 0 ? 0 : upstreamNanos.sum() / count;
+    }
+
+    /**
+     * Drop the entries a batch of DNS changes touches
+     */
+    private void invalidate(List<NamingWatchHub.Event> events) {
+        synchronized (cache) {
+            version++;
+            for (NamingWatchHub.Event event : events) {
+                String name = event.getName();
+                if (name.startsWith("*.")) {
+                    String suffix = name.substring(1); // ".example.com"
+                    for (Iterator<String> it = cache.keySet().iterator(); it.hasNext(); ) {
+                        if (it.next().endsWith(suffix)) {
+                            it.remove();
+                            invalidations.increment();
+                        }
+                    }
+                } else if (cache.remove(name) != null) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop watching the DNS service; cached answers then live until their TTL
+     */
+    public void close() {
+        subscription.cancel();
+    }
+
+    /**
+     * Drop every cached answer
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Client used for misses in resolveAsync; by default it hedges to the same server
+     */
+    public AsyncDnsClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    public void setAsyncClient(AsyncDnsClient asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), negativeHits.sum(), misses.sum(), expirations.sum(),
+                         evictions.sum(), invalidations.sum(), savedNanos.sum(), meanUpstreamNanos());
+    }
+
+    private static class CacheEntry {
+        final DNSRecord record; // null = NXDOMAIN
+        final long expiresAtNanos;
+
+        CacheEntry(DNSRecord record, long expiresAtNanos) {
+            this.record = record;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Result of one resolution and whether the cache answered it
+     */
+    public static class Answer {
+        private final String address;
+        private final boolean cached;
+
+        Answer(String address, boolean cached) {
+            this.address = address;
+            this.cached = cached;
+        }
+
+        public Optional<String> getAddress() {
+            return Optional.ofNullable(address);
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    /**
+     * Cumulative resolver counters
+     */
+    public static class Stats {
+        private final long hits;
+        private final long negativeHits;
+        private final long misses;
+        private final long expirations;
+        private final long evictions;
+        private final long invalidations;
+        private final long savedNanos;
+        private final long meanQueryNanos;
+
+        Stats(long hits, long negativeHits, long misses, long expirations, long evictions,
+              long invalidations, long savedNanos, long meanQueryNanos) {
+            this.hits = hits;
+            this.negativeHits = negativeHits;
+            this.misses = misses;
+            this.expirations = expirations;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.savedNanos = savedNanos;
+            this.meanQueryNanos = meanQueryNanos;
+        }
+
+        public long getHits() { return hits; }
+        public long getNegativeHits() { return negativeHits; }
+        public long getMisses() { return misses; }
+        public long getExpirations() { return expirations; }
+        public long getEvictions() { return evictions; }
+        /** Entries dropped because a watched record changed */
+        public long getInvalidations() { return invalidations; }
+        /** Hits times the mean query round trip: time lookups did not spend waiting on DNS */
+        public long getSavedNanos() { return savedNanos; }
+        public long getMeanQueryNanos() { return meanQueryNanos; }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hit rate %.1f%% (%d hits, %d negative, %d misses), %d expired, %d evicted, "
+                                 + "%d invalidated, %.1fms saved (query %.1fms)",
+                                 getHitRate() * 100, hits, negativeHits, misses, expirations, evictions, invalidations,
+                                 savedNanos / 1_000_000.0, meanQueryNanos / 1_000_000.0);
+        }
+    }
+}
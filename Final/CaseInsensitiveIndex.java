@@ -0,0 +1,266 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Hash index from names to values that ignores case without copying the name
+ *
+ * Keys are lowercased once on insert and interned. A lookup hashes and
+ * compares the caller's characters one at a time, lowercasing as it goes,
+ * so get() allocates nothing and can probe a slice of a longer string
+ * (one segment of a path, the parent of a domain). Reads are lock-free:
+ * buckets are immutable chains in an AtomicReferenceArray, and writers,
+ * serialized on the index, replace a chain rather than edit it.
+ */
+public class CaseInsensitiveIndex<V> {
+    private final int initialCapacity;
+    private volatile AtomicReferenceArray<Entry<V>> table;
+    private volatile int size;
+
+    public CaseInsensitiveIndex() {
+        this(12);
+    }
+
+    /**
+     * Index sized for the given number of keys without resizing; small
+     * sizes keep many tiny indexes (e.g. one per trie node) cheap
+     */
+    public CaseInsensitiveIndex(int expectedSize) {
+        int capacity = 2;
+        while (capacity * 3 / 4 < expectedSize) capacity <<= 1;
+        this.initialCapacity = capacity;
+        this.table = new AtomicReferenceArray<>(capacity);
+    }
+
+    public V get(CharSequence key) {
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * Value for the characters key[start, end), or null
+     */
+    public V get(CharSequence key, int start, int end) {
+        int hash = hash(key, start, end);
+        AtomicReferenceArray<Entry<V>> current = table;
+        for (Entry<V> e = current.get(hash & (current.length() - 1)); e != null; e = e.next) {
+            if (e.hash == hash && matches(e.key, key, start, end)) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(CharSequence key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map a key to a value, returning the previous value
+     */
+    public synchronized V put(String key, V value) {
+        String normalized = normalize(key);
+        int hash = hash(normalized, 0, normalized.length());
+        AtomicReferenceArray<Entry<V>> current = table;
+        int slot = hash & (current.length() - 1);
+        Entry<V> head = current.get(slot);
+        for (Entry<V> e = head; e != null; e = e.next) {
+            if (e.hash == hash && e.key.equals(normalized)) {
+                V previous = e.value;
+                current.set(slot, replace(head, e, new Entry<>(e.key, hash, value, e.next)));
+                return previous;
+            }
+        }
+        current.set(slot, new Entry<>(normalized, hash, value, head));
+        if (++size > current.length() * 3 / 4) {
+            resize(current.length() * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Value for a key, created by the function if absent
+     */
+    public synchronized V computeIfAbsent(String key, Function<String, V> factory) {
+        V existing = get(key);
+        if (existing != null) return existing;
+        String normalized = normalize(key);
+        V value = factory.apply(normalized);
+        put(normalized, value);
+        return value;
+    }
+
+    /**
+     * Replace a key's value with what the function returns for the current one
+     * (null if absent); a null result removes the key. The function sees the
+     * normalized key and runs while other writers wait, so it must not write
+     * to this index itself. Returns the new value
+     */
+    public synchronized V compute(String key, BiFunction<String, V, V> remapping) {
+        String normalized = normalize(key);
+        V previous = get(normalized);
+        V value = remapping.apply(normalized, previous);
+        if (value != null) {
+            put(normalized, value);
+        } else if (previous != null) {
+            removeIf(normalized, null);
+        }
+        return value;
+    }
+
+    /**
+     * compute for a key that is present; absent keys are left alone
+     */
+    public synchronized V computeIfPresent(String key, BiFunction<String, V, V> remapping) {
+        return get(key) == null ? null : compute(key, remapping);
+    }
+
+    public synchronized V remove(CharSequence key) {
+        return removeIf(key, null);
+    }
+
+    /**
+     * Remove a key only while it still maps to the expected value
+     */
+    public synchronized boolean remove(CharSequence key, V expected) {
+        return expected != null && removeIf(key, expected) != null;
+    }
+
+    private V removeIf(CharSequence key, V expected) {
+        int hash = hash(key, 0, key.length());
+        AtomicReferenceArray<Entry<V>> current = table;
+        int slot = hash & (current.length() - 1);
+        Entry<V> head = current.get(slot);
+        for (Entry<V> e = head; e != null; e = e.next) {
+            if (e.hash == hash && matches(e.key, key, 0, key.length())) {
+                if (expected != null && e.value != expected) return null;
+                current.set(slot, replace(head, e, e.next));
+                size--;
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void clear() {
+        table = new AtomicReferenceArray<>(initialCapacity);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visit every entry of the table as it is now
+     */
+    public void forEach(BiConsumer<String, V> action) {
+        AtomicReferenceArray<Entry<V>> current = table;
+        for (int i = 0; i < current.length(); i++) {
+            for (Entry<V> e = current.get(i); e != null; e = e.next) {
+                action.accept(e.key, e.value);
+            }
+        }
+    }
+
+    public Set<String> keySet() {
+        Set<String> keys = new HashSet<>();
+        forEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    /**
+     * Copy of a chain with one entry swapped for a replacement (or dropped when null)
+     * Entries after it are shared, entries before it are copied
+     */
+    private static <V> Entry<V> replace(Entry<V> head, Entry<V> target, Entry<V> replacement) {
+        if (head == target) {
+            return replacement;
+        }
+        return new Entry<>(head.key, head.hash, head.value, replace(head.next, target, replacement));
+    }
+
+    private void resize(int capacity) {
+        AtomicReferenceArray<Entry<V>> old = table;
+        AtomicReferenceArray<Entry<V>> resized = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < old.length(); i++) {
+            for (Entry<V> e = old.get(i); e != null; e = e.next) {
+                int slot = e.hash & (capacity - 1);
+                resized.set(slot, new Entry<>(e.key, e.hash, e.value, resized.get(slot)));
+            }
+        }
+        table = resized;
+    }
+
+    /**
+     * Lowercased, interned form of a key; strings already lowercase are not copied
+     */
+    static String normalize(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (lower(c) != c) {
+                char[] chars = key.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    chars[j] = lower(chars[j]);
+                }
+                return new String(chars).intern();
+            }
+        }
+        return key.intern();
+    }
+
+    private static int hash(CharSequence key, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + lower(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String stored, CharSequence key, int start, int end) {
+        if (stored.length() != end - start) return false;
+        if (stored == key) return true;
+        for (int i = 0; i < stored.length(); i++) {
+            char c = key.charAt(start + i);
+            if (stored.charAt(i) != c && stored.charAt(i) != lower(c)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Character.toLowerCase with a shortcut for ASCII, which nearly all names are
+     */
+    private static char lower(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static class Entry<V> {
+        final String key;
+        final int hash;
+        final V value;
+        final Entry<V> next;
+
+        Entry(String key, int hash, V value, Entry<V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
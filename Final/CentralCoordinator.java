@@ -12,11 +12,14 @@ public class CentralCoordinator {
     private final List<Operation> operationLog;
     private final AtomicInteger sequenceCounter;
     private final Queue<Operation> pendingOperations;
+    private volatile LatencyTracker latencyTracker;
+    private volatile TraceCollector traceCollector;
 
     public CentralCoordinator() {
         this.operationLog = Collections.synchronizedList(new ArrayList<>());
         this.sequenceCounter = new AtomicInteger(0);
         this.pendingOperations = new ConcurrentLinkedQueue<>();
+        this.latencyTracker = new LatencyTracker();
     }
 
     /**
@@ -24,16 +27,53 @@ public class CentralCoordinator {
      * Returns the operation with assigned sequence number
      */
     public Operation submitOperation(String type, String key, String value, String clientId) {
-        int sequenceNumber = sequenceCounter.incrementAndGet();
-        Operation operation = new Operation(sequenceNumber, type, key, value, clientId);
-        
-        synchronized (operationLog) {
-            operationLog.add(operation);
-            pendingOperations.offer(operation);
+        return submitOperation(type, key, value, clientId, null);
+    }
+
+    /**
+     * Submit an operation caused by the given trace span (null if untraced)
+     */
+    public Operation submitOperation(String type, String key, String value, String clientId,
+                                     TraceCollector.Context cause) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.COORDINATOR);
+        try {
+            TraceCollector tracer = cause != null ? traceCollector : null;
+            SimulatorEvents.Sequencing event = new SimulatorEvents.Sequencing();
+            event.begin();
+            long start = System.nanoTime();
+            TraceCollector.Context sequencing = tracer != null ? tracer.child(cause, start) : null;
+            Operation operation;
+            
+            // Sequencing under the log lock keeps log position == sequence - 1
+            synchronized (operationLog) {
+                int sequenceNumber = sequenceCounter.incrementAndGet();
+                // A traced operation carries its queueing span, closed when the broadcast drains it
+                TraceCollector.Context queued = sequencing != null ? tracer.child(sequencing, System.nanoTime()) : null;
+                operation = new Operation(sequenceNumber, type, key, value, clientId, queued);
+                if (queued != null) {
+                    tracer.carriedBy(queued, operation);
+                }
+                operationLog.add(operation);
+                pendingOperations.offer(operation);
+            }
+            
+            long end = System.nanoTime();
+            latencyTracker.record(LatencyTracker.COORDINATOR_SUBMIT, "coordinator", end - start);
+            if (sequencing != null) {
+                tracer.end(sequencing, TraceCollector.SEQUENCE, NetworkModel.COORDINATOR, end);
+            }
+            if (event.shouldCommit()) {
+                event.client = clientId;
+                event.type = type;
+                event.key = key;
+                event.sequence = operation.getSequenceNumber();
+                event.commit();
+            }
+            SimLog.debug("Coordinator: Received {}", operation);
+            return operation;
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
-        
-        System.out.println("Coordinator: Received " + operation);
-        return operation;
     }
 
     /**
@@ -54,16 +94,36 @@ public class CentralCoordinator {
         return result;
     }
 
+    /**
+     * Get the operation with a given sequence number, or null if not in the log
+     */
+    public Operation getOperation(int sequenceNumber) {
+        synchronized (operationLog) {
+            int index = sequenceNumber - 1;
+            return index >= 0 && index < operationLog.size() ? operationLog.get(index) : null;
+        }
+    }
+
     /**
      * Get pending operations for sequential consistency
      */
     public List<Operation> getPendingOperations() {
-        List<Operation> result = new ArrayList<>();
-        Operation op;
-        while ((op = pendingOperations.poll()) != null) {
-            result.add(op);
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.COORDINATOR);
+        try {
+            List<Operation> result = new ArrayList<>();
+            TraceCollector tracer = traceCollector;
+            long drained = System.nanoTime();
+            Operation op;
+            while ((op = pendingOperations.poll()) != null) {
+                result.add(op);
+                if (tracer != null && op.getTrace() != null) {
+                    tracer.end(op.getTrace(), TraceCollector.QUEUE, NetworkModel.COORDINATOR, drained);
+                }
+            }
+            return result;
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
-        return result;
     }
 
     /**
@@ -89,6 +149,27 @@ public class CentralCoordinator {
         return sequenceCounter.get();
     }
 
+    /**
+     * Number of operations not yet drained for broadcast
+     */
+    public int getPendingCount() {
+        return pendingOperations.size();
+    }
+
+    /**
+     * Set the tracker that receives submit latencies
+     */
+    public void setLatencyTracker(LatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    /**
+     * Set the collector that receives sequencing and queueing spans (null disables)
+     */
+    public void setTraceCollector(TraceCollector traceCollector) {
+        this.traceCollector = traceCollector;
+    }
+
     /**
      * Print the operation log
      */
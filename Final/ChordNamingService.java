@@ -0,0 +1,487 @@
+package Final;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Flat naming partitioned over ServiceNodes with consistent hashing
+ *
+ * Names and nodes hash onto a 64-bit ring (SHA-1). Every node owns several
+ * virtual nodes so load evens out, and each virtual node stores the names
+ * between its predecessor and itself. Lookups are routed Chord-style: each
+ * virtual node keeps a finger table pointing at the successor of
+ * id + 2^i, so a lookup started on any node reaches the owner in O(log n)
+ * hops. Hops between different nodes go over the network model.
+ *
+ * When a node joins, only the names in the ranges its virtual nodes take
+ * over move, and only from their successors; when it leaves, its names
+ * move to its successors. Names are copied before the new ring is
+ * published and deleted after, so lookups keep finding them throughout.
+ * Finger tables are rebuilt eagerly on every membership change instead of
+ * by periodic stabilization; each ring carries its own, so lookups still
+ * routing over the old ring are not disturbed while the next one is built.
+ */
+public class ChordNamingService {
+    public static final int DEFAULT_VIRTUAL_NODES = 16;
+    private static final int FINGERS = 64;
+    private static final int MESSAGE_BYTES = 128;
+    private static final int MAX_TRACKED_HOPS = 64;
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int virtualNodesPerNode;
+    private final ReentrantReadWriteLock membershipLock;
+    private volatile Ring ring;
+    private volatile NetworkModel network;
+
+    // Statistics
+    private final LatencyHistogram lookupLatency;
+    private final AtomicLongArray hopCounts;
+    private final LongAdder lookups;
+    private final LongAdder keysMoved;
+
+    public ChordNamingService(Collection<String> nodeIds) {
+        this(nodeIds, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ChordNamingService(Collection<String> nodeIds, int virtualNodesPerNode) {
+        this.virtualNodesPerNode = virtualNodesPerNode;
+        this.membershipLock = new ReentrantReadWriteLock();
+        this.ring = new Ring(new VirtualNode[0]);
+        this.network = NetworkModel.LOCAL;
+        this.lookupLatency = new LatencyHistogram();
+        this.hopCounts = new AtomicLongArray(MAX_TRACKED_HOPS + 1);
+        this.lookups = new LongAdder();
+        this.keysMoved = new LongAdder();
+        for (String nodeId : nodeIds) {
+            join(nodeId);
+        }
+    }
+
+    /**
+     * Network that hops between nodes travel over (LOCAL = no delay)
+     */
+    public void setNetwork(NetworkModel network) {
+        this.network = network;
+    }
+
+    /**
+     * Register a resource on the node that owns its name
+     */
+    public void register(String name, Resource resource) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        membershipLock.readLock().lock();
+        try {
+            String key = name.toLowerCase();
+            VirtualNode owner = ring.successor(hash(key));
+            if (owner == null) {
+                throw new IllegalStateException("No nodes in the ring");
+            }
+            owner.store.put(key, resource);
+            SimLog.debug("DHT naming: Registered '{}' -> {} on {}", name, resource.getLocation(), owner.nodeId);
+        } finally {
+            membershipLock.readLock().unlock();
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    public boolean remove(String name) {
+        membershipLock.readLock().lock();
+        try {
+            String key = name.toLowerCase();
+            VirtualNode owner = ring.successor(hash(key));
+            return owner != null && owner.store.remove(key) != null;
+        } finally {
+            membershipLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lookup a name starting from a random node
+     */
+    public Optional<String> lookup(String name) {
+        return lookupFrom(null, name).getLocation();
+    }
+
+    /**
+     * Route a lookup from the given node (null = any node) to the owner of the name
+     */
+    public LookupResult lookupFrom(String fromNodeId, String name) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            long start = System.nanoTime();
+            String key = name.toLowerCase();
+            long id = hash(key);
+            Ring current = ring;
+            int at = current.entryPoint(fromNodeId);
+            if (at < 0) {
+                return new LookupResult(null, null, 0, 0);
+            }
+
+            int hops = 0;
+            int steps = 0;
+            VirtualNode node = current.vnodes[at];
+            while (!between(id, current.predecessorId(at), node.id) && steps++ < current.vnodes.length) {
+                int successor = current.successorOf(at);
+                int nextAt = between(id, node.id, current.ids[successor])
+                    ? successor : current.closestPrecedingFinger(at, id);
+                VirtualNode next = current.vnodes[nextAt];
+                if (!next.nodeId.equals(node.nodeId)) {
+                    if (!send(node.nodeId, next.nodeId)) {
+                        return record(new LookupResult(null, null, hops, System.nanoTime() - start));
+                    }
+                    hops++;
+                }
+                at = nextAt;
+                node = next;
+            }
+
+            Resource resource = node.store.get(key);
+            if (resource == null && current != ring) {
+                // Ring changed under us and the name moved; the new owner has it
+                resource = ring.successor(id).store.get(key);
+            }
+            String location = resource == null ? null : resource.getLocation();
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("DHT naming: '{}' -> {} on {} after {} hops", name, location, node.nodeId, hops);
+            }
+            return record(new LookupResult(location, node.nodeId, hops, System.nanoTime() - start));
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    private boolean send(String from, String to) {
+        try {
+            return network.transmit(from, to, MESSAGE_BYTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private LookupResult record(LookupResult result) {
+        lookups.increment();
+        lookupLatency.record(result.nanos);
+        hopCounts.incrementAndGet(Math.min(result.hops, MAX_TRACKED_HOPS));
+        return result;
+    }
+
+    /**
+     * Add a node; returns how many names moved to it
+     */
+    public int join(String nodeId) {
+        membershipLock.writeLock().lock();
+        try {
+            Ring old = ring;
+            if (old.hasNode(nodeId)) return 0;
+
+            List<VirtualNode> all = new ArrayList<>(Arrays.asList(old.vnodes));
+            Set<Long> taken = new HashSet<>();
+            for (VirtualNode vnode : all) taken.add(vnode.id);
+            List<VirtualNode> added = new ArrayList<>();
+            for (int i = 0; i < virtualNodesPerNode; i++) {
+                long id = hash(nodeId + "#" + i);
+                if (taken.add(id)) {
+                    VirtualNode vnode = new VirtualNode(id, nodeId);
+                    all.add(vnode);
+                    added.add(vnode);
+                }
+            }
+            Ring next = new Ring(all.toArray(new VirtualNode[0]));
+
+            // Copy the ranges the new virtual nodes take over from their old successors
+            int moved = 0;
+            Map<VirtualNode, List<String>> toDelete = new HashMap<>();
+            for (VirtualNode vnode : added) {
+                VirtualNode from = next.nextOlder(vnode, added);
+                if (from == null) continue;
+                for (Map.Entry<String, Resource> entry : from.store.entrySet()) {
+                    if (next.successor(hash(entry.getKey())) == vnode) {
+                        vnode.store.put(entry.getKey(), entry.getValue());
+                        toDelete.computeIfAbsent(from, v -> new ArrayList<>()).add(entry.getKey());
+                        moved++;
+                    }
+                }
+            }
+            ring = next;
+            for (Map.Entry<VirtualNode, List<String>> entry : toDelete.entrySet()) {
+                for (String key : entry.getValue()) {
+                    entry.getKey().store.remove(key);
+                }
+            }
+            keysMoved.add(moved);
+            SimLog.info("DHT: {} joined with {} virtual nodes, {} names moved", nodeId, added.size(), moved);
+            return moved;
+        } finally {
+            membershipLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a node, handing its names to the successors; returns how many moved
+     */
+    public int leave(String nodeId) {
+        membershipLock.writeLock().lock();
+        try {
+            Ring old = ring;
+            if (!old.hasNode(nodeId)) return 0;
+
+            List<VirtualNode> remaining = new ArrayList<>();
+            List<VirtualNode> leaving = new ArrayList<>();
+            for (VirtualNode vnode : old.vnodes) {
+                (vnode.nodeId.equals(nodeId) ? leaving : remaining).add(vnode);
+            }
+            Ring next = new Ring(remaining.toArray(new VirtualNode[0]));
+
+            int moved = 0;
+            for (VirtualNode vnode : leaving) {
+                for (Map.Entry<String, Resource> entry : vnode.store.entrySet()) {
+                    VirtualNode owner = next.successor(hash(entry.getKey()));
+                    if (owner == null) break; // Last node left: names are gone with it
+                    owner.store.put(entry.getKey(), entry.getValue());
+                    moved++;
+                }
+            }
+            ring = next;
+            keysMoved.add(moved);
+            SimLog.info("DHT: {} left, {} names moved", nodeId, moved);
+            return moved;
+        } finally {
+            membershipLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of names stored on each node
+     */
+    public Map<String, Integer> getLoadByNode() {
+        Map<String, Integer> load = new TreeMap<>();
+        for (VirtualNode vnode : ring.vnodes) {
+            load.merge(vnode.nodeId, vnode.store.size(), Integer::sum);
+        }
+        return load;
+    }
+
+    public int size() {
+        int total = 0;
+        for (VirtualNode vnode : ring.vnodes) {
+            total += vnode.store.size();
+        }
+        return total;
+    }
+
+    public Set<String> getNodeIds() {
+        Set<String> ids = new TreeSet<>();
+        for (VirtualNode vnode : ring.vnodes) {
+            ids.add(vnode.nodeId);
+        }
+        return ids;
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getKeysMoved() {
+        return keysMoved.sum();
+    }
+
+    public LatencyHistogram.Snapshot getLookupLatency() {
+        return lookupLatency.snapshot();
+    }
+
+    /**
+     * Lookups by number of network hops taken (the last bucket collects longer routes)
+     */
+    public long[] getHopDistribution() {
+        long[] result = new long[MAX_TRACKED_HOPS + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = hopCounts.get(i);
+        }
+        return result;
+    }
+
+    public double getMeanHops() {
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i <= MAX_TRACKED_HOPS; i++) {
+            long n = hopCounts.get(i);
+            count += n;
+            sum += n * i;
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Position of a string on the ring: the first 8 bytes of its SHA-1
+     */
+    static long hash(String value) {
+        byte[] digest = SHA1.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        long h = 0;
+        for (int i = 0; i < 8; i++) {
+            h = (h << 8) | (digest[i] & 0xff);
+        }
+        return h;
+    }
+
+    /**
+     * Whether x lies in the ring interval (from, to]; the whole ring when from == to
+     */
+    static boolean between(long x, long from, long to) {
+        if (from == to) return true;
+        if (Long.compareUnsigned(from, to) < 0) {
+            return Long.compareUnsigned(x, from) > 0 && Long.compareUnsigned(x, to) <= 0;
+        }
+        return Long.compareUnsigned(x, from) > 0 || Long.compareUnsigned(x, to) <= 0;
+    }
+
+    /**
+     * Route taken by one lookup
+     */
+    public static class LookupResult {
+        private final String location;
+        private final String ownerNode;
+        private final int hops;
+        private final long nanos;
+
+        LookupResult(String location, String ownerNode, int hops, long nanos) {
+            this.location = location;
+            this.ownerNode = ownerNode;
+            this.hops = hops;
+            this.nanos = nanos;
+        }
+
+        public Optional<String> getLocation() { return Optional.ofNullable(location); }
+        /** Node that owns the name, or null if the lookup could not reach it */
+        public String getOwnerNode() { return ownerNode; }
+        public int getHops() { return hops; }
+        public long getNanos() { return nanos; }
+    }
+
+    /**
+     * A point on the ring owned by a physical node, with the names it stores
+     * Its routing state lives in the Ring, so one virtual node can sit in the
+     * published ring and in the one being built at the same time
+     */
+    private static class VirtualNode {
+        final long id;
+        final String nodeId;
+        final Map<String, Resource> store;
+
+        VirtualNode(long id, String nodeId) {
+            this.id = id;
+            this.nodeId = nodeId;
+            this.store = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Immutable ring membership, sorted by position, with the finger table
+     * of every virtual node in it; building one changes no other ring
+     */
+    private static class Ring {
+        final VirtualNode[] vnodes;
+        final long[] ids;
+        final int[][] fingers; // fingers[i][f] = index of successor(ids[i] + 2^f)
+        final Map<String, Integer> firstByNode;
+
+        Ring(VirtualNode[] unsorted) {
+            VirtualNode[] sorted = unsorted.clone();
+            Arrays.sort(sorted, (a, b) -> Long.compareUnsigned(a.id, b.id));
+            this.vnodes = sorted;
+            this.ids = new long[sorted.length];
+            this.fingers = new int[sorted.length][];
+            this.firstByNode = new HashMap<>();
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = sorted[i].id;
+                firstByNode.putIfAbsent(sorted[i].nodeId, i);
+            }
+            for (int i = 0; i < sorted.length; i++) {
+                int[] table = new int[FINGERS];
+                for (int f = 0; f < FINGERS; f++) {
+                    table[f] = successorIndex(ids[i] + (1L << f));
+                }
+                fingers[i] = table;
+            }
+        }
+
+        long predecessorId(int index) {
+            return ids[(index + ids.length - 1) % ids.length];
+        }
+
+        int successorOf(int index) {
+            return fingers[index][0];
+        }
+
+        /**
+         * Finger of a virtual node furthest along the ring that still precedes the target
+         */
+        int closestPrecedingFinger(int index, long target) {
+            int[] table = fingers[index];
+            for (int f = FINGERS - 1; f >= 0; f--) {
+                long finger = ids[table[f]];
+                if (finger != target && between(finger, ids[index], target)) {
+                    return table[f];
+                }
+            }
+            return table[0];
+        }
+
+        /**
+         * First virtual node at or after a position, wrapping around
+         */
+        VirtualNode successor(long id) {
+            return vnodes.length == 0 ? null : vnodes[successorIndex(id)];
+        }
+
+        private int successorIndex(long id) {
+            int low = 0;
+            int high = ids.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (Long.compareUnsigned(ids[mid], id) < 0) low = mid + 1;
+                else high = mid - 1;
+            }
+            return low == ids.length ? 0 : low;
+        }
+
+        /**
+         * Next virtual node clockwise that is not one of the newly added ones
+         */
+        VirtualNode nextOlder(VirtualNode from, Collection<VirtualNode> added) {
+            int index = Arrays.binarySearch(vnodes, from, (a, b) -> Long.compareUnsigned(a.id, b.id));
+            for (int i = 1; i < vnodes.length; i++) {
+                VirtualNode candidate = vnodes[(index + i) % vnodes.length];
+                if (!added.contains(candidate)) return candidate;
+            }
+            return null;
+        }
+
+        boolean hasNode(String nodeId) {
+            return firstByNode.containsKey(nodeId);
+        }
+
+        /**
+         * Index of the first virtual node of a node, a random one for null or an unknown node, or -1 if empty
+         */
+        int entryPoint(String nodeId) {
+            if (vnodes.length == 0) return -1;
+            Integer own = nodeId == null ? null : firstByNode.get(nodeId);
+            return own != null ? own : ThreadLocalRandom.current().nextInt(vnodes.length);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package Final;
+
+/**
+ * Replication services the simulator runs between the coordinator and nodes
+ */
+public enum ConsistencyMode {
+    /** Coordinator broadcasts every operation to all nodes in order */
+    SEQUENTIAL,
+    /** Nodes only catch up through periodic background sync */
+    EVENTUAL,
+    /** Ordered broadcast plus background sync (the default) */
+    HYBRID
+}
@@ -7,6 +7,8 @@ package Final;
 public class ConsoleDemo {
     
     public static void main(String[] args) {
+        // The demo narrates every operation unless a level is given with -Ddcs.log.level
+        SimLog.setLevel(SimLog.parseLevel(System.getProperty("dcs.log.level"), SimLog.Level.DEBUG));
         System.out.println("🚀 Distributed System Console Demo");
         System.out.println("===================================\n");
         
@@ -15,40 +17,44 @@ public class ConsoleDemo {
         
         try {
             // Test naming services
-            System.out.println("🔍 Testing Naming Services:");
+            SimLog.info("🔍 Testing Naming Services:");
             testNamingServices(simulator);
             
+            // Resolve through root, TLD and zone servers
+            SimLog.info("\n🌐 Testing Hierarchical DNS:");
+            testHierarchicalDns(simulator);
+            
             // Start simulation
-            System.out.println("\n🎯 Starting Simulation...");
+            SimLog.info("\n🎯 Starting Simulation...");
             simulator.startSimulation();
             
             // Let it run for a bit
             Thread.sleep(3000);
             
             // Test operations
-            System.out.println("\n💻 Testing Operations:");
+            SimLog.info("\n💻 Testing Operations:");
             testOperations(simulator);
             
             // Test failure scenarios
-            System.out.println("\n💥 Testing Failure Scenarios:");
+            SimLog.info("\n💥 Testing Failure Scenarios:");
             testFailureScenarios(simulator);
             
             // Show status
-            System.out.println("\n📊 System Status:");
+            SimLog.info("\n📊 System Status:");
             simulator.printSystemStatus();
             
             // Let it run more
             Thread.sleep(2000);
             
             // Show metrics
-            System.out.println("\n📈 Performance Metrics:");
+            SimLog.info("\n📈 Performance Metrics:");
             showMetrics(simulator);
             
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
             // Stop simulation
-            System.out.println("\n🛑 Stopping Simulation...");
+            SimLog.info("\n🛑 Stopping Simulation...");
             simulator.stopSimulation();
         }
         
@@ -58,19 +64,32 @@ public class ConsoleDemo {
     private static void testNamingServices(DistributedSystemSimulator simulator) {
         // Test flat naming
         String result = simulator.lookupResource("nodea-service", "flat");
-        System.out.println("Flat lookup result: " + result);
+        SimLog.info("Flat lookup result: {}", result);
         
         // Test structured naming
         result = simulator.lookupResource("/services/nodeb-service", "structured");
-        System.out.println("Structured lookup result: " + result);
+        SimLog.info("Structured lookup result: {}", result);
         
         // Test DNS
         result = simulator.lookupResource("nodec-service.example.com", "dns");
-        System.out.println("DNS lookup result: " + result);
+        SimLog.info("DNS lookup result: {}", result);
         
         // Test non-existent resource
         result = simulator.lookupResource("nonexistent", "flat");
-        System.out.println("Non-existent lookup result: " + result);
+        SimLog.info("Non-existent lookup result: {}", result);
+    }
+    
+    private static void testHierarchicalDns(DistributedSystemSimulator simulator) {
+        RecursiveResolver resolver = simulator.createRecursiveResolver("demo-resolver");
+        
+        // Cold: root -> com TLD -> example.com zone
+        SimLog.info("Cold lookup: {}", resolver.resolve("nodea-service.example.com"));
+        // Warm answer cache: no queries at all
+        SimLog.info("Repeat lookup: {}", resolver.resolve("nodea-service.example.com"));
+        // Warm zone delegation: straight to ns.example.com
+        SimLog.info("Sibling lookup: {}", resolver.resolve("nodeb-service.example.com"));
+        SimLog.flush();
+        System.out.print(resolver.formatReport());
     }
     
     private static void testOperations(DistributedSystemSimulator simulator) {
@@ -113,6 +132,7 @@ public class ConsoleDemo {
     }
     
     private static void showMetrics(DistributedSystemSimulator simulator) {
+        SimLog.flush();
         java.util.List<PerformanceMetric> metrics = simulator.getMetrics();
         
         if (metrics.isEmpty()) {
@@ -127,6 +147,9 @@ public class ConsoleDemo {
                          String.format("%.2f%%", latest.getConsistencyViolations() * 100));
         System.out.println("- Average Latency: " + 
                          String.format("%.2f ms", latest.getAverageLatency()));
+        System.out.println("- Latency p50/p90/p99/p999: " + 
+                         String.format("%.2f / %.2f / %.2f / %.2f ms", latest.getP50Latency(),
+                                       latest.getP90Latency(), latest.getP99Latency(), latest.getP999Latency()));
         
         if (metrics.size() > 1) {
             System.out.println("\nMetrics history (" + metrics.size() + " entries):");
@@ -0,0 +1,182 @@
+package Final;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Root, TLD and zone servers linked by NS delegation
+ *
+ * Records are placed in the zone of their registrable domain (the last two
+ * labels, e.g. nodea-service.example.com lives in example.com, served by
+ * ns.example.com under the com TLD server). Single-label names such as
+ * localhost are answered by the root. Servers are created on first use,
+ * each with the link profile of its level: root servers are usually the
+ * farthest away and a zone's own server the nearest.
+ *
+ * A zone or TLD server whose last record is removed is dropped from its
+ * parent, and clear drops every server. Either way the hierarchy's
+ * generation changes, and resolvers that see a new generation forget the
+ * delegations they cached, so they never keep querying a server that is
+ * no longer part of the hierarchy.
+ *
+ * Servers hand out records as they hold them. Which address an answer
+ * gives is decided each time it is given (see answer), like
+ * DNSSimulator.answer: a record set picks by its strategy and skips
+ * addresses that are down, and a single address that is down is withheld.
+ */
+public class DNSHierarchy {
+    private final DNSZoneServer root;
+    private final LinkProfile tldLink;
+    private final LinkProfile zoneLink;
+    private volatile long generation;
+    private volatile Predicate<String> healthCheck; // null = every address is up
+
+    public DNSHierarchy() {
+        this(LinkProfile.uniform(20, 40), LinkProfile.uniform(10, 30), LinkProfile.uniform(2, 10));
+    }
+
+    public DNSHierarchy(LinkProfile rootLink, LinkProfile tldLink, LinkProfile zoneLink) {
+        this.root = new DNSZoneServer("a.root-servers.net", "", DNSZoneServer.Level.ROOT, rootLink);
+        this.tldLink = tldLink;
+        this.zoneLink = zoneLink;
+    }
+
+    /**
+     * Build a hierarchy serving every record currently in a flat DNSSimulator
+     */
+    public static DNSHierarchy from(DNSSimulator dns) {
+        DNSHierarchy hierarchy = new DNSHierarchy();
+        hierarchy.setHealthCheck(dns::isUp);
+        hierarchy.load(dns);
+        return hierarchy;
+    }
+
+    /**
+     * Add every record of a flat DNSSimulator
+     * Aliases are loaded already resolved, as address records for the alias name
+     */
+    public void load(DNSSimulator dns) {
+        for (String domain : dns.getAllDomains()) {
+            dns.resolve(domain).ifPresent(this::register);
+        }
+    }
+
+    public void register(String domainName, String ipAddress, long ttlMillis) {
+        register(new DNSRecord(domainName.toLowerCase(), ipAddress, ttlMillis));
+    }
+
+    public synchronized void register(DNSRecord record) {
+        authorityFor(record.getDomain(), true).addRecord(record);
+    }
+
+    public synchronized boolean remove(String domainName) {
+        String domain = domainName.toLowerCase();
+        DNSZoneServer server = authorityFor(domain, false);
+        if (server == null || !server.removeRecord(domain)) return false;
+        prune(domain);
+        return true;
+    }
+
+    /**
+     * Drop the zone server and then the TLD server of a name if they no longer serve anything
+     */
+    private void prune(String domain) {
+        int lastDot = domain.lastIndexOf('.');
+        if (lastDot < 0) return; // Answered by the root
+        DNSZoneServer tldServer = root.getDelegate(domain.substring(lastDot + 1));
+        if (tldServer == null) return;
+        int secondDot = domain.lastIndexOf('.', lastDot - 1);
+        String zone = domain.substring(secondDot + 1);
+        DNSZoneServer zoneServer = tldServer.getDelegate(zone);
+        if (zoneServer != null && zoneServer.isEmpty()) {
+            tldServer.undelegate(zone);
+            generation++;
+        }
+        if (tldServer.isEmpty()) {
+            root.undelegate(tldServer.getZone());
+            generation++;
+        }
+    }
+
+    /**
+     * Remove every record and every TLD and zone server
+     */
+    public synchronized void clear() {
+        root.clear();
+        generation++;
+    }
+
+    /**
+     * Decide which single addresses are up, e.g. the health check of the flat
+     * DNSSimulator the records came from; record sets carry their own. null
+     * treats every address as up
+     */
+    public void setHealthCheck(Predicate<String> healthCheck) {
+        this.healthCheck = healthCheck;
+    }
+
+    /**
+     * Address an answer gives now: a record set picks one that is up, and a
+     * single address is withheld while it is down (see DNSSimulator)
+     */
+    String answer(DNSRecord record) {
+        if (record == null) return null;
+        String address = record.getAddress();
+        Predicate<String> check = healthCheck;
+        if (record.getRecordSet() == null && address != null && check != null && !check.test(address)) return null;
+        return address;
+    }
+
+    /**
+     * Changes whenever servers are dropped; cached delegations from an older generation may be stale
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Server holding the records of the zone a name belongs to
+     */
+    private DNSZoneServer authorityFor(String domain, boolean create) {
+        int lastDot = domain.lastIndexOf('.');
+        if (lastDot < 0) return root;
+
+        String tld = domain.substring(lastDot + 1);
+        DNSZoneServer tldServer = root.getDelegate(tld);
+        if (tldServer == null) {
+            if (!create) return null;
+            tldServer = new DNSZoneServer(tld + "-tld-server", tld, DNSZoneServer.Level.TLD, tldLink);
+            root.delegate(tldServer);
+        }
+
+        int secondDot = domain.lastIndexOf('.', lastDot - 1);
+        String zone = domain.substring(secondDot + 1);
+        DNSZoneServer zoneServer = tldServer.getDelegate(zone);
+        if (zoneServer == null) {
+            if (!create) return null;
+            zoneServer = new DNSZoneServer("ns." + zone, zone, DNSZoneServer.Level.ZONE, zoneLink);
+            tldServer.delegate(zoneServer);
+        }
+        return zoneServer;
+    }
+
+    public DNSZoneServer getRoot() {
+        return root;
+    }
+
+    /**
+     * Queries answered so far, per server, root first
+     */
+    public synchronized Map<String, Long> getQueryCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        collectQueryCounts(root, counts);
+        return counts;
+    }
+
+    private void collectQueryCounts(DNSZoneServer server, Map<String, Long> counts) {
+        counts.put(server.getName(), server.getQueryCount());
+        for (String childZone : server.getChildZones()) {
+            collectQueryCounts(server.getDelegate(childZone), counts);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package Final;
+
+/**
+ * A record served by DNSSimulator: an address (A) or an alias (CNAME) for
+ * a domain, and how long resolvers may cache the answer
+ * The domain may be a wildcard such as *.example.com
+ *
+ * An A record may hold a DNSRecordSet instead of a single address; its
+ * getAddress() then picks one of the set's addresses on every call.
+ */
+public class DNSRecord {
+    public enum Type { A, CNAME }
+
+    private final String domain;
+    private final Type type;
+    private final String value;
+    private final long ttlMillis;
+    private final DNSRecordSet recordSet;
+
+    public DNSRecord(String domain, String address, long ttlMillis) {
+        this(domain, Type.A, address, ttlMillis);
+    }
+
+    public DNSRecord(String domain, Type type, String value, long ttlMillis) {
+        this(domain, type, value, ttlMillis, null);
+    }
+
+    /**
+     * An A record answering with one of several addresses
+     */
+    public DNSRecord(String domain, DNSRecordSet recordSet, long ttlMillis) {
+        this(domain, Type.A, null, ttlMillis, recordSet);
+    }
+
+    private DNSRecord(String domain, Type type, String value, long ttlMillis, DNSRecordSet recordSet) {
+        this.domain = domain;
+        this.type = type;
+        this.value = value;
+        this.ttlMillis = ttlMillis;
+        this.recordSet = recordSet;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The IP address of an A record, or null for an alias
+     * For a record set, the address its strategy picks now (null if none is up)
+     */
+    public String getAddress() {
+        if (recordSet != null) return recordSet.select();
+        return type == Type.A ? value : null;
+    }
+
+    /**
+     * Every address of an A record, up or not; empty for an alias
+     */
+    public java.util.List<String> getAddresses() {
+        if (recordSet != null) return recordSet.getAddresses();
+        return type == Type.A ? java.util.Collections.singletonList(value) : java.util.Collections.emptyList();
+    }
+
+    /**
+     * The addresses behind this record, or null for a single-address record or an alias
+     */
+    public DNSRecordSet getRecordSet() {
+        return recordSet;
+    }
+
+    /**
+     * The canonical name an alias points to, or null for an A record
+     */
+    public String getTarget() {
+        return type == Type.CNAME ? value : null;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public boolean isWildcard() {
+        return domain.startsWith("*.");
+    }
+
+    /**
+     * The same answer under another name, e.g. a wildcard answering for a name it matched
+     */
+    public DNSRecord forDomain(String name) {
+        return new DNSRecord(name, type, value, ttlMillis, recordSet);
+    }
+
+    @Override
+    public String toString() {
+        return domain + " " + (ttlMillis / 1000) + " IN " + type + " " + (recordSet != null ? recordSet : value);
+    }
+}
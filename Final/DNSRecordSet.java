@@ -0,0 +1,206 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several addresses served under one name, and how to pick one per lookup
+ *
+ * A set is immutable apart from its round-robin position: adding or
+ * removing an address builds a new set. Selection asks the DNS server it
+ * belongs to whether each address is up and how fast it has been, so an
+ * address whose node has failed is skipped as soon as the failure happens,
+ * even in answers resolvers have already cached. If no address is up the
+ * name answers as if it did not exist. Selection allocates nothing.
+ */
+public class DNSRecordSet {
+    public enum Strategy {
+        /** Each lookup takes the next address that is up */
+        ROUND_ROBIN,
+        /** A random address that is up, in proportion to its weight */
+        WEIGHTED,
+        /** The address that is up with the lowest reported latency; ties and unmeasured addresses take turns */
+        LEAST_LATENCY
+    }
+
+    /**
+     * Where a set learns whether an address is up and how fast it answers
+     */
+    interface Health {
+        boolean isUp(String address);
+
+        /** Smoothed latency reported for an address in nanoseconds, or 0 if none was reported */
+        long latencyNanos(String address);
+    }
+
+    static final Health ALWAYS_UP = new Health() {
+        @Override
+        public boolean isUp(String address) { return true; }
+
+        @Override
+        public long latencyNanos(String address) { return 0; }
+    };
+
+    private final String[] addresses;
+    private final int[] weights;
+    private final Strategy strategy;
+    private final Health health;
+    private final AtomicLong next;
+
+    DNSRecordSet(String[] addresses, int[] weights, Strategy strategy, Health health) {
+        this.addresses = addresses;
+        this.weights = weights;
+        this.strategy = strategy;
+        this.health = health;
+        this.next = new AtomicLong();
+    }
+
+    static DNSRecordSet of(String address, int weight, Strategy strategy, Health health) {
+        return new DNSRecordSet(new String[] { address }, new int[] { weight }, strategy, health);
+    }
+
+    /**
+     * Copy with an address added, or its weight changed if it is already in the set
+     */
+    DNSRecordSet withAddress(String address, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        int index = indexOf(address);
+        if (index >= 0) {
+            int[] reweighted = weights.clone();
+            reweighted[index] = weight;
+            return new DNSRecordSet(addresses, reweighted, strategy, health);
+        }
+        String[] grown = Arrays.copyOf(addresses, addresses.length + 1);
+        int[] grownWeights = Arrays.copyOf(weights, weights.length + 1);
+        grown[addresses.length] = address;
+        grownWeights[weights.length] = weight;
+        return new DNSRecordSet(grown, grownWeights, strategy, health);
+    }
+
+    /**
+     * Copy without an address; null when it was the last one
+     */
+    DNSRecordSet withoutAddress(String address) {
+        int index = indexOf(address);
+        if (index < 0) return this;
+        if (addresses.length == 1) return null;
+        String[] shrunk = new String[addresses.length - 1];
+        int[] shrunkWeights = new int[weights.length - 1];
+        for (int i = 0, j = 0; i < addresses.length; i++) {
+            if (i == index) continue;
+            shrunk[j] = addresses[i];
+            shrunkWeights[j++] = weights[i];
+        }
+        return new DNSRecordSet(shrunk, shrunkWeights, strategy, health);
+    }
+
+    DNSRecordSet withStrategy(Strategy strategy) {
+        return new DNSRecordSet(addresses, weights, strategy, health);
+    }
+
+    /**
+     * Address for one lookup, or null if none is up
+     */
+    public String select() {
+        switch (strategy) {
+            case WEIGHTED: return selectWeighted();
+            case LEAST_LATENCY: return selectLeastLatency();
+            default: return selectRoundRobin();
+        }
+    }
+
+    private String selectRoundRobin() {
+        int n = addresses.length;
+        int start = (int) Math.floorMod(next.getAndIncrement(), (long) n);
+        for (int i = 0; i < n; i++) {
+            String address = addresses[(start + i) % n];
+            if (health.isUp(address)) return address;
+        }
+        return null;
+    }
+
+    private String selectWeighted() {
+        long total = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (health.isUp(addresses[i])) total += weights[i];
+        }
+        if (total == 0) return null;
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < addresses.length; i++) {
+            if (!health.isUp(addresses[i])) continue;
+            pick -= weights[i];
+            if (pick < 0) return addresses[i];
+        }
+        return null; // An address went down between the passes
+    }
+
+    private String selectLeastLatency() {
+        int n = addresses.length;
+        int start = (int) Math.floorMod(next.getAndIncrement(), (long) n);
+        String best = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            String address = addresses[(start + i) % n];
+            if (!health.isUp(address)) continue;
+            long nanos = health.latencyNanos(address);
+            if (nanos < bestNanos) {
+                best = address;
+                bestNanos = nanos;
+            }
+        }
+        return best;
+    }
+
+    private int indexOf(String address) {
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i].equals(address)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Every address in the set, up or not
+     */
+    public List<String> getAddresses() {
+        return Collections.unmodifiableList(Arrays.asList(addresses));
+    }
+
+    /**
+     * Addresses that are up right now
+     */
+    public List<String> getAvailableAddresses() {
+        List<String> up = new ArrayList<>(addresses.length);
+        for (String address : addresses) {
+            if (health.isUp(address)) up.add(address);
+        }
+        return up;
+    }
+
+    public int getWeight(String address) {
+        int index = indexOf(address);
+        return index < 0 ? 0 : weights[index];
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public int size() {
+        return addresses.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(strategy.name()).append(" [");
+        for (int i = 0; i < addresses.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(addresses[i]);
+            if (weights[i] != 1) sb.append('*').append(weights[i]);
+            if (!health.isUp(addresses[i])) sb.append(" (down)");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -1,17 +1,123 @@
 package Final;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * DNS simulator for domain name resolution
  * Maps domain names to IP addresses
+ *
+ * Records are stored in a CaseInsensitiveIndex by lowercase name, which
+ * lookupOrNull reads without allocating. An IP -> domains index is kept
+ * next to it for PTR-style lookups. Every change to a domain's record
+ * updates the other indexes inside the record index's compute, so they
+ * never disagree about a domain once its register or remove has returned.
+ *
+ * Records carry a TTL that caching resolvers (see CachingResolver) honour;
+ * names that do not exist may be cached for the negative TTL.
+ *
+ * Besides addresses, a name may be an alias (CNAME) for another name, and
+ * a wildcard such as *.example.com answers for any name under example.com
+ * that has no record of its own. Lookups follow alias chains up to
+ * MAX_CHAIN_LENGTH links and give up on loops. The chain of a registered
+ * alias is cached under the alias, until the shortest TTL along it runs
+ * out or any record changes, so a repeated lookup of an alias is one probe.
+ * Names answered by a wildcard are not cached, which keeps the cache no
+ * larger than the set of registered aliases. Wildcards are not in the
+ * IP -> domains index, so reverse lookups only return real names.
+ * Wildcards and resolved chains are kept in case-insensitive indexes too.
+ *
+ * The delayed lookups come in two forms: lookupWithDelay sleeps the
+ * caller's thread for the round trip, while lookupAsync returns a future
+ * that a shared timer thread completes when the round trip is over, so no
+ * thread waits on the query. Completions run on the timer thread and
+ * should stay short.
+ *
+ * Changes are published to watchers (see watch and watchSuffix). When a
+ * name changes, every alias whose chain leads to it is published too, with
+ * its new answer, so a cache keyed by the name it was asked for can drop
+ * exactly the entries that changed. A wildcard change is published under
+ * the wildcard's own name ("*.example.com"); aliases through a wildcard
+ * are not followed.
+ *
+ * Records are also kept in a SortedNameIndex under their labels in
+ * reverse ("api.example.com" as "com.example.api"), so every name under a
+ * domain is one contiguous range; listUnder and glob page through it in
+ * that order without scanning other zones.
+ *
+ * A name may also hold several addresses (see addAddress), served by
+ * round-robin, weight or lowest reported latency (see DNSRecordSet).
+ * With a health check installed, addresses that are down are skipped by
+ * record sets and a single-address name whose address is down answers as
+ * if it did not exist; healthChanged tells watchers, and with them every
+ * resolver cache, that the answers for an address changed.
  */
 public class DNSSimulator {
-    private final Map<String, String> domainToIp;
+    public static final long DEFAULT_TTL_MS = 30_000;
+    public static final long DEFAULT_NEGATIVE_TTL_MS = 5_000;
+    public static final int MAX_CHAIN_LENGTH = 8;
+
+    /** Names every server starts with, and keeps across clear */
+    public static final Map<String, String> DEFAULT_ENTRIES;
+
+    static {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("localhost", "127.0.0.1");
+        defaults.put("example.com", "192.0.2.1");
+        defaults.put("www.example.com", "192.0.2.1");
+        DEFAULT_ENTRIES = Collections.unmodifiableMap(defaults);
+    }
+
+    private final Map<String, Set<String>> ipToDomains;
+    private final Map<String, Set<String>> aliasesOf; // Target -> names that are CNAMEs for it
+    private final CaseInsensitiveIndex<DNSRecord> records; // The records themselves, by lowercase name
+    private final CaseInsensitiveIndex<DNSRecord> wildcards; // Keyed by the wildcard's parent
+    private final CaseInsensitiveIndex<ResolvedChain> chainCache;
+    private final SortedNameIndex<DNSRecord> byReversedName;
+    private final AtomicLong chainGeneration;
+    private final AtomicLong cacheGeneration;
+    private final NamingWatchHub watchers;
+    private final Map<String, AtomicLong> addressLatencyNanos; // Smoothed, reported by clients
+    private final DNSRecordSet.Health health;
+    private volatile Predicate<String> healthCheck; // null = every address is up
+    private volatile DNSSimulator healthSource; // Server whose health check and latencies this one uses, or null
+    private volatile long negativeTtlMillis;
+    private volatile double slowQueryRate;
+    private volatile long slowQueryExtraMillis;
 
     public DNSSimulator() {
-        this.domainToIp = new ConcurrentHashMap<>();
+        this.ipToDomains = new ConcurrentHashMap<>();
+        this.aliasesOf = new ConcurrentHashMap<>();
+        this.records = new CaseInsensitiveIndex<>();
+        this.wildcards = new CaseInsensitiveIndex<>();
+        this.chainCache = new CaseInsensitiveIndex<>();
+        this.byReversedName = new SortedNameIndex<>('.');
+        this.chainGeneration = new AtomicLong();
+        this.cacheGeneration = new AtomicLong();
+        this.watchers = new NamingWatchHub("dns");
+        this.addressLatencyNanos = new ConcurrentHashMap<>();
+        this.health = new DNSRecordSet.Health() {
+            @Override
+            public boolean isUp(String address) {
+                return DNSSimulator.this.isUp(address);
+            }
+
+            @Override
+            public long latencyNanos(String address) {
+                return DNSSimulator.this.latencyNanos(address);
+            }
+        };
+        this.negativeTtlMillis = DEFAULT_NEGATIVE_TTL_MS;
         initializeDefaultEntries();
     }
 
@@ -19,95 +125,708 @@ public class DNSSimulator {
      * Initialize with some default DNS entries
      */
     private void initializeDefaultEntries() {
-        register("localhost", "127.0.0.1");
-        register("example.com", "192.0.2.1");
-        register("www.example.com", "192.0.2.1");
+        DEFAULT_ENTRIES.forEach(this::register);
     }
 
     /**
      * Register a domain name to IP address mapping
      */
     public void register(String domainName, String ipAddress) {
-        domainToIp.put(domainName.toLowerCase(), ipAddress);
-        System.out.println("DNS: Registered '" + domainName + "' -> " + ipAddress);
+        register(domainName, ipAddress, DEFAULT_TTL_MS);
+    }
+
+    /**
+     * Register a domain name to IP address mapping that resolvers may cache for ttlMillis
+     */
+    public void register(String domainName, String ipAddress, long ttlMillis) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            String name = domainName.toLowerCase();
+            records.compute(name, (domain, previous) -> {
+                if (previous != null) {
+                    for (String address : previous.getAddresses()) {
+                        if (!address.equals(ipAddress)) unindex(ipToDomains, address, domain);
+                    }
+                }
+                if (previous != null && previous.getType() == DNSRecord.Type.CNAME) {
+                    unindex(aliasesOf, previous.getTarget(), domain);
+                }
+                if (!isWildcard(domain)) index(ipToDomains, ipAddress, domain);
+                return mirror(new DNSRecord(domain, ipAddress, ttlMillis));
+            });
+            invalidateChains();
+            publish(name);
+            SimLog.debug("DNS: Registered '{}' -> {}", domainName, ipAddress);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Make a name an alias (CNAME) for another name
+     */
+    public void registerAlias(String alias, String target) {
+        registerAlias(alias, target, DEFAULT_TTL_MS);
+    }
+
+    public void registerAlias(String alias, String target, long ttlMillis) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            String canonical = target.toLowerCase();
+            String name = alias.toLowerCase();
+            records.compute(name, (domain, previous) -> {
+                if (previous != null) {
+                    for (String address : previous.getAddresses()) {
+                        unindex(ipToDomains, address, domain);
+                    }
+                }
+                if (previous != null && previous.getType() == DNSRecord.Type.CNAME) {
+                    unindex(aliasesOf, previous.getTarget(), domain);
+                }
+                index(aliasesOf, canonical, domain);
+                return mirror(new DNSRecord(domain, DNSRecord.Type.CNAME, canonical, ttlMillis));
+            });
+            invalidateChains();
+            publish(name);
+            SimLog.debug("DNS: Registered alias '{}' -> {}", alias, target);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
     }
 
     /**
      * Lookup IP address for a domain name
      */
     public Optional<String> lookup(String domainName) {
-        String ip = domainToIp.get(domainName.toLowerCase());
-        if (ip != null) {
-            System.out.println("DNS: Resolved '" + domainName + "' -> " + ip);
-            return Optional.of(ip);
-        } else {
-            System.out.println("DNS: Cannot resolve '" + domainName + "'");
-            return Optional.empty();
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            String ip = answer(resolveRecord(domainName.toLowerCase()));
+            if (ip != null) {
+                SimLog.debug("DNS: Resolved '{}' -> {}", domainName, ip);
+                return Optional.of(ip);
+            } else {
+                SimLog.debug("DNS: Cannot resolve '{}'", domainName);
+                return Optional.empty();
+            }
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Hot-path lookup: the address, or null, without allocating or logging
+     * Address records, address wildcards and alias chains already in the
+     * chain cache are answered in place; an alias seen for the first time
+     * takes the regular path once to fill the cache, and a name matching an
+     * alias wildcard takes it every time
+     */
+    public String lookupOrNull(CharSequence domainName) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            DNSRecord direct = records.get(domainName);
+            if (direct != null && direct.getType() == DNSRecord.Type.A) {
+                return answer(direct);
+            }
+            ResolvedChain cached = chainCache.get(domainName);
+            if (cached != null && System.nanoTime() - cached.expiresAtNanos < 0) {
+                return answer(cached.record);
+            }
+            if (direct == null) {
+                DNSRecord wildcard = matchWildcard(domainName);
+                if (wildcard == null) return null;
+                if (wildcard.getType() == DNSRecord.Type.A) return answer(wildcard);
+            }
+            return answer(resolveRecord(domainName.toString().toLowerCase()));
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Lookup many domains at once; names that do not resolve are left out
+     * The result keeps the order and spelling of the names given
+     */
+    public Map<String, String> lookupAll(Collection<String> domainNames) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Map<String, String> found = new LinkedHashMap<>(domainNames.size() * 2);
+            for (String domainName : domainNames) {
+                String ip = answer(resolveRecord(domainName.toLowerCase()));
+                if (ip != null) {
+                    found.put(domainName, ip);
+                }
+            }
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("DNS: Batch resolved {} of {}", found.size(), domainNames.size());
+            }
+            return found;
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Add an address to a name with weight 1 (see addAddress(String, String, int))
+     */
+    public void addAddress(String domainName, String ipAddress) {
+        addAddress(domainName, ipAddress, 1);
+    }
+
+    /**
+     * Add an address to a name, or change its weight; the name becomes a
+     * record set (round-robin until setSelectionStrategy says otherwise).
+     * A single address already there joins the set with weight 1; an alias
+     * is replaced.
+     */
+    public void addAddress(String domainName, String ipAddress, int weight) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            String name = domainName.toLowerCase();
+            records.compute(name, (domain, previous) -> {
+                DNSRecordSet set;
+                long ttlMillis = previous == null ? DEFAULT_TTL_MS : previous.getTtlMillis();
+                if (previous != null && previous.getRecordSet() != null) {
+                    set = previous.getRecordSet().withAddress(ipAddress, weight);
+                } else if (previous != null && previous.getType() == DNSRecord.Type.A) {
+                    set = DNSRecordSet.of(previous.getAddress(), 1, DNSRecordSet.Strategy.ROUND_ROBIN, health)
+                                      .withAddress(ipAddress, weight);
+                } else {
+                    if (previous != null) {
+                        unindex(aliasesOf, previous.getTarget(), domain);
+                        ttlMillis = DEFAULT_TTL_MS;
+                    }
+                    set = DNSRecordSet.of(ipAddress, weight, DNSRecordSet.Strategy.ROUND_ROBIN, health);
+                }
+                if (!isWildcard(domain)) index(ipToDomains, ipAddress, domain);
+                return mirror(new DNSRecord(domain, set, ttlMillis));
+            });
+            invalidateChains();
+            publish(name);
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("DNS: Added address {} to '{}' (weight {})", ipAddress, domainName, weight);
+            }
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Take one address away from a name; the name is removed with its last address
+     */
+    public boolean removeAddress(String domainName, String ipAddress) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            boolean[] removed = new boolean[1];
+            String name = domainName.toLowerCase();
+            records.computeIfPresent(name, (domain, record) -> {
+                if (!record.getAddresses().contains(ipAddress)) return record;
+                removed[0] = true;
+                unindex(ipToDomains, ipAddress, domain);
+                DNSRecordSet remaining = record.getRecordSet() == null ? null : record.getRecordSet().withoutAddress(ipAddress);
+                if (remaining == null) {
+                    unmirror(domain);
+                    return null;
+                }
+                return mirror(new DNSRecord(domain, remaining, record.getTtlMillis()));
+            });
+            if (removed[0]) {
+                invalidateChains();
+                publish(name);
+                SimLog.debug("DNS: Removed address {} from '{}'", ipAddress, domainName);
+            }
+            return removed[0];
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * How a record set picks an address; false if the name is not a record set
+     */
+    public boolean setSelectionStrategy(String domainName, DNSRecordSet.Strategy strategy) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            boolean[] changed = new boolean[1];
+            String name = domainName.toLowerCase();
+            records.computeIfPresent(name, (domain, record) -> {
+                if (record.getRecordSet() == null) return record;
+                changed[0] = true;
+                return mirror(new DNSRecord(domain, record.getRecordSet().withStrategy(strategy), record.getTtlMillis()));
+            });
+            if (changed[0]) {
+                invalidateChains();
+                publish(name);
+                SimLog.debug("DNS: '{}' now selects by {}", domainName, strategy);
+            }
+            return changed[0];
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
     }
 
+    /**
+     * Decide which addresses are up, e.g. from the availability of the node
+     * behind each; null treats every address as up. Called on every lookup
+     * of a record, so it should be a cheap read
+     */
+    public void setHealthCheck(Predicate<String> healthCheck) {
+        this.healthCheck = healthCheck;
+    }
+
+    public boolean isUp(String address) {
+        DNSSimulator source = healthSource;
+        if (source != null) return source.isUp(address);
+        Predicate<String> check = healthCheck;
+        return check == null || address == null || check.test(address);
+    }
+
+    /**
+     * An address went up or down: publish every name it serves so watchers
+     * (and through them resolver caches) drop answers that no longer hold
+     */
+    public void healthChanged(String ipAddress) {
+        Set<String> domains = ipToDomains.get(ipAddress);
+        List<String> changed = domains == null ? new ArrayList<>() : new ArrayList<>(domains);
+        // Wildcards are not in the reverse index
+        wildcards.forEach((parent, record) -> {
+            if (record.getAddresses().contains(ipAddress)) changed.add(record.getDomain());
+        });
+        if (changed.isEmpty()) return;
+        invalidateChains();
+        for (String domain : changed) {
+            publish(domain);
+        }
+    }
+
+    /**
+     * Report how long a request to an address took; LEAST_LATENCY record sets
+     * prefer the lowest smoothed value (an exponential average over about 8 reports)
+     */
+    public void reportLatency(String ipAddress, long nanos) {
+        addressLatencyNanos.computeIfAbsent(ipAddress, ip -> new AtomicLong())
+                           .updateAndGet(current -> current == 0 ? Math.max(nanos, 1) : current + (nanos - current) / 8);
+    }
+
+    /**
+     * Smoothed reported latency of an address in nanoseconds, or 0 if none was reported
+     */
+    public long latencyNanos(String address) {
+        DNSSimulator source = healthSource;
+        if (source != null) return source.latencyNanos(address);
+        AtomicLong latency = addressLatencyNanos.get(address);
+        return latency == null ? 0 : latency.get();
+    }
+
+    /**
+     * Take health and latency from another server, e.g. a replica of the
+     * registry deferring to the primary's view of which nodes are up
+     */
+    public void useHealthOf(DNSSimulator source) {
+        this.healthSource = source == this ? null : source;
+    }
+
+    /**
+     * Address an answer gives now: a record set picks one that is up, and a
+     * single address is withheld while it is down
+     */
+    String answer(DNSRecord record) {
+        if (record == null) return null;
+        String address = record.getAddress();
+        if (record.getRecordSet() == null && !isUp(address)) return null;
+        return address;
+    }
+
     /**
      * Reverse DNS lookup - find domain name for IP
      */
     public Optional<String> reverseLookup(String ipAddress) {
-        for (Map.Entry<String, String> entry : domainToIp.entrySet()) {
-            if (entry.getValue().equals(ipAddress)) {
-                System.out.println("DNS: Reverse lookup " + ipAddress + " -> " + entry.getKey());
-                return Optional.of(entry.getKey());
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Set<String> domains = ipToDomains.get(ipAddress);
+            if (domains != null) {
+                Iterator<String> it = domains.iterator();
+                if (it.hasNext()) { // The set may empty between the get and here
+                    String domain = it.next();
+                    SimLog.debug("DNS: Reverse lookup {} -> {}", ipAddress, domain);
+                    return Optional.of(domain);
+                }
             }
+            SimLog.debug("DNS: No domain found for IP {}", ipAddress);
+            return Optional.empty();
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
-        System.out.println("DNS: No domain found for IP " + ipAddress);
-        return Optional.empty();
+    }
+
+    /**
+     * All domains mapped to an IP address, e.g. every service on a host
+     */
+    public Set<String> reverseLookupAll(String ipAddress) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Set<String> domains = ipToDomains.get(ipAddress);
+            return domains == null ? Collections.emptySet() : new TreeSet<>(domains);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Add a domain to the set under a key of a reverse index (ipToDomains or aliasesOf)
+     */
+    private static void index(Map<String, Set<String>> index, String key, String domain) {
+        index.compute(key, (k, domains) -> {
+            if (domains == null) {
+                domains = ConcurrentHashMap.newKeySet();
+            }
+            domains.add(domain);
+            return domains;
+        });
+    }
+
+    /**
+     * Copy a record into the sorted and wildcard indexes
+     * Called inside the record index's compute, like index/unindex
+     */
+    private DNSRecord mirror(DNSRecord record) {
+        byReversedName.put(reverseLabels(record.getDomain()), record);
+        if (record.isWildcard()) {
+            wildcards.put(record.getDomain().substring(2), record);
+        }
+        return record;
+    }
+
+    private void unmirror(String domain) {
+        byReversedName.remove(reverseLabels(domain));
+        if (isWildcard(domain)) {
+            wildcards.remove(domain.substring(2));
+        }
+    }
+
+    /**
+     * Wildcard names answer lookups but are left out of the reverse (IP -> domains) index
+     */
+    private static boolean isWildcard(String domain) {
+        return domain.startsWith("*.");
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String domain) {
+        index.computeIfPresent(key, (k, domains) -> {
+            domains.remove(domain);
+            return domains.isEmpty() ? null : domains;
+        });
     }
 
     /**
      * Remove a domain name entry
      */
     public boolean remove(String domainName) {
-        String removed = domainToIp.remove(domainName.toLowerCase());
-        if (removed != null) {
-            System.out.println("DNS: Removed '" + domainName + "'");
+        boolean[] removed = new boolean[1];
+        String name = domainName.toLowerCase();
+        records.computeIfPresent(name, (domain, record) -> {
+            for (String address : record.getAddresses()) {
+                unindex(ipToDomains, address, domain);
+            }
+            if (record.getType() == DNSRecord.Type.CNAME) {
+                unindex(aliasesOf, record.getTarget(), domain);
+            }
+            unmirror(domain);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            invalidateChains();
+            publish(name);
+            SimLog.debug("DNS: Removed '{}'", domainName);
             return true;
         }
         return false;
     }
 
+    /**
+     * One page of the records at or under a domain ("" for all), grouped by zone:
+     * names are ordered by their labels from the right, so example.com comes
+     * right before its subdomains. Values are addresses, or targets for aliases
+     * @param cursor getNextCursor() of the previous page, or null for the first page
+     */
+    public NamingPage listUnder(String domain, String cursor, int limit) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            return NamingPage.take(byReversedName.under(reverseLabels(trimDots(domain)), afterKey(cursor)),
+                                   limit, DOMAIN_VIEW);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Every record at or under a domain in zone order, read lazily as the stream is consumed
+     */
+    public Stream<Map.Entry<String, String>> streamUnder(String domain) {
+        return NamingPage.stream(byReversedName.under(reverseLabels(trimDots(domain)), null), DOMAIN_VIEW);
+    }
+
+    /**
+     * One page of the names matching a glob such as "api-*.example.com" or "**.example.com"
+     * '*' matches within one label, "**" across labels
+     */
+    public NamingPage glob(String pattern, String cursor, int limit) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            return NamingPage.take(byReversedName.glob(reverseLabels(trimDots(pattern)), afterKey(cursor)),
+                                   limit, DOMAIN_VIEW);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    public Stream<Map.Entry<String, String>> streamGlob(String pattern) {
+        return NamingPage.stream(byReversedName.glob(reverseLabels(trimDots(pattern)), null), DOMAIN_VIEW);
+    }
+
+    private static final Function<Map.Entry<String, DNSRecord>, Map.Entry<String, String>> DOMAIN_VIEW = entry -> {
+        DNSRecord record = entry.getValue();
+        String value = record.getType() == DNSRecord.Type.CNAME ? record.getTarget() : String.join(",", record.getAddresses());
+        return new AbstractMap.SimpleImmutableEntry<>(record.getDomain(), value);
+    };
+
+    private static String afterKey(String cursor) {
+        return cursor == null ? null : reverseLabels(trimDots(cursor));
+    }
+
+    private static String trimDots(String domain) {
+        String lower = domain.toLowerCase();
+        int start = 0;
+        int end = lower.length();
+        while (start < end && lower.charAt(start) == '.') start++;
+        while (end > start && lower.charAt(end - 1) == '.') end--;
+        return lower.substring(start, end);
+    }
+
+    /**
+     * A domain's labels in reverse order: "api.example.com" becomes "com.example.api"
+     */
+    static String reverseLabels(String domain) {
+        StringBuilder reversed = new StringBuilder(domain.length());
+        int end = domain.length();
+        while (end >= 0) {
+            int dot = domain.lastIndexOf('.', end - 1);
+            if (reversed.length() > 0) reversed.append('.');
+            reversed.append(domain, dot + 1, end);
+            end = dot;
+        }
+        return reversed.toString();
+    }
+
     /**
      * Get all registered domain names
      */
     public Set<String> getAllDomains() {
-        return new HashSet<>(domainToIp.keySet());
+        return records.keySet();
     }
 
     /**
      * Get the number of DNS entries
      */
     public int size() {
-        return domainToIp.size();
+        return records.size();
     }
 
     /**
      * Check if a domain is registered
      */
     public boolean contains(String domainName) {
-        return domainToIp.containsKey(domainName.toLowerCase());
+        return records.containsKey(domainName);
     }
 
     /**
      * Clear all DNS entries (except defaults)
      */
     public void clear() {
-        domainToIp.clear();
+        // Entry by entry so registrations racing the clear keep every index in step
+        for (String domain : records.keySet()) {
+            remove(domain);
+        }
         initializeDefaultEntries();
     }
 
     /**
-     * Simulate DNS cache expiration
+     * Authoritative answer for a domain, including its TTL
+     * Aliases and wildcards are resolved to an address record for the name asked for,
+     * whose TTL is the shortest along the chain
+     */
+    public Optional<DNSRecord> resolve(String domainName) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            DNSRecord record = resolveRecord(domainName.toLowerCase());
+            if (record != null && record.getRecordSet() == null && !isUp(record.getAddress())) {
+                return Optional.empty(); // Its only address is down
+            }
+            return Optional.ofNullable(record);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * The record stored under a name, without following aliases or wildcards
+     */
+    public Optional<DNSRecord> getRecord(String domainName) {
+        return Optional.ofNullable(records.get(domainName));
+    }
+
+    /**
+     * Address record answering for a lowercase name, or null for NXDOMAIN,
+     * a loop or a chain longer than MAX_CHAIN_LENGTH
+     */
+    private DNSRecord resolveRecord(String domain) {
+        long generation = chainGeneration.get();
+        DNSRecord direct = records.get(domain);
+        if (direct != null && direct.getType() == DNSRecord.Type.A) {
+            return direct;
+        }
+
+        long now = System.nanoTime();
+        ResolvedChain cached = chainCache.get(domain);
+        if (cached != null && now - cached.expiresAtNanos < 0) {
+            return cached.record;
+        }
+
+        DNSRecord record = direct != null ? direct : matchWildcard(domain);
+        if (record == null) return null;
+
+        long ttlMillis = record.getTtlMillis();
+        Set<String> visited = new HashSet<>();
+        visited.add(domain);
+        int links = 0;
+        while (record.getType() == DNSRecord.Type.CNAME) {
+            String target = record.getTarget();
+            if (!visited.add(target)) {
+                SimLog.warn("DNS: CNAME loop resolving '{}' at '{}'", domain, target);
+                return null;
+            }
+            if (++links > MAX_CHAIN_LENGTH) {
+                SimLog.warn("DNS: CNAME chain for '{}' longer than {} links", domain, MAX_CHAIN_LENGTH);
+                return null;
+            }
+            record = records.get(target);
+            if (record == null) record = matchWildcard(target);
+            if (record == null) return null; // Dangling alias
+            ttlMillis = Math.min(ttlMillis, record.getTtlMillis());
+        }
+
+        DNSRecord answer = record.getRecordSet() != null
+                ? new DNSRecord(domain, record.getRecordSet(), ttlMillis)
+                : new DNSRecord(domain, record.getAddress(), ttlMillis);
+        if (direct == null) {
+            return answer; // Matched a wildcard: not cached, or every name under it would add an entry
+        }
+        ResolvedChain chain = new ResolvedChain(answer, now + ttlMillis * 1_000_000);
+        chainCache.put(domain, chain);
+        if (chainGeneration.get() != generation) {
+            chainCache.remove(domain, chain); // A record changed while we were following the chain
+        }
+        return answer;
+    }
+
+    /**
+     * Closest enclosing wildcard record for a name, e.g. *.example.com for a.b.example.com
+     * Each parent is probed in place, without building "*." + parent
+     */
+    private DNSRecord matchWildcard(CharSequence domain) {
+        int length = domain.length();
+        for (int dot = 0; dot < length; dot++) {
+            if (domain.charAt(dot) == '.' && dot + 1 < length) {
+                DNSRecord wildcard = wildcards.get(domain, dot + 1, length);
+                if (wildcard != null) return wildcard;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Publish a changed name, then every alias that leads to it, each with its current answer
+     */
+    private void publish(String name) {
+        if (!watchers.hasSubscribers()) return;
+        Set<String> published = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(name);
+        while (!pending.isEmpty()) {
+            String domain = pending.poll();
+            if (!published.add(domain)) continue; // Alias loops
+            DNSRecord record = records.get(domain);
+            String value;
+            if (record != null && record.isWildcard()) {
+                value = record.getType() == DNSRecord.Type.CNAME ? record.getTarget() : String.join(",", record.getAddresses());
+            } else {
+                DNSRecord answer = record == null ? null : resolveRecord(domain);
+                value = answer == null ? null : String.join(",", answer.getAddresses());
+            }
+            watchers.publish(value == null ? NamingWatchHub.Event.Type.REMOVED : NamingWatchHub.Event.Type.REGISTERED,
+                             domain, value);
+            Set<String> aliases = aliasesOf.get(domain);
+            if (aliases != null) pending.addAll(aliases);
+        }
+    }
+
+    /**
+     * Watch one domain; the listener receives batches of its changes
+     */
+    public NamingWatchHub.Subscription watch(String domainName, Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.EXACT, domainName, listener);
+    }
+
+    /**
+     * Watch a domain and every name under it; "" watches every domain
+     */
+    public NamingWatchHub.Subscription watchSuffix(String domain, Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.SUFFIX, domain, listener);
+    }
+
+    public NamingWatchHub getWatchHub() {
+        return watchers;
+    }
+
+    private void invalidateChains() {
+        chainGeneration.incrementAndGet();
+        if (!chainCache.isEmpty()) {
+            chainCache.clear();
+        }
+    }
+
+    /**
+     * Resolved alias chains currently cached
+     */
+    public int getCachedChainCount() {
+        return chainCache.size();
+    }
+
+    /**
+     * How long resolvers may remember that a name does not exist
+     */
+    public long getNegativeTtlMillis() {
+        return negativeTtlMillis;
+    }
+
+    public void setNegativeTtlMillis(long negativeTtlMillis) {
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * Flush every resolver cache in front of this service; each resolver
+     * drops its entries on its next lookup
      */
     public void expireCache() {
-        System.out.println("DNS: Cache expired, refreshing entries...");
-        // In a real DNS system, this would reload from authoritative servers
-        // For simulation, we just print a message
+        cacheGeneration.incrementAndGet();
+        SimLog.info("DNS: Cache expired, resolvers will refetch from the authoritative records");
+    }
+
+    /**
+     * Bumped by expireCache; resolvers compare it to the value their entries were cached under
+     */
+    long getCacheGeneration() {
+        return cacheGeneration.get();
     }
 
     /**
@@ -115,11 +834,16 @@ public class DNSSimulator {
      */
     public void printAll() {
         System.out.println("DNS Simulator entries:");
-        List<String> sortedDomains = new ArrayList<>(domainToIp.keySet());
+        List<String> sortedDomains = new ArrayList<>(records.keySet());
         Collections.sort(sortedDomains);
         
         for (String domain : sortedDomains) {
-            System.out.println("  " + domain + " -> " + domainToIp.get(domain));
+            DNSRecord record = records.get(domain);
+            if (record != null) {
+                String value = record.getType() == DNSRecord.Type.CNAME ? "alias of " + record.getTarget()
+                        : record.getRecordSet() != null ? record.getRecordSet().toString() : record.getAddress();
+                System.out.println("  " + domain + " -> " + value + " (ttl " + record.getTtlMillis() / 1000 + "s)");
+            }
         }
     }
 
@@ -127,12 +851,111 @@ public class DNSSimulator {
      * Simulate DNS query with realistic delay
      */
     public Optional<String> lookupWithDelay(String domainName) {
+        simulateQueryDelay();
+        return lookup(domainName);
+    }
+
+    /**
+     * Authoritative answer after the simulated round trip to the server
+     */
+    public Optional<DNSRecord> resolveWithDelay(String domainName) {
+        simulateQueryDelay();
+        return resolve(domainName);
+    }
+
+    /**
+     * Simulate a pipelined batch: every query is sent before any answer is
+     * awaited, so the batch takes as long as its slowest query, not the sum
+     */
+    public Map<String, String> lookupAllWithDelay(Collection<String> domainNames) {
+        long slowest = 0;
+        for (int i = 0; i < domainNames.size(); i++) {
+            slowest = Math.max(slowest, sampleQueryDelayMillis());
+        }
+        sleepMillis(slowest);
+        return lookupAll(domainNames);
+    }
+
+    /**
+     * Lookup after the simulated round trip, without blocking the caller
+     */
+    public CompletableFuture<Optional<String>> lookupAsync(String domainName) {
+        return resolveAsync(domainName).thenApply(record -> record.map(DNSRecord::getAddress));
+    }
+
+    /**
+     * Authoritative answer after the simulated round trip, without blocking the caller
+     */
+    public CompletableFuture<Optional<DNSRecord>> resolveAsync(String domainName) {
+        CompletableFuture<Optional<DNSRecord>> answer = new CompletableFuture<>();
+        Timer.INSTANCE.schedule(() -> {
+            try {
+                answer.complete(resolve(domainName));
+            } catch (RuntimeException e) {
+                answer.completeExceptionally(e);
+            }
+        }, sampleQueryDelayMillis(), TimeUnit.MILLISECONDS);
+        return answer;
+    }
+
+    /**
+     * Timer thread that completes async queries, shared with AsyncDnsClient
+     */
+    static ScheduledExecutorService timer() {
+        return Timer.INSTANCE;
+    }
+
+    /**
+     * Make a fraction of simulated queries slower by extraMillis, e.g. a lost
+     * packet waiting for its retransmit (rate 0 = every query takes 10-60ms)
+     */
+    public void setSlowQueries(double rate, long extraMillis) {
+        this.slowQueryRate = rate;
+        this.slowQueryExtraMillis = extraMillis;
+    }
+
+    private void simulateQueryDelay() {
+        sleepMillis(sampleQueryDelayMillis());
+    }
+
+    private long sampleQueryDelayMillis() {
+        // Simulate network delay for DNS resolution
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = random.nextInt(50) + 10; // 10-60ms delay
+        double slowRate = slowQueryRate;
+        return slowRate > 0 && random.nextDouble() < slowRate ? delay + slowQueryExtraMillis : delay;
+    }
+
+    private static void sleepMillis(long millis) {
         try {
-            // Simulate network delay for DNS resolution
-            Thread.sleep(new Random().nextInt(50) + 10); // 10-60ms delay
+            Thread.sleep(millis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
-        return lookup(domainName);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Created on first async use; a daemon thread, so it never keeps the JVM alive
+     */
+    private static class Timer {
+        static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "dns-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true); // Cancelled hedges and timeouts free their slot at once
+        }
+    }
+
+    private static class ResolvedChain {
+        final DNSRecord record;
+        final long expiresAtNanos;
+
+        ResolvedChain(DNSRecord record, long expiresAtNanos) {
+            this.record = record;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
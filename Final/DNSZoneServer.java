@@ -0,0 +1,171 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative name server for one zone of a DNSHierarchy
+ *
+ * A server answers for names in its zone that it holds records for,
+ * refers the resolver to the server of a delegated child zone (an NS
+ * record), answers from a wildcard record of the zone, and otherwise
+ * answers NXDOMAIN. An answer may be an alias (CNAME), which the resolver
+ * follows with a new query for its target. Its link profile is the latency a resolver pays for
+ * one query round trip.
+ */
+public class DNSZoneServer {
+    public enum Level { ROOT, TLD, ZONE }
+
+    private final String name;
+    private final String zone; // "" for the root
+    private final Level level;
+    private final LinkProfile link;
+    private final Map<String, DNSRecord> records;
+    private final Map<String, DNSZoneServer> delegations;
+    private final LongAdder queries;
+    private volatile long delegationTtlMillis;
+    private volatile long negativeTtlMillis;
+
+    public DNSZoneServer(String name, String zone, Level level, LinkProfile link) {
+        this.name = name;
+        this.zone = zone;
+        this.level = level;
+        this.link = link;
+        this.records = new ConcurrentHashMap<>();
+        this.delegations = new ConcurrentHashMap<>();
+        this.queries = new LongAdder();
+        this.delegationTtlMillis = 60_000;
+        this.negativeTtlMillis = DNSSimulator.DEFAULT_NEGATIVE_TTL_MS;
+    }
+
+    /**
+     * Answer one query the way an authoritative server would
+     */
+    public Response query(String domainName) {
+        queries.increment();
+        String domain = domainName.toLowerCase();
+
+        DNSRecord record = records.get(domain);
+        if (record != null) {
+            return new Response(Response.Type.ANSWER, record, null, record.getTtlMillis());
+        }
+
+        // Most specific delegated child zone that encloses the name
+        for (String candidate = domain; candidate != null && !candidate.equals(zone); candidate = parent(candidate)) {
+            DNSZoneServer child = delegations.get(candidate);
+            if (child != null) {
+                return new Response(Response.Type.REFERRAL, null, child, delegationTtlMillis);
+            }
+        }
+
+        // Closest wildcard in this zone, e.g. *.example.com
+        for (String candidate = parent(domain); candidate != null && !candidate.isEmpty(); candidate = parent(candidate)) {
+            DNSRecord wildcard = records.get("*." + candidate);
+            if (wildcard != null) {
+                // An alias wildcard answers with the alias; the resolver follows it
+                return new Response(Response.Type.ANSWER, wildcard.forDomain(domain), null, wildcard.getTtlMillis());
+            }
+            if (candidate.equals(zone)) break;
+        }
+        return new Response(Response.Type.NXDOMAIN, null, null, negativeTtlMillis);
+    }
+
+    /**
+     * The name with its leftmost label removed, or null for a single label
+     */
+    static String parent(String domain) {
+        int dot = domain.indexOf('.');
+        return dot < 0 ? (domain.isEmpty() ? null : "") : domain.substring(dot + 1);
+    }
+
+    public void addRecord(DNSRecord record) {
+        records.put(record.getDomain(), record);
+    }
+
+    public boolean removeRecord(String domain) {
+        return records.remove(domain.toLowerCase()) != null;
+    }
+
+    /**
+     * Add an NS record handing a child zone to another server
+     */
+    public void delegate(DNSZoneServer child) {
+        delegations.put(child.getZone(), child);
+    }
+
+    /**
+     * Remove the NS record of a child zone
+     */
+    public void undelegate(String childZone) {
+        delegations.remove(childZone);
+    }
+
+    public DNSZoneServer getDelegate(String childZone) {
+        return delegations.get(childZone);
+    }
+
+    /**
+     * Zones delegated by this server, sorted
+     */
+    public Set<String> getChildZones() {
+        return new TreeSet<>(delegations.keySet());
+    }
+
+    /**
+     * Remove every record and delegation here and in every delegated server below
+     */
+    public void clear() {
+        for (DNSZoneServer child : delegations.values()) {
+            child.clear();
+        }
+        records.clear();
+        delegations.clear();
+    }
+
+    /**
+     * Whether the server holds no records and delegates no zones
+     */
+    public boolean isEmpty() {
+        return records.isEmpty() && delegations.isEmpty();
+    }
+
+    public String getName() { return name; }
+    public String getZone() { return zone; }
+    public Level getLevel() { return level; }
+    public LinkProfile getLink() { return link; }
+    public int getRecordCount() { return records.size(); }
+    public long getQueryCount() { return queries.sum(); }
+
+    public void setDelegationTtlMillis(long ttlMillis) { this.delegationTtlMillis = ttlMillis; }
+    public void setNegativeTtlMillis(long ttlMillis) { this.negativeTtlMillis = ttlMillis; }
+
+    @Override
+    public String toString() {
+        return name + " (" + (zone.isEmpty() ? "." : zone) + ")";
+    }
+
+    /**
+     * An answer, a referral to a child zone's server, or NXDOMAIN, with how long it may be cached
+     */
+    public static class Response {
+        public enum Type { ANSWER, REFERRAL, NXDOMAIN }
+
+        private final Type type;
+        private final DNSRecord record;
+        private final DNSZoneServer referral;
+        private final long ttlMillis;
+
+        Response(Type type, DNSRecord record, DNSZoneServer referral, long ttlMillis) {
+            this.type = type;
+            this.record = record;
+            this.referral = referral;
+            this.ttlMillis = ttlMillis;
+        }
+
+        public Type getType() { return type; }
+        public DNSRecord getRecord() { return record; }
+        public DNSZoneServer getReferral() { return referral; }
+        public long getTtlMillis() { return ttlMillis; }
+    }
+}
@@ -17,50 +17,122 @@ public class DistributedSystemSimulator {
     private final FlatNamingService flatNaming;
     private final StructuredNamingService structuredNaming;
     private final DNSSimulator dnsService;
+    private final ChordNamingService dhtNaming;
+    private final NamingReplica namingRegistry; // The shared services, fed in log order
+    private final Map<String, String> nodeAddresses; // Node id -> its DNS address
+    private final Map<String, ServiceNode> nodesByAddress;
+    private final SimulatedNetwork network;
     private final Random random;
     
     // Performance metrics
-    private final java.util.List<PerformanceMetric> metrics;
+    private final MetricsHistory metrics;
+    private final LatencyTracker latencyTracker;
+    private LatencyHistogram.Snapshot lastOperationSnapshot;
+    private LatencyHistogram.Snapshot lastConvergenceSnapshot;
+    private final ReplicationLagTracker lagTracker;
+    private static final long LAG_SAMPLE_INTERVAL_MS = 100;
+    private static final long METRICS_INTERVAL_MS = 1000;
     private volatile boolean isRunning;
     
+    // Workload capture
+    private WorkloadTraceWriter traceWriter;
+    
+    // Metrics exposition
+    private MetricsEndpoint metricsEndpoint;
+    private jdk.jfr.Recording flightRecording;
+    
+    // Causal tracing (null when disabled)
+    private volatile TraceCollector traceCollector;
+    
+    // Hierarchical view of the DNS records (null until first used)
+    private volatile DNSHierarchy dnsHierarchy;
+    
+    // Resource usage report interval (0 = no reports)
+    private volatile long accountingIntervalMs;
+    
+    private volatile ConsistencyMode consistencyMode;
+    
+    /**
+     * Record set served by every node, e.g. for load-balanced client lookups
+     */
+    public static final String SERVICE_DOMAIN = "service.example.com";
+    
     public DistributedSystemSimulator() {
+        this(Arrays.asList("NodeA", "NodeB", "NodeC"));
+    }
+    
+    public DistributedSystemSimulator(java.util.List<String> nodeIds) {
         this.nodes = new ConcurrentHashMap<>();
         this.coordinator = new CentralCoordinator();
         this.threadPool = Executors.newCachedThreadPool();
         this.flatNaming = new FlatNamingService();
         this.structuredNaming = new StructuredNamingService();
         this.dnsService = new DNSSimulator();
+        this.namingRegistry = new NamingReplica(flatNaming, structuredNaming, dnsService);
+        this.nodeAddresses = new ConcurrentHashMap<>();
+        this.nodesByAddress = new ConcurrentHashMap<>();
+        dnsService.setHealthCheck(this::isAddressUp);
+        this.network = new SimulatedNetwork(
+            LinkProfile.uniform(20, 80).withBandwidth(1_000_000).withLoss(0.01, 2, 200));
+        this.dhtNaming = new ChordNamingService(nodeIds);
+        dhtNaming.setNetwork(network);
         this.random = new Random();
-        this.metrics = Collections.synchronizedList(new ArrayList<>());
+        this.metrics = new MetricsHistory();
+        this.latencyTracker = new LatencyTracker();
+        this.lastOperationSnapshot = LatencyHistogram.Snapshot.EMPTY;
+        this.lastConvergenceSnapshot = LatencyHistogram.Snapshot.EMPTY;
+        this.lagTracker = new ReplicationLagTracker(coordinator, latencyTracker);
+        coordinator.setLatencyTracker(latencyTracker);
         this.isRunning = false;
+        this.consistencyMode = ConsistencyMode.HYBRID;
+        
+        initializeSystem(nodeIds);
         
-        initializeSystem();
+        // Nodes cut off by a partition catch up as soon as it heals
+        network.addHealListener(affected -> {
+            if (!isRunning) return;
+            try {
+                threadPool.submit(() -> {
+                    for (String endpoint : affected) {
+                        ServiceNode node = nodes.get(endpoint);
+                        if (node != null) {
+                            node.syncWithCoordinator();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Stopped between the check and the submit; nothing left to catch up
+            }
+        });
     }
     
-    private void initializeSystem() {
+    private void initializeSystem(java.util.List<String> nodeIds) {
         // Create service nodes
-        String[] nodeIds = {"NodeA", "NodeB", "NodeC"};
         for (String nodeId : nodeIds) {
             ServiceNode node = new ServiceNode(nodeId, coordinator, flatNaming, structuredNaming, dnsService);
+            node.setNetwork(network);
+            node.setLatencyTracker(latencyTracker);
+            node.setDhtNaming(dhtNaming);
+            node.getNamingReplica().getDns().useHealthOf(dnsService);
             nodes.put(nodeId, node);
+            String address = "192.168.1." + nodes.size();
+            nodeAddresses.put(nodeId, address);
+            nodesByAddress.put(address, node);
             
-            // Register in naming services
+            // Register in naming services; the log carries them to every node's replica
             String service = nodeId.toLowerCase() + "-service";
-            flatNaming.register(service, new Resource(service, nodeId));
-            structuredNaming.register("/services/" + service, new Resource(service, nodeId));
-            dnsService.register(service + ".example.com", "192.168.1." + (nodes.size()));
+            registerName("flat", service, nodeId);
+            registerName("structured", "/services/" + service, nodeId);
+            dhtNaming.register(service, new Resource(service, nodeId));
+            registerName("dns", service + ".example.com", address);
+            addServiceAddress(SERVICE_DOMAIN, address, 1); // One name spread over every node
             
-            System.out.println("Initialized " + nodeId + " with all naming services");
+            SimLog.info("Initialized {} with all naming services", nodeId);
         }
     }
     
     public void startSimulation() {
-        isRunning = true;
-        
-        // Recreate thread pool if it's been shutdown
-        if (threadPool.isShutdown()) {
-            threadPool = Executors.newCachedThreadPool();
-        }
+        startServices();
         
         // Start each node as a separate thread
         for (ServiceNode node : nodes.values()) {
@@ -77,23 +149,46 @@ public class DistributedSystemSimulator {
             });
         }
         
+        SimLog.info("🚀 Distributed System Simulation Started!");
+    }
+    
+    /**
+     * Start coordination, synchronization and monitoring without the random
+     * client workload, e.g. when a recorded trace drives the nodes instead
+     */
+    public void startServices() {
+        isRunning = true;
+        
+        // Recreate thread pool if it's been shutdown
+        if (threadPool.isShutdown()) {
+            threadPool = Executors.newCachedThreadPool();
+        }
+        
         // Start coordination and synchronization services
         threadPool.submit(this::coordinationService);
-        threadPool.submit(this::eventualConsistencyService);
+        if (consistencyMode != ConsistencyMode.SEQUENTIAL) {
+            threadPool.submit(this::eventualConsistencyService);
+        }
+        threadPool.submit(this::replicationLagMonitor);
         threadPool.submit(this::performanceMonitor);
-        
-        System.out.println("🚀 Distributed System Simulation Started!");
+        if (accountingIntervalMs > 0) {
+            threadPool.submit(this::resourceReporter);
+        }
     }
     
     private void coordinationService() {
         while (isRunning) {
             try {
                 // Sequential consistency - apply operations in order
+                // Eventual mode still drains the queue so it cannot grow without bound
+                // Anything sequenced before drainedAt is at or below sequence
+                long drainedAt = System.nanoTime();
+                int sequence = coordinator.getCurrentSequence();
                 java.util.List<Operation> pendingOps = coordinator.getPendingOperations();
-                for (Operation op : pendingOps) {
-                    for (ServiceNode node : nodes.values()) {
-                        node.applyOperation(op);
-                    }
+                if (!pendingOps.isEmpty() && consistencyMode != ConsistencyMode.EVENTUAL) {
+                    broadcast(pendingOps, sequence, drainedAt);
+                } else if (pendingOps.isEmpty()) {
+                    heartbeat(sequence, drainedAt);
                 }
                 Thread.sleep(200);
             } catch (InterruptedException e) {
@@ -103,22 +198,78 @@ public class DistributedSystemSimulator {
         }
     }
     
+    /**
+     * Ship a batch of operations to every node in parallel
+     * Each node receives the batch as one transfer and applies it in order,
+     * so per-link latency and bandwidth decide how far each replica falls behind
+     */
+    private void broadcast(java.util.List<Operation> batch, int sequence, long drainedAt) throws InterruptedException {
+        int batchBytes = 0;
+        for (Operation op : batch) {
+            batchBytes += op.getSizeBytes();
+        }
+        
+        java.util.List<Future<?>> deliveries = new ArrayList<>();
+        for (ServiceNode node : nodes.values()) {
+            final int bytes = batchBytes;
+            deliveries.add(threadPool.submit(() -> {
+                SimulatorEvents.SyncBatch event = new SimulatorEvents.SyncBatch();
+                event.begin();
+                boolean delivered = false;
+                long transferStart = System.nanoTime();
+                try {
+                    if (network.transmit(NetworkModel.COORDINATOR, node.getNodeId(), bytes)) {
+                        TraceCollector tracer = traceCollector;
+                        long transferEnd = System.nanoTime();
+                        for (Operation op : batch) {
+                            node.applyOperation(op, tracer == null ? null : tracer.transfer(
+                                op, TraceCollector.DELIVER, node.getNodeId(), transferStart, transferEnd));
+                        }
+                        node.markFresh(sequence, drainedAt);
+                        delivered = true;
+                        String address = nodeAddresses.get(node.getNodeId());
+                        if (address != null) {
+                            dnsService.reportLatency(address, transferEnd - transferStart);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    SimulatorEvents.commitSyncBatch(event, node.getNodeId(), "broadcast", batch, bytes, delivered);
+                }
+            }));
+        }
+        
+        for (Future<?> delivery : deliveries) {
+            try {
+                delivery.get();
+            } catch (ExecutionException e) {
+                SimLog.warn("Broadcast failed: {}", e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * Tell reachable nodes nothing new was sequenced, so replicas that are
+     * caught up stay within their staleness bound while the log is idle
+     */
+    private void heartbeat(int sequence, long asOfNanos) {
+        for (ServiceNode node : nodes.values()) {
+            if (network.isReachable(NetworkModel.COORDINATOR, node.getNodeId())) {
+                node.markFresh(sequence, asOfNanos);
+            }
+        }
+    }
+    
     private void eventualConsistencyService() {
         while (isRunning) {
             try {
                 // Randomly sync nodes for eventual consistency
                 java.util.List<ServiceNode> nodeList = new ArrayList<>(nodes.values());
                 if (nodeList.size() > 1) {
+                    // Nodes behind a partition simply fail to sync until it heals
                     ServiceNode node = nodeList.get(random.nextInt(nodeList.size()));
                     node.syncWithCoordinator();
-                    
-                    // Simulate network partition recovery
-                    if (random.nextDouble() < 0.1) { // 10% chance
-                        System.out.println("🌐 Network partition recovery - syncing all nodes");
-                        for (ServiceNode n : nodes.values()) {
-                            n.syncWithCoordinator();
-                        }
-                    }
                 }
                 Thread.sleep(1000);
             } catch (InterruptedException e) {
@@ -128,20 +279,53 @@ public class DistributedSystemSimulator {
         }
     }
     
+    private void replicationLagMonitor() {
+        while (isRunning) {
+            try {
+                boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.METRICS);
+                try {
+                    lagTracker.sample(nodes.values());
+                } finally {
+                    ResourceAccounting.exit(accounted);
+                }
+                Thread.sleep(LAG_SAMPLE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+    
     private void performanceMonitor() {
         while (isRunning) {
             try {
-                // Collect performance metrics
-                long timestamp = System.currentTimeMillis();
-                int totalOperations = coordinator.getTotalOperations();
-                double consistencyViolations = calculateConsistencyViolations();
-                double avgLatency = calculateAverageLatency();
-                
-                PerformanceMetric metric = new PerformanceMetric(
-                    timestamp, totalOperations, consistencyViolations, avgLatency);
-                metrics.add(metric);
+                boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.METRICS);
+                try {
+                    // Collect performance metrics
+                    long timestamp = System.currentTimeMillis();
+                    int totalOperations = coordinator.getTotalOperations();
+                    double consistencyViolations = lagTracker.getViolationRate();
+                    
+                    // Client operation latencies recorded since the previous sample
+                    LatencyHistogram.Snapshot current = latencyTracker.merged(LatencyTracker.OP_BY_TYPE);
+                    LatencyHistogram.Snapshot interval = current.minus(lastOperationSnapshot);
+                    lastOperationSnapshot = current;
+                    
+                    LatencyHistogram.Snapshot convergence = latencyTracker.merged(LatencyTracker.CONVERGENCE);
+                    double convergenceMs = convergence.minus(lastConvergenceSnapshot).getMeanMillis();
+                    lastConvergenceSnapshot = convergence;
+                    
+                    PerformanceMetric metric = new PerformanceMetric(
+                        timestamp, totalOperations, consistencyViolations, interval.getMeanMillis(),
+                        interval.quantileMillis(0.50), interval.quantileMillis(0.90),
+                        interval.quantileMillis(0.99), interval.quantileMillis(0.999),
+                        lagTracker.getMaxLagOps(), lagTracker.getMaxLagMillis(), convergenceMs);
+                    metrics.record(metric, current, convergence);
+                } finally {
+                    ResourceAccounting.exit(accounted);
+                }
                 
-                Thread.sleep(2000);
+                Thread.sleep(METRICS_INTERVAL_MS);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
@@ -149,27 +333,61 @@ public class DistributedSystemSimulator {
         }
     }
     
-    private double calculateConsistencyViolations() {
-        // Simplified consistency violation calculation
-        int violations = 0;
-        int totalChecks = 0;
-        
-        for (ServiceNode node1 : nodes.values()) {
-            for (ServiceNode node2 : nodes.values()) {
-                if (!node1.equals(node2)) {
-                    if (Math.abs(node1.getLastSequence() - node2.getLastSequence()) > 5) {
-                        violations++;
-                    }
-                    totalChecks++;
-                }
+    /**
+     * Attribute allocated bytes and CPU time to subsystems and log a usage
+     * report every interval while services run (0 disables the reports)
+     * Returns false if the JVM cannot measure per-thread allocation
+     */
+    public boolean enableResourceAccounting(long reportIntervalMs) {
+        if (!ResourceAccounting.setEnabled(true)) {
+            SimLog.warn("Resource accounting unavailable: JVM lacks per-thread allocation counters");
+            return false;
+        }
+        boolean startReporter = accountingIntervalMs <= 0 && reportIntervalMs > 0 && isRunning;
+        accountingIntervalMs = reportIntervalMs;
+        if (startReporter) {
+            threadPool.submit(this::resourceReporter);
+        }
+        return true;
+    }
+    
+    public void disableResourceAccounting() {
+        ResourceAccounting.setEnabled(false);
+        accountingIntervalMs = 0;
+    }
+    
+    private void resourceReporter() {
+        Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> previous = ResourceAccounting.snapshot();
+        long previousTime = System.currentTimeMillis();
+        while (isRunning && accountingIntervalMs > 0) {
+            try {
+                Thread.sleep(accountingIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
+            Map<ResourceAccounting.Subsystem, ResourceAccounting.Usage> current = ResourceAccounting.snapshot();
+            long now = System.currentTimeMillis();
+            SimLog.info(ResourceAccounting.formatReport(previous, current, now - previousTime).stripTrailing());
+            previous = current;
+            previousTime = now;
         }
-        
-        return totalChecks > 0 ? (double) violations / totalChecks : 0.0;
     }
     
-    private double calculateAverageLatency() {
-        return random.nextGaussian() * 50 + 150; // Simulated latency
+    /**
+     * Fraction of available nodes trailing the coordinator head by more than
+     * the staleness bound at the last lag sample
+     */
+    public double getConsistencyViolationRate() {
+        return lagTracker.getViolationRate();
+    }
+    
+    /**
+     * Operations a replica may trail the head before it counts as a consistency violation
+     * (default -Ddcs.staleness.bound.ops, 5)
+     */
+    public void setStalenessBound(int operations) {
+        lagTracker.setStalenessBoundOps(operations);
     }
     
     public void performOperation(String nodeId, String operation, String key, String value) {
@@ -183,7 +401,8 @@ public class DistributedSystemSimulator {
         ServiceNode node = nodes.get(nodeId);
         if (node != null) {
             node.simulateFailure();
-            System.out.println("💥 Node " + nodeId + " failed!");
+            healthChanged(nodeId);
+            SimLog.info("💥 Node {} failed!", nodeId);
         }
     }
     
@@ -191,16 +410,68 @@ public class DistributedSystemSimulator {
         ServiceNode node = nodes.get(nodeId);
         if (node != null) {
             node.recover();
-            System.out.println("🔄 Node " + nodeId + " recovered!");
+            healthChanged(nodeId);
+            SimLog.info("🔄 Node {} recovered!", nodeId);
         }
     }
     
+    /**
+     * DNS health check: an address is up unless it belongs to a node that is unavailable
+     */
+    private boolean isAddressUp(String address) {
+        ServiceNode node = nodesByAddress.get(address);
+        return node == null || node.isAvailable();
+    }
+    
+    private void healthChanged(String nodeId) {
+        String address = nodeAddresses.get(nodeId);
+        if (address != null) {
+            dnsService.healthChanged(address);
+        }
+    }
+    
+    /**
+     * Resolve many names with one naming service in a single batch
+     * Names that are not found are left out of the result
+     */
+    public java.util.Map<String, String> lookupResources(java.util.Collection<String> resourceNames,
+                                                         String namingType) {
+        long startTime = System.nanoTime();
+        String type = namingType.toLowerCase();
+        java.util.Map<String, String> result;
+        switch (type) {
+            case "flat":
+                result = flatNaming.lookupAll(resourceNames);
+                break;
+            case "structured":
+                result = structuredNaming.lookupAll(resourceNames);
+                break;
+            case "dns":
+                result = dnsService.lookupAll(resourceNames);
+                break;
+            case "dht":
+                result = new java.util.LinkedHashMap<>();
+                for (String name : resourceNames) {
+                    String location = dhtNaming.lookup(name).orElse(null);
+                    if (location != null) result.put(name, location);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid naming type: " + namingType);
+        }
+        latencyTracker.record(LatencyTracker.NAMING_BATCH, type, System.nanoTime() - startTime);
+        return result;
+    }
+    
     public String lookupResource(String resourceName, String namingType) {
-        long startTime = System.currentTimeMillis();
+        SimulatorEvents.NamingLookup event = new SimulatorEvents.NamingLookup();
+        event.begin();
+        long startTime = System.nanoTime();
+        String type = namingType.toLowerCase();
         String result = null;
         
         try {
-            switch (namingType.toLowerCase()) {
+            switch (type) {
                 case "flat":
                     result = flatNaming.lookup(resourceName).orElse("Not found");
                     break;
@@ -210,12 +481,23 @@ public class DistributedSystemSimulator {
                 case "dns":
                     result = dnsService.lookup(resourceName).orElse("Not found");
                     break;
+                case "dht":
+                    result = dhtNaming.lookup(resourceName).orElse("Not found");
+                    break;
                 default:
                     result = "Invalid naming type";
             }
         } finally {
-            long latency = System.currentTimeMillis() - startTime;
-            System.out.println("🔍 " + namingType + " lookup for '" + resourceName + "': " + result + " (" + latency + "ms)");
+            long latencyNanos = System.nanoTime() - startTime;
+            if (!"Invalid naming type".equals(result)) {
+                latencyTracker.record(LatencyTracker.NAMING_LOOKUP, type, latencyNanos);
+                SimulatorEvents.commitNamingLookup(event, "simulator", type, resourceName,
+                                                   result != null && !"Not found".equals(result), false);
+            }
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("🔍 {} lookup for '{}': {} ({}ms)", namingType, resourceName, result,
+                             String.format("%.3f", latencyNanos / 1_000_000.0));
+            }
         }
         
         return result;
@@ -232,10 +514,123 @@ public class DistributedSystemSimulator {
             threadPool.shutdownNow();
             Thread.currentThread().interrupt();
         }
-        System.out.println("🛑 Simulation stopped");
+        SimLog.info("🛑 Simulation stopped");
+        SimLog.flush();
+    }
+    
+    /**
+     * Start capturing every client operation to a binary trace file
+     */
+    public synchronized void startTraceRecording(String path) throws java.io.IOException {
+        stopTraceRecording();
+        traceWriter = new WorkloadTraceWriter(new java.io.File(path));
+        for (ServiceNode node : nodes.values()) {
+            node.setTraceWriter(traceWriter);
+        }
+        SimLog.info("📼 Recording workload trace to {}", path);
+    }
+    
+    /**
+     * Stop capturing and flush the trace file
+     */
+    public synchronized void stopTraceRecording() {
+        if (traceWriter == null) return;
+        
+        for (ServiceNode node : nodes.values()) {
+            node.setTraceWriter(null);
+        }
+        try {
+            traceWriter.close();
+            SimLog.info("📼 Trace recording stopped ({} operations)", traceWriter.getRecordCount());
+        } catch (java.io.IOException e) {
+            SimLog.warn("Failed to close trace file: {}", e.getMessage());
+        }
+        traceWriter = null;
+    }
+    
+    public synchronized boolean isTraceRecording() {
+        return traceWriter != null;
+    }
+    
+    /**
+     * Trace the given fraction of writes end to end (0 disables)
+     * Replaces any previous collector and its traces
+     */
+    public synchronized TraceCollector enableTracing(double sampleRate) {
+        TraceCollector collector = sampleRate > 0
+            ? new TraceCollector(Collections.unmodifiableSet(nodes.keySet()), sampleRate) : null;
+        traceCollector = collector;
+        coordinator.setTraceCollector(collector);
+        for (ServiceNode node : nodes.values()) {
+            node.setTraceCollector(collector);
+        }
+        return collector;
+    }
+    
+    public TraceCollector getTraceCollector() {
+        return traceCollector;
+    }
+    
+    /**
+     * Write retained traces to a Chrome trace-event JSON file
+     */
+    public void exportTraces(String path) throws java.io.IOException {
+        TraceCollector collector = traceCollector;
+        if (collector == null) {
+            throw new IllegalStateException("Tracing is not enabled");
+        }
+        collector.exportChromeTrace(new java.io.File(path));
+        SimLog.info("🧵 Exported {} traces to {}", collector.getFinishedTraces().size(), path);
+    }
+    
+    /**
+     * Start a Java Flight Recorder recording with the simulator events plus the JDK's
+     * "profile" settings (CPU samples, allocation, locks)
+     */
+    public synchronized void startFlightRecording(String path) throws java.io.IOException {
+        stopFlightRecording();
+        try {
+            flightRecording = new jdk.jfr.Recording(jdk.jfr.Configuration.getConfiguration("profile"));
+        } catch (java.text.ParseException e) {
+            throw new java.io.IOException("Cannot load JFR profile settings", e);
+        }
+        flightRecording.setName("simulator");
+        flightRecording.setDestination(java.nio.file.Paths.get(path));
+        flightRecording.start();
+        SimLog.info("🎥 Flight recording to {}", path);
+    }
+    
+    /**
+     * Stop the flight recording and write it to its destination file
+     */
+    public synchronized void stopFlightRecording() {
+        if (flightRecording == null) return;
+        flightRecording.stop(); // Writes the destination file
+        flightRecording.close();
+        SimLog.info("🎥 Flight recording stopped");
+        flightRecording = null;
+    }
+    
+    /**
+     * Serve Prometheus metrics on 127.0.0.1 at the given port (0 picks a free one)
+     * Returns the bound port
+     */
+    public synchronized int startMetricsEndpoint(int port) throws java.io.IOException {
+        if (metricsEndpoint == null) {
+            metricsEndpoint = new MetricsEndpoint(this);
+        }
+        metricsEndpoint.start(port);
+        return metricsEndpoint.getPort();
+    }
+    
+    public synchronized void stopMetricsEndpoint() {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
     }
     
     public void printSystemStatus() {
+        SimLog.flush(); // Keep queued log lines ahead of the status dump
         System.out.println("\n=== SYSTEM STATUS ===");
         coordinator.printLog();
         
@@ -248,10 +643,63 @@ public class DistributedSystemSimulator {
         System.out.println("Flat naming entries: " + flatNaming.size());
         System.out.println("Structured naming entries: " + structuredNaming.size());
         System.out.println("DNS entries: " + dnsService.size());
+        System.out.println("DHT entries: " + dhtNaming.size() + " " + dhtNaming.getLoadByNode()
+                           + String.format(", mean %.2f hops", dhtNaming.getMeanHops()));
     }
     
+    /**
+     * Retained per-second metrics, oldest first (bounded, see MetricsHistory)
+     */
     public java.util.List<PerformanceMetric> getMetrics() {
-        return new ArrayList<>(metrics);
+        return metrics.all(MetricsHistory.Resolution.SECOND);
+    }
+    
+    /**
+     * Most recent per-second metric, or null before the first sample
+     */
+    public PerformanceMetric getLatestMetric() {
+        return metrics.latest();
+    }
+    
+    /**
+     * Per-second metrics newer than the given timestamp, oldest first
+     */
+    public java.util.List<PerformanceMetric> metricsSince(long timestamp) {
+        return metrics.since(timestamp, MetricsHistory.Resolution.SECOND);
+    }
+    
+    /**
+     * Metrics newer than the given timestamp at a coarser rollup resolution
+     */
+    public java.util.List<PerformanceMetric> metricsSince(long timestamp, MetricsHistory.Resolution resolution) {
+        return metrics.since(timestamp, resolution);
+    }
+    
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+    
+    public ReplicationLagTracker getReplicationLagTracker() {
+        return lagTracker;
+    }
+    
+    public CentralCoordinator getCoordinator() {
+        return coordinator;
+    }
+    
+    public ServiceNode getNode(String nodeId) {
+        return nodes.get(nodeId);
+    }
+    
+    /**
+     * Choose which replication services run; takes effect on next start
+     */
+    public void setConsistencyMode(ConsistencyMode mode) {
+        this.consistencyMode = mode;
+    }
+    
+    public ConsistencyMode getConsistencyMode() {
+        return consistencyMode;
     }
     
     public Set<String> getNodeIds() {
@@ -262,17 +710,166 @@ public class DistributedSystemSimulator {
         return isRunning;
     }
     
+    // Network Methods
+    public SimulatedNetwork getNetwork() {
+        return network;
+    }
+    
+    public void partitionNodes(String name, Collection<String> groupA, Collection<String> groupB) {
+        network.partition(name, groupA, groupB);
+    }
+    
+    public void healPartition(String name) {
+        network.heal(name);
+    }
+    
+    /**
+     * Register a name in the flat, structured or DNS namespace through the
+     * coordinator's log: the shared service applies it now, node replicas as
+     * the operation reaches them
+     */
+    public void registerName(String namingType, String name, String location) {
+        if ("structured".equalsIgnoreCase(namingType) && !name.startsWith("/")) {
+            throw new IllegalArgumentException("Invalid path format: " + name + ". Must start with '/'");
+        }
+        submitNaming(NamingReplica.REGISTER, namingType, name, location);
+    }
+    
+    public void unregisterName(String namingType, String name) {
+        submitNaming(NamingReplica.REMOVE, namingType, name, null);
+    }
+    
+    private void submitNaming(String type, String namingType, String name, String location) {
+        String key = NamingReplica.key(namingType, name);
+        if (!key.startsWith("flat:") && !key.startsWith("structured:") && !key.startsWith("dns:")) {
+            throw new IllegalArgumentException("Invalid naming type: " + namingType);
+        }
+        // Sequenced and applied under one lock so the shared services follow log order
+        synchronized (namingRegistry) {
+            namingRegistry.apply(coordinator.submitOperation(type, key, location, "naming"));
+        }
+    }
+    
     // DNS Management Methods
     public void addDNSEntry(String domain, String ip) {
-        dnsService.register(domain, ip);
+        registerName("dns", domain, ip);
+        DNSHierarchy hierarchy = dnsHierarchy;
+        if (hierarchy != null) {
+            hierarchy.register(domain, ip, DNSSimulator.DEFAULT_TTL_MS);
+        }
     }
     
     public void removeDNSEntry(String domain) {
-        dnsService.remove(domain);
+        unregisterName("dns", domain);
+        DNSHierarchy hierarchy = dnsHierarchy;
+        if (hierarchy != null) {
+            hierarchy.remove(domain);
+        }
+    }
+    
+    /**
+     * Add an address to a DNS record set (a name served by several addresses)
+     */
+    public void addServiceAddress(String domain, String ip, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        submitNaming(NamingReplica.ADD_ADDRESS, "dns", domain, ip + " " + weight);
+        syncHierarchy(domain);
+    }
+    
+    public void removeServiceAddress(String domain, String ip) {
+        submitNaming(NamingReplica.REMOVE_ADDRESS, "dns", domain, ip);
+        syncHierarchy(domain);
+    }
+    
+    /**
+     * How a DNS record set picks an address for each lookup
+     */
+    public void setServiceSelectionStrategy(String domain, DNSRecordSet.Strategy strategy) {
+        submitNaming(NamingReplica.SET_STRATEGY, "dns", domain, strategy.name());
+        syncHierarchy(domain);
     }
     
+    /**
+     * Node whose address a DNS answer is, or null
+     */
+    public String getNodeForAddress(String address) {
+        ServiceNode node = nodesByAddress.get(address);
+        return node == null ? null : node.getNodeId();
+    }
+    
+    private void syncHierarchy(String domain) {
+        DNSHierarchy hierarchy = dnsHierarchy;
+        if (hierarchy == null) return;
+        Optional<DNSRecord> record = dnsService.getRecord(domain);
+        if (record.isPresent()) {
+            hierarchy.register(record.get());
+        } else {
+            hierarchy.remove(domain);
+        }
+    }
+    
+    /**
+     * Remove every DNS entry but the defaults, through the log like any other
+     * change: one NAME_REMOVE per name, and a NAME_REGISTER for a default that
+     * was removed or changed, all sequenced under the lock submitNaming uses so
+     * no registration interleaves with the clear
+     */
     public void clearDNSEntries() {
-        dnsService.clear();
+        synchronized (namingRegistry) {
+            for (String domain : dnsService.getAllDomains()) {
+                String defaultAddress = DNSSimulator.DEFAULT_ENTRIES.get(domain);
+                DNSRecord record = dnsService.getRecord(domain).orElse(null);
+                boolean isDefault = defaultAddress != null && record != null && record.getRecordSet() == null
+                                    && defaultAddress.equals(record.getAddress());
+                if (!isDefault) {
+                    submitNaming(NamingReplica.REMOVE, "dns", domain, null);
+                }
+            }
+            for (Map.Entry<String, String> entry : DNSSimulator.DEFAULT_ENTRIES.entrySet()) {
+                if (!dnsService.contains(entry.getKey())) {
+                    submitNaming(NamingReplica.REGISTER, "dns", entry.getKey(), entry.getValue());
+                }
+            }
+            DNSHierarchy hierarchy = dnsHierarchy;
+            if (hierarchy != null) {
+                hierarchy.clear();
+                hierarchy.load(dnsService);
+            }
+        }
+    }
+    
+    /**
+     * Root, TLD and zone servers serving the simulator's DNS records,
+     * built on first use and kept in step with the DNS management methods
+     */
+    public synchronized DNSHierarchy getDnsHierarchy() {
+        if (dnsHierarchy == null) {
+            dnsHierarchy = DNSHierarchy.from(dnsService);
+        }
+        return dnsHierarchy;
+    }
+    
+    /**
+     * The shared DNS records every node's replica follows
+     */
+    public DNSSimulator getDnsService() {
+        return dnsService;
+    }
+    
+    /**
+     * Flat naming partitioned over the nodes on a consistent-hash ring
+     */
+    public ChordNamingService getDhtNaming() {
+        return dhtNaming;
+    }
+    
+    /**
+     * A recursive resolver with its own caches over the DNS hierarchy
+     */
+    public RecursiveResolver createRecursiveResolver(String id) {
+        return new RecursiveResolver(id, getDnsHierarchy());
     }
     
     public java.util.Set<String> getAllDNSDomains() {
@@ -290,10 +887,18 @@ public class DistributedSystemSimulator {
     public void configureThreads(int poolSize, int interval) {
         this.threadPoolSize = poolSize;
         this.simulationInterval = interval;
-        System.out.println("Thread configuration updated: Pool size=" + poolSize + ", Interval=" + interval + "ms");
+        SimLog.info("Thread configuration updated: Pool size={}, Interval={}ms", poolSize, interval);
         // Note: Changes take effect on next simulation start
     }
     
+    /**
+     * The worker pool, when it exposes queue and activity counts
+     */
+    public ThreadPoolExecutor getThreadPoolExecutor() {
+        ExecutorService pool = threadPool;
+        return pool instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) pool : null;
+    }
+    
     public int getThreadPoolSize() {
         return threadPoolSize;
     }
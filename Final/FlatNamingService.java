@@ -1,38 +1,93 @@
 package Final;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Flat naming service using hash table (dictionary) approach
  * Provides simple key-value mapping for resource names
+ *
+ * Names live in a CaseInsensitiveIndex, so a lookup never lowercases or
+ * copies the name it is given; lookupOrNull is the allocation-free hot path.
+ * Registrations and removals are published to watchers (see watch()).
  */
 public class FlatNamingService {
-    private final Map<String, Resource> nameToResource;
+    private final CaseInsensitiveIndex<Resource> nameToResource;
+    private final NamingWatchHub watchers;
 
     public FlatNamingService() {
-        this.nameToResource = new ConcurrentHashMap<>();
+        this.nameToResource = new CaseInsensitiveIndex<>();
+        this.watchers = new NamingWatchHub("flat");
     }
 
     /**
      * Register a resource with a flat name
      */
     public void register(String name, Resource resource) {
-        nameToResource.put(name.toLowerCase(), resource);
-        System.out.println("Flat naming: Registered '" + name + "' -> " + resource.getLocation());
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            nameToResource.put(name, resource);
+            if (watchers.hasSubscribers()) {
+                watchers.publish(NamingWatchHub.Event.Type.REGISTERED, name.toLowerCase(), resource.getLocation());
+            }
+            SimLog.debug("Flat naming: Registered '{}' -> {}", name, resource.getLocation());
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
     }
 
     /**
      * Lookup a resource by flat name
      */
     public Optional<String> lookup(String name) {
-        Resource resource = nameToResource.get(name.toLowerCase());
-        if (resource != null) {
-            System.out.println("Flat naming: Found '" + name + "' -> " + resource.getLocation());
-            return Optional.of(resource.getLocation());
-        } else {
-            System.out.println("Flat naming: Not found '" + name + "'");
-            return Optional.empty();
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Resource resource = nameToResource.get(name);
+            if (resource != null) {
+                SimLog.debug("Flat naming: Found '{}' -> {}", name, resource.getLocation());
+                return Optional.of(resource.getLocation());
+            } else {
+                SimLog.debug("Flat naming: Not found '{}'", name);
+                return Optional.empty();
+            }
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Hot-path lookup: the resource's location, or null, without allocating or logging
+     */
+    public String lookupOrNull(CharSequence name) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Resource resource = nameToResource.get(name);
+            return resource == null ? null : resource.getLocation();
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Lookup many names at once; names that are not registered are left out
+     * The result keeps the order and spelling of the names given
+     */
+    public Map<String, String> lookupAll(Collection<String> names) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Map<String, String> found = new LinkedHashMap<>(names.size() * 2);
+            for (String name : names) {
+                Resource resource = nameToResource.get(name);
+                if (resource != null) {
+                    found.put(name, resource.getLocation());
+                }
+            }
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("Flat naming: Batch found {} of {}", found.size(), names.size());
+            }
+            return found;
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
     }
 
@@ -40,19 +95,40 @@ public class FlatNamingService {
      * Remove a resource from the naming service
      */
     public boolean remove(String name) {
-        Resource removed = nameToResource.remove(name.toLowerCase());
+        Resource removed = nameToResource.remove(name);
         if (removed != null) {
-            System.out.println("Flat naming: Removed '" + name + "'");
+            if (watchers.hasSubscribers()) {
+                watchers.publish(NamingWatchHub.Event.Type.REMOVED, name.toLowerCase(), null);
+            }
+            SimLog.debug("Flat naming: Removed '{}'", name);
             return true;
         }
         return false;
     }
 
+    /**
+     * Watch one name; the listener receives batches of its registrations and removals
+     */
+    public NamingWatchHub.Subscription watch(String name, Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.EXACT, name, listener);
+    }
+
+    /**
+     * Watch every name in the service
+     */
+    public NamingWatchHub.Subscription watchAll(Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.PREFIX, "", listener);
+    }
+
+    public NamingWatchHub getWatchHub() {
+        return watchers;
+    }
+
     /**
      * Get all registered names
      */
     public Set<String> getAllNames() {
-        return new HashSet<>(nameToResource.keySet());
+        return nameToResource.keySet();
     }
 
     /**
@@ -66,13 +142,18 @@ public class FlatNamingService {
      * Check if a name exists
      */
     public boolean contains(String name) {
-        return nameToResource.containsKey(name.toLowerCase());
+        return nameToResource.containsKey(name);
     }
 
     /**
      * Clear all entries
      */
     public void clear() {
+        if (watchers.hasSubscribers()) {
+            for (String name : nameToResource.keySet()) {
+                remove(name);
+            }
+        }
         nameToResource.clear();
     }
 
@@ -81,8 +162,6 @@ public class FlatNamingService {
      */
     public void printAll() {
         System.out.println("Flat Naming Service entries:");
-        for (Map.Entry<String, Resource> entry : nameToResource.entrySet()) {
-            System.out.println("  " + entry.getKey() + " -> " + entry.getValue().getLocation());
-        }
+        nameToResource.forEach((name, resource) -> System.out.println("  " + name + " -> " + resource.getLocation()));
     }
 } 
\ No newline at end of file
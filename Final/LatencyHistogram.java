@@ -0,0 +1,207 @@
+package Final;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram
+ *
+ * Values below 128ns get exact buckets; above that every power of two is
+ * split into 64 linear sub-buckets, so recorded values keep about two
+ * significant digits (under 1.6% error). Values are clamped at 2^40ns
+ * (about 18 minutes). Recording is a single atomic increment.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;          // 64
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF << 1;         // 128
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKETS = indexFor(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalCount = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Record one latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(indexFor(value));
+        totalCount.increment();
+        totalNanos.add(value);
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Record the time elapsed since a System.nanoTime() start mark
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Take a point-in-time copy that can be queried and diffed
+     * Concurrent recordings may land on either side of the copy
+     */
+    public Snapshot snapshot() {
+        // The count comes from the copied buckets so quantile ranks always line up with them
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Cumulative counts at or below each (ascending) bound, read straight from
+     * the live buckets without allocating; used for cheap exposition
+     */
+    public void cumulativeCounts(long[] boundsNanos, long[] out) {
+        long seen = 0;
+        int bucket = 0;
+        for (int b = 0; b < boundsNanos.length; b++) {
+            int limit = indexFor(Math.max(0, Math.min(boundsNanos[b], MAX_VALUE)));
+            for (; bucket <= limit; bucket++) {
+                seen += counts.get(bucket);
+            }
+            out[b] = seen;
+        }
+    }
+
+    public long getSumNanos() {
+        return totalNanos.sum();
+    }
+
+    static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Representative value (bucket midpoint) for a bucket index
+     */
+    static long valueFor(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long sub = index - ((long) shift << SUB_BUCKET_BITS);
+        long lower = sub << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * Immutable histogram contents
+     */
+    public static class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0, 0);
+
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Recordings made between an earlier snapshot and this one
+         * The maximum is taken from the highest non-empty bucket
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[BUCKETS];
+            long diffCount = 0;
+            int highest = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                diff[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                diffCount += diff[i];
+                if (diff[i] > 0) highest = i;
+            }
+            return new Snapshot(diff, diffCount,
+                                Math.max(0, sumNanos - earlier.sumNanos),
+                                highest < 0 ? 0 : Math.min(maxNanos, valueFor(highest)));
+        }
+
+        /**
+         * Combine with another snapshot, e.g. to aggregate across nodes
+         */
+        public Snapshot plus(Snapshot other) {
+            long[] sum = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                sum[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(sum, count + other.count, sumNanos + other.sumNanos,
+                                Math.max(maxNanos, other.maxNanos));
+        }
+
+        /**
+         * Value at the given quantile (0..1) in nanoseconds
+         */
+        public long valueAtQuantile(double quantile) {
+            if (count == 0) return 0;
+            if (quantile >= 1.0) return maxNanos;
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueFor(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        public double quantileMillis(double quantile) {
+            return valueAtQuantile(quantile) / 1_000_000.0;
+        }
+
+        /**
+         * Number of recordings at or below the given value
+         */
+        public long countAtOrBelow(long nanos) {
+            int limit = indexFor(Math.max(0, Math.min(nanos, MAX_VALUE)));
+            long seen = 0;
+            for (int i = 0; i <= limit; i++) {
+                seen += counts[i];
+            }
+            return seen;
+        }
+
+        public long getCount() { return count; }
+        public long getSumNanos() { return sumNanos; }
+        public long getMaxNanos() { return maxNanos; }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : sumNanos / (double) count / 1_000_000.0;
+        }
+    }
+}
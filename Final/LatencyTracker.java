@@ -0,0 +1,93 @@
+package Final;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of latency histograms keyed by metric and label
+ * e.g. metric "op.type" with label "PUT", or "node.apply" with label "NodeA"
+ *
+ * Lookups on the recording path hit two ConcurrentHashMaps with the
+ * caller's existing strings, so recording allocates nothing once a
+ * histogram exists.
+ */
+public class LatencyTracker {
+    // Metric names used across the simulator
+    public static final String OP_BY_TYPE = "op.type";
+    public static final String OP_BY_NODE = "op.node";
+    public static final String COORDINATOR_SUBMIT = "coordinator.submit";
+    public static final String NODE_APPLY = "node.apply";
+    public static final String NAMING_LOOKUP = "naming.lookup";
+    public static final String NAMING_BATCH = "naming.batch";
+    public static final String REPLICA_STALENESS = "replica.staleness";
+    public static final String CONVERGENCE = "replication.convergence";
+
+    private final Map<String, Map<String, LatencyHistogram>> metrics;
+
+    public LatencyTracker() {
+        this.metrics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Record a latency in nanoseconds
+     */
+    public void record(String metric, String label, long nanos) {
+        histogram(metric, label).record(nanos);
+    }
+
+    /**
+     * Get (or create) the histogram for a metric and label
+     */
+    public LatencyHistogram histogram(String metric, String label) {
+        Map<String, LatencyHistogram> byLabel = metrics.get(metric);
+        if (byLabel == null) {
+            byLabel = metrics.computeIfAbsent(metric, m -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = byLabel.get(label);
+        if (histogram == null) {
+            histogram = byLabel.computeIfAbsent(label, l -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * Snapshot every label of a metric, sorted by label
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshots(String metric) {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        Map<String, LatencyHistogram> byLabel = metrics.get(metric);
+        if (byLabel != null) {
+            for (Map.Entry<String, LatencyHistogram> entry : byLabel.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().snapshot());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Snapshot of a metric merged across all labels
+     */
+    public LatencyHistogram.Snapshot merged(String metric) {
+        LatencyHistogram.Snapshot total = LatencyHistogram.Snapshot.EMPTY;
+        for (LatencyHistogram.Snapshot snapshot : snapshots(metric).values()) {
+            total = total.plus(snapshot);
+        }
+        return total;
+    }
+
+    /**
+     * Live histograms of one metric, for readers that must not copy them
+     */
+    public Map<String, LatencyHistogram> histograms(String metric) {
+        Map<String, LatencyHistogram> byLabel = metrics.get(metric);
+        return byLabel == null ? Map.of() : new TreeMap<>(byLabel);
+    }
+
+    /**
+     * Forget all recorded latencies
+     */
+    public void clear() {
+        metrics.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package Final;
+
+import java.util.Random;
+
+/**
+ * Characteristics of a single network link
+ * Latency is drawn from a distribution, payloads pay a serialization cost
+ * based on bandwidth, and each attempt can be lost and retried
+ */
+public class LinkProfile {
+    public enum Distribution { CONSTANT, UNIFORM, NORMAL, EXPONENTIAL }
+
+    private final Distribution distribution;
+    private final double meanLatencyMs;
+    private final double jitterMs;
+    private final long bandwidthBytesPerSec; // 0 means unlimited
+    private final double lossRate;
+    private final int maxRetries;
+    private final long retryTimeoutMs;
+
+    public LinkProfile(Distribution distribution, double meanLatencyMs, double jitterMs,
+                       long bandwidthBytesPerSec, double lossRate, int maxRetries, long retryTimeoutMs) {
+        if (meanLatencyMs < 0 || jitterMs < 0 || bandwidthBytesPerSec < 0 || maxRetries < 0 || retryTimeoutMs < 0) {
+            throw new IllegalArgumentException("Link parameters must not be negative");
+        }
+        if (lossRate < 0 || lossRate > 1) {
+            throw new IllegalArgumentException("Loss rate must be between 0 and 1: " + lossRate);
+        }
+        this.distribution = distribution;
+        this.meanLatencyMs = meanLatencyMs;
+        this.jitterMs = jitterMs;
+        this.bandwidthBytesPerSec = bandwidthBytesPerSec;
+        this.lossRate = lossRate;
+        this.maxRetries = maxRetries;
+        this.retryTimeoutMs = retryTimeoutMs;
+    }
+
+    /**
+     * Link with uniformly distributed latency and no bandwidth limit or loss
+     */
+    public static LinkProfile uniform(double minLatencyMs, double maxLatencyMs) {
+        return new LinkProfile(Distribution.UNIFORM, (minLatencyMs + maxLatencyMs) / 2,
+                               (maxLatencyMs - minLatencyMs) / 2, 0, 0, 0, 0);
+    }
+
+    public LinkProfile withBandwidth(long bytesPerSec) {
+        return new LinkProfile(distribution, meanLatencyMs, jitterMs, bytesPerSec, lossRate, maxRetries, retryTimeoutMs);
+    }
+
+    public LinkProfile withLoss(double rate, int retries, long timeoutMs) {
+        return new LinkProfile(distribution, meanLatencyMs, jitterMs, bandwidthBytesPerSec, rate, retries, timeoutMs);
+    }
+
+    /**
+     * Draw a one-way propagation delay in nanoseconds
+     */
+    public long sampleLatencyNanos(Random random) {
+        double ms;
+        switch (distribution) {
+            case UNIFORM:
+                ms = meanLatencyMs - jitterMs + random.nextDouble() * 2 * jitterMs;
+                break;
+            case NORMAL:
+                ms = meanLatencyMs + random.nextGaussian() * jitterMs;
+                break;
+            case EXPONENTIAL:
+                // Fixed floor plus a long tail whose mean is the jitter
+                ms = meanLatencyMs - Math.log(1 - random.nextDouble()) * jitterMs;
+                break;
+            default:
+                ms = meanLatencyMs;
+        }
+        return (long) (Math.max(0, ms) * 1_000_000);
+    }
+
+    /**
+     * Time needed to push a payload onto the link
+     */
+    public long transferNanos(int payloadBytes) {
+        if (bandwidthBytesPerSec == 0) return 0;
+        return payloadBytes * 1_000_000_000L / bandwidthBytesPerSec;
+    }
+
+    // Getters
+    public Distribution getDistribution() { return distribution; }
+    public double getMeanLatencyMs() { return meanLatencyMs; }
+    public double getJitterMs() { return jitterMs; }
+    public long getBandwidthBytesPerSec() { return bandwidthBytesPerSec; }
+    public double getLossRate() { return lossRate; }
+    public int getMaxRetries() { return maxRetries; }
+    public long getRetryTimeoutMs() { return retryTimeoutMs; }
+
+    @Override
+    public String toString() {
+        return String.format("Link[%s %.1f±%.1fms, bw=%s, loss=%.1f%%, retries=%d]",
+                           distribution, meanLatencyMs, jitterMs,
+                           bandwidthBytesPerSec == 0 ? "unlimited" : bandwidthBytesPerSec + "B/s",
+                           lossRate * 100, maxRetries);
+    }
+}
@@ -0,0 +1,288 @@
+package Final;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Serves simulator metrics in the Prometheus text exposition format
+ * GET http://127.0.0.1:<port>/metrics
+ *
+ * Binds to loopback only. A scrape reads counters and histogram buckets
+ * straight from the live structures (no snapshot copies) into one reused
+ * buffer, so scraping every second under full load stays cheap.
+ */
+public class MetricsEndpoint {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Histogram bucket upper bounds, shared by every exported histogram
+    private static final long[] BOUNDS_NANOS = {
+        10_000L, 50_000L, 100_000L, 500_000L, 1_000_000L, 5_000_000L, 10_000_000L,
+        25_000_000L, 50_000_000L, 100_000_000L, 250_000_000L, 500_000_000L,
+        1_000_000_000L, 2_500_000_000L, Long.MAX_VALUE
+    };
+    private static final String[] BOUND_LABELS = {
+        "1e-05", "5e-05", "0.0001", "0.0005", "0.001", "0.005", "0.01",
+        "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "+Inf"
+    };
+
+    private final DistributedSystemSimulator simulator;
+    private final StringBuilder buffer;
+    private final long[] cumulative;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsEndpoint(DistributedSystemSimulator simulator) {
+        this.simulator = simulator;
+        this.buffer = new StringBuilder(16 * 1024);
+        this.cumulative = new long[BOUNDS_NANOS.length];
+    }
+
+    /**
+     * Start listening on the loopback interface; port 0 picks a free port
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) return;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        SimLog.info("📈 Metrics endpoint at http://127.0.0.1:{}/metrics", getPort());
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Render the current metrics as exposition text
+     */
+    public synchronized String render() {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.METRICS);
+        try {
+            StringBuilder sb = buffer;
+            sb.setLength(0);
+            LatencyTracker tracker = simulator.getLatencyTracker();
+
+            // Operations
+            Map<String, LatencyHistogram> byType = tracker.histograms(LatencyTracker.OP_BY_TYPE);
+            header(sb, "dcs_operations_by_type_total", "counter", "Client operations completed, by operation type");
+            for (Map.Entry<String, LatencyHistogram> entry : byType.entrySet()) {
+                sample(sb, "dcs_operations_by_type_total", "type", entry.getKey(), entry.getValue().getCount());
+            }
+            Map<String, LatencyHistogram> byNode = tracker.histograms(LatencyTracker.OP_BY_NODE);
+            header(sb, "dcs_operations_by_node_total", "counter", "Client operations completed, by serving node");
+            for (Map.Entry<String, LatencyHistogram> entry : byNode.entrySet()) {
+                sample(sb, "dcs_operations_by_node_total", "node", entry.getKey(), entry.getValue().getCount());
+            }
+            histogram(sb, "dcs_operation_duration_seconds", "Client operation latency", "type", byType);
+
+            // Coordinator
+            CentralCoordinator coordinator = simulator.getCoordinator();
+            header(sb, "dcs_coordinator_log_size", "gauge", "Operations in the coordinator log");
+            sample(sb, "dcs_coordinator_log_size", null, null, coordinator.getTotalOperations());
+            header(sb, "dcs_coordinator_sequence", "gauge", "Highest sequence number assigned");
+            sample(sb, "dcs_coordinator_sequence", null, null, coordinator.getCurrentSequence());
+            header(sb, "dcs_coordinator_pending", "gauge", "Operations waiting to be broadcast");
+            sample(sb, "dcs_coordinator_pending", null, null, coordinator.getPendingCount());
+            histogram(sb, "dcs_coordinator_submit_seconds", "Time to sequence an operation", "role",
+                      tracker.histograms(LatencyTracker.COORDINATOR_SUBMIT));
+
+            // Replication
+            ReplicationLagTracker lagTracker = simulator.getReplicationLagTracker();
+            Map<String, ReplicationLagTracker.NodeLag> lags = lagTracker.getLagByNode();
+            header(sb, "dcs_replication_lag_operations", "gauge", "Operations a node trails the coordinator head by");
+            for (Map.Entry<String, ReplicationLagTracker.NodeLag> entry : lags.entrySet()) {
+                sample(sb, "dcs_replication_lag_operations", "node", entry.getKey(), entry.getValue().getLagOps());
+            }
+            header(sb, "dcs_replication_lag_seconds", "gauge", "Age of the oldest operation a node has not applied");
+            for (Map.Entry<String, ReplicationLagTracker.NodeLag> entry : lags.entrySet()) {
+                sample(sb, "dcs_replication_lag_seconds", "node", entry.getKey(), entry.getValue().getLagMillis() / 1000.0);
+            }
+            header(sb, "dcs_node_available", "gauge", "Whether a node is up (1) or failed (0)");
+            for (Map.Entry<String, ReplicationLagTracker.NodeLag> entry : lags.entrySet()) {
+                sample(sb, "dcs_node_available", "node", entry.getKey(), entry.getValue().isAvailable() ? 1 : 0);
+            }
+            header(sb, "dcs_consistency_violation_ratio", "gauge", "Fraction of available nodes beyond the staleness bound");
+            sample(sb, "dcs_consistency_violation_ratio", null, null, lagTracker.getViolationRate());
+            histogram(sb, "dcs_node_apply_seconds", "Time to apply one operation on a node", "node",
+                      tracker.histograms(LatencyTracker.NODE_APPLY));
+            histogram(sb, "dcs_replication_convergence_seconds", "Time until an operation is visible on every node",
+                      "scope", tracker.histograms(LatencyTracker.CONVERGENCE));
+
+            // Naming
+            histogram(sb, "dcs_naming_lookup_seconds", "Naming service lookup latency", "service",
+                      tracker.histograms(LatencyTracker.NAMING_LOOKUP));
+            Map<String, CachingResolver.Stats> resolvers = new java.util.TreeMap<>();
+            for (String nodeId : simulator.getNodeIds()) {
+                ServiceNode node = simulator.getNode(nodeId);
+                if (node != null) resolvers.put(nodeId, node.getResolver().getStats());
+            }
+            header(sb, "dcs_dns_cache_hits_total", "counter", "DNS lookups answered from a node's resolver cache");
+            for (Map.Entry<String, CachingResolver.Stats> entry : resolvers.entrySet()) {
+                sample(sb, "dcs_dns_cache_hits_total", "node", entry.getKey(), entry.getValue().getHits());
+            }
+            header(sb, "dcs_dns_cache_negative_hits_total", "counter", "Cache hits on a remembered NXDOMAIN");
+            for (Map.Entry<String, CachingResolver.Stats> entry : resolvers.entrySet()) {
+                sample(sb, "dcs_dns_cache_negative_hits_total", "node", entry.getKey(), entry.getValue().getNegativeHits());
+            }
+            header(sb, "dcs_dns_cache_misses_total", "counter", "DNS lookups that queried the server");
+            for (Map.Entry<String, CachingResolver.Stats> entry : resolvers.entrySet()) {
+                sample(sb, "dcs_dns_cache_misses_total", "node", entry.getKey(), entry.getValue().getMisses());
+            }
+            header(sb, "dcs_dns_cache_invalidations_total", "counter", "Cached answers dropped because the record changed");
+            for (Map.Entry<String, CachingResolver.Stats> entry : resolvers.entrySet()) {
+                sample(sb, "dcs_dns_cache_invalidations_total", "node", entry.getKey(), entry.getValue().getInvalidations());
+            }
+            header(sb, "dcs_dns_cache_saved_seconds_total", "counter", "Query round trips avoided by cache hits");
+            for (Map.Entry<String, CachingResolver.Stats> entry : resolvers.entrySet()) {
+                sample(sb, "dcs_dns_cache_saved_seconds_total", "node", entry.getKey(), entry.getValue().getSavedNanos() / 1e9);
+            }
+
+            // Local naming replicas
+            Map<String, ServiceNode> replicaNodes = new java.util.TreeMap<>();
+            for (String nodeId : simulator.getNodeIds()) {
+                ServiceNode node = simulator.getNode(nodeId);
+                if (node != null) replicaNodes.put(nodeId, node);
+            }
+            header(sb, "dcs_naming_replica_staleness_seconds", "gauge", "How far a node's naming replica may be behind the log");
+            for (Map.Entry<String, ServiceNode> entry : replicaNodes.entrySet()) {
+                long staleness = entry.getValue().getNamingStalenessNanos();
+                if (staleness != Long.MAX_VALUE) {
+                    sample(sb, "dcs_naming_replica_staleness_seconds", "node", entry.getKey(), staleness / 1e9);
+                }
+            }
+            header(sb, "dcs_naming_local_reads_total", "counter", "Lookups served by the node's own naming replica");
+            for (Map.Entry<String, ServiceNode> entry : replicaNodes.entrySet()) {
+                sample(sb, "dcs_naming_local_reads_total", "node", entry.getKey(), entry.getValue().getLocalNameReads());
+            }
+            header(sb, "dcs_naming_remote_reads_total", "counter", "Lookups sent to the shared registry because the replica was too stale");
+            for (Map.Entry<String, ServiceNode> entry : replicaNodes.entrySet()) {
+                sample(sb, "dcs_naming_remote_reads_total", "node", entry.getKey(), entry.getValue().getRemoteNameReads());
+            }
+
+            // Worker pool
+            ThreadPoolExecutor pool = simulator.getThreadPoolExecutor();
+            if (pool != null) {
+                header(sb, "dcs_threadpool_queue_depth", "gauge", "Tasks queued in the simulator worker pool");
+                sample(sb, "dcs_threadpool_queue_depth", null, null, pool.getQueue().size());
+                header(sb, "dcs_threadpool_active_threads", "gauge", "Worker threads currently running a task");
+                sample(sb, "dcs_threadpool_active_threads", null, null, pool.getActiveCount());
+                header(sb, "dcs_threadpool_size", "gauge", "Worker threads in the pool");
+                sample(sb, "dcs_threadpool_size", null, null, pool.getPoolSize());
+            }
+
+            // Network
+            SimulatedNetwork network = simulator.getNetwork();
+            header(sb, "dcs_network_messages_total", "counter", "Messages sent over the simulated network");
+            sample(sb, "dcs_network_messages_total", null, null, network.getMessagesSent());
+            header(sb, "dcs_network_bytes_total", "counter", "Payload bytes sent over the simulated network");
+            sample(sb, "dcs_network_bytes_total", null, null, network.getBytesSent());
+            header(sb, "dcs_network_packets_lost_total", "counter", "Transmission attempts lost and retried");
+            sample(sb, "dcs_network_packets_lost_total", null, null, network.getPacketsLost());
+            header(sb, "dcs_network_deliveries_failed_total", "counter", "Messages that were never delivered");
+            sample(sb, "dcs_network_deliveries_failed_total", null, null, network.getDeliveriesFailed());
+            header(sb, "dcs_network_partition_drops_total", "counter", "Messages dropped by a partition");
+            sample(sb, "dcs_network_partition_drops_total", null, null, network.getPartitionDrops());
+
+            return sb.toString();
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    private void histogram(StringBuilder sb, String name, String help, String labelName,
+                           Map<String, LatencyHistogram> histograms) {
+        header(sb, name, "histogram", help);
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            histogram.cumulativeCounts(BOUNDS_NANOS, cumulative);
+            for (int b = 0; b < BOUNDS_NANOS.length; b++) {
+                sb.append(name).append("_bucket{").append(labelName).append("=\"");
+                escape(sb, entry.getKey());
+                sb.append("\",le=\"").append(BOUND_LABELS[b]).append("\"} ").append(cumulative[b]).append('\n');
+            }
+            // Count matches the +Inf bucket so the series stay consistent within a scrape
+            sample(sb, name + "_sum", labelName, entry.getKey(), histogram.getSumNanos() / 1e9);
+            sample(sb, name + "_count", labelName, entry.getKey(), cumulative[BOUNDS_NANOS.length - 1]);
+        }
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labelName, String labelValue, long value) {
+        labels(sb, name, labelName, labelValue);
+        sb.append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labelName, String labelValue, double value) {
+        labels(sb, name, labelName, labelValue);
+        sb.append(value).append('\n');
+    }
+
+    private static void labels(StringBuilder sb, String name, String labelName, String labelValue) {
+        sb.append(name);
+        if (labelName != null) {
+            sb.append('{').append(labelName).append("=\"");
+            escape(sb, labelValue);
+            sb.append("\"}");
+        }
+        sb.append(' ');
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package Final;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance metrics kept at several resolutions
+ *
+ * Every monitor tick goes into the 1 second ring; 10 second and 1 minute
+ * rollups are emitted when a tick crosses their window boundary. Rollup
+ * latency percentiles are computed from the cumulative histograms over the
+ * whole window rather than by averaging per-second percentiles. Memory is
+ * bounded by the ring capacities.
+ */
+public class MetricsHistory {
+    public enum Resolution {
+        SECOND(1_000, 3_600),       // 1 hour
+        TEN_SECONDS(10_000, 2_160), // 6 hours
+        MINUTE(60_000, 1_440);      // 24 hours
+
+        private final long windowMillis;
+        private final int capacity;
+
+        Resolution(long windowMillis, int capacity) {
+            this.windowMillis = windowMillis;
+            this.capacity = capacity;
+        }
+
+        public long getWindowMillis() { return windowMillis; }
+        public int getCapacity() { return capacity; }
+    }
+
+    private final Map<Resolution, MetricsRingBuffer> rings;
+    private final Rollup tenSeconds;
+    private final Rollup minute;
+
+    public MetricsHistory() {
+        this.rings = new EnumMap<>(Resolution.class);
+        for (Resolution resolution : Resolution.values()) {
+            rings.put(resolution, new MetricsRingBuffer(resolution.getCapacity()));
+        }
+        this.tenSeconds = new Rollup(Resolution.TEN_SECONDS);
+        this.minute = new Rollup(Resolution.MINUTE);
+    }
+
+    /**
+     * Record one monitor tick along with the cumulative histograms it was derived from
+     */
+    public synchronized void record(PerformanceMetric metric, LatencyHistogram.Snapshot operations,
+                                    LatencyHistogram.Snapshot convergence) {
+        rings.get(Resolution.SECOND).add(metric);
+        tenSeconds.accept(metric, operations, convergence);
+        minute.accept(metric, operations, convergence);
+    }
+
+    public PerformanceMetric latest() {
+        return rings.get(Resolution.SECOND).latest();
+    }
+
+    /**
+     * Samples newer than the timestamp at the given resolution, oldest first
+     */
+    public List<PerformanceMetric> since(long timestamp, Resolution resolution) {
+        return rings.get(resolution).since(timestamp);
+    }
+
+    public List<PerformanceMetric> all(Resolution resolution) {
+        return rings.get(resolution).toList();
+    }
+
+    public synchronized void clear() {
+        for (MetricsRingBuffer ring : rings.values()) {
+            ring.clear();
+        }
+        tenSeconds.reset();
+        minute.reset();
+    }
+
+    /**
+     * Accumulates ticks for one coarser window
+     */
+    private class Rollup {
+        private final Resolution resolution;
+        private long windowStart = -1;
+        private LatencyHistogram.Snapshot operationsAtStart;
+        private LatencyHistogram.Snapshot convergenceAtStart;
+        private int ticks;
+        private double violationSum;
+        private int maxLagOps;
+        private double maxLagMs;
+        private PerformanceMetric last;
+        private LatencyHistogram.Snapshot lastOperations;
+        private LatencyHistogram.Snapshot lastConvergence;
+
+        Rollup(Resolution resolution) {
+            this.resolution = resolution;
+        }
+
+        void accept(PerformanceMetric metric, LatencyHistogram.Snapshot operations,
+                    LatencyHistogram.Snapshot convergence) {
+            long window = metric.getTimestamp() - metric.getTimestamp() % resolution.getWindowMillis();
+            if (windowStart >= 0 && window != windowStart) {
+                emit();
+            }
+            if (windowStart != window) {
+                // Window starts at the previous tick's cumulative state, so no recordings are lost
+                windowStart = window;
+                operationsAtStart = lastOperations != null ? lastOperations : LatencyHistogram.Snapshot.EMPTY;
+                convergenceAtStart = lastConvergence != null ? lastConvergence : LatencyHistogram.Snapshot.EMPTY;
+            }
+
+            ticks++;
+            violationSum += metric.getConsistencyViolations();
+            maxLagOps = Math.max(maxLagOps, metric.getMaxReplicationLagOps());
+            maxLagMs = Math.max(maxLagMs, metric.getMaxReplicationLagMs());
+            last = metric;
+            lastOperations = operations;
+            lastConvergence = convergence;
+        }
+
+        private void emit() {
+            LatencyHistogram.Snapshot ops = lastOperations.minus(operationsAtStart);
+            LatencyHistogram.Snapshot conv = lastConvergence.minus(convergenceAtStart);
+            rings.get(resolution).add(new PerformanceMetric(
+                windowStart, last.getTotalOperations(), violationSum / ticks, ops.getMeanMillis(),
+                ops.quantileMillis(0.50), ops.quantileMillis(0.90), ops.quantileMillis(0.99),
+                ops.quantileMillis(0.999), maxLagOps, maxLagMs, conv.getMeanMillis()));
+
+            ticks = 0;
+            violationSum = 0;
+            maxLagOps = 0;
+            maxLagMs = 0;
+        }
+
+        void reset() {
+            windowStart = -1;
+            ticks = 0;
+            violationSum = 0;
+            maxLagOps = 0;
+            maxLagMs = 0;
+            last = null;
+            lastOperations = null;
+            lastConvergence = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package Final;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity time series of performance metrics
+ *
+ * Each field lives in its own primitive array, so the buffer never grows
+ * and appending a sample costs the same no matter how long the simulation
+ * has run. PerformanceMetric objects are only built for the samples a
+ * reader asks for. Timestamps must be appended in non-decreasing order.
+ */
+public class MetricsRingBuffer {
+    private final int capacity;
+    private final long[] timestamps;
+    private final int[] totalOperations;
+    private final double[] violations;
+    private final double[] averageLatency;
+    private final double[] p50;
+    private final double[] p90;
+    private final double[] p99;
+    private final double[] p999;
+    private final int[] lagOps;
+    private final double[] lagMs;
+    private final double[] convergenceMs;
+
+    private int head; // next slot to write
+    private int size;
+
+    public MetricsRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.totalOperations = new int[capacity];
+        this.violations = new double[capacity];
+        this.averageLatency = new double[capacity];
+        this.p50 = new double[capacity];
+        this.p90 = new double[capacity];
+        this.p99 = new double[capacity];
+        this.p999 = new double[capacity];
+        this.lagOps = new int[capacity];
+        this.lagMs = new double[capacity];
+        this.convergenceMs = new double[capacity];
+    }
+
+    /**
+     * Append a sample, overwriting the oldest one when full
+     */
+    public synchronized void add(PerformanceMetric metric) {
+        int i = head;
+        timestamps[i] = metric.getTimestamp();
+        totalOperations[i] = metric.getTotalOperations();
+        violations[i] = metric.getConsistencyViolations();
+        averageLatency[i] = metric.getAverageLatency();
+        p50[i] = metric.getP50Latency();
+        p90[i] = metric.getP90Latency();
+        p99[i] = metric.getP99Latency();
+        p999[i] = metric.getP999Latency();
+        lagOps[i] = metric.getMaxReplicationLagOps();
+        lagMs[i] = metric.getMaxReplicationLagMs();
+        convergenceMs[i] = metric.getConvergenceTimeMs();
+
+        head = (head + 1) % capacity;
+        if (size < capacity) size++;
+    }
+
+    /**
+     * Most recent sample, or null if empty
+     */
+    public synchronized PerformanceMetric latest() {
+        return size == 0 ? null : metricAt(slot(size - 1));
+    }
+
+    /**
+     * Samples with a timestamp strictly after the given one, oldest first
+     * Cost is proportional to the number of samples returned
+     */
+    public synchronized List<PerformanceMetric> since(long timestamp) {
+        int newer = 0;
+        while (newer < size && timestamps[slot(size - 1 - newer)] > timestamp) {
+            newer++;
+        }
+        List<PerformanceMetric> result = new ArrayList<>(newer);
+        for (int n = size - newer; n < size; n++) {
+            result.add(metricAt(slot(n)));
+        }
+        return result;
+    }
+
+    /**
+     * All retained samples, oldest first
+     */
+    public synchronized List<PerformanceMetric> toList() {
+        return since(Long.MIN_VALUE);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Physical slot of the n-th retained sample (0 = oldest)
+     */
+    private int slot(int n) {
+        return (head - size + n + capacity) % capacity;
+    }
+
+    private PerformanceMetric metricAt(int i) {
+        return new PerformanceMetric(timestamps[i], totalOperations[i], violations[i], averageLatency[i],
+                                     p50[i], p90[i], p99[i], p999[i], lagOps[i], lagMs[i], convergenceMs[i]);
+    }
+}
@@ -0,0 +1,66 @@
+package Final;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One page of a naming query: names with their locations (or addresses),
+ * in index order, and the cursor to pass back for the next page
+ */
+public class NamingPage {
+    private final List<Map.Entry<String, String>> entries;
+    private final String nextCursor;
+
+    NamingPage(List<Map.Entry<String, String>> entries, String nextCursor) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Take up to limit entries from a query's iterator; the cursor is the
+     * last name taken if more entries follow, otherwise null
+     */
+    static <V> NamingPage take(Iterator<Map.Entry<String, V>> results, int limit,
+                               Function<Map.Entry<String, V>, Map.Entry<String, String>> view) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        List<Map.Entry<String, String>> page = new ArrayList<>(Math.min(limit, 1024));
+        while (page.size() < limit && results.hasNext()) {
+            page.add(view.apply(results.next()));
+        }
+        String cursor = results.hasNext() && !page.isEmpty() ? page.get(page.size() - 1).getKey() : null;
+        return new NamingPage(page, cursor);
+    }
+
+    /**
+     * Lazy stream over a query's iterator; entries are read from the index as the stream is consumed
+     */
+    static <V> Stream<Map.Entry<String, String>> stream(Iterator<Map.Entry<String, V>> results,
+                                                        Function<Map.Entry<String, V>, Map.Entry<String, String>> view) {
+        Spliterator<Map.Entry<String, V>> spliterator = Spliterators.spliteratorUnknownSize(
+                results, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).map(view);
+    }
+
+    public List<Map.Entry<String, String>> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Cursor for the next page, or null when this is the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
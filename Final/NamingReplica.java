@@ -0,0 +1,137 @@
+package Final;
+
+/**
+ * One copy of the flat, structured and DNS namespaces, kept up to date
+ * from the coordinator's log
+ *
+ * Registrations are log operations: NAME_REGISTER with key
+ * "<type>:<name>" and the location (or IP) as value, and NAME_REMOVE with
+ * the same key. The simulator applies them to the shared services as it
+ * submits them, and every ServiceNode applies them to its own replica as
+ * they are delivered, so nodes can answer lookups without leaving the node.
+ * Operations on one name do not commute, so a replica must apply them in
+ * log order, each once; ServiceNode holds back naming operations that
+ * arrive ahead of a gap and drops ones it has already applied.
+ *
+ * DNS record sets have three more operations on the same key:
+ * NAME_ADD_ADDRESS ("<address> <weight>"), NAME_REMOVE_ADDRESS
+ * ("<address>") and NAME_SET_STRATEGY (a DNSRecordSet.Strategy name).
+ */
+public class NamingReplica {
+    public static final String REGISTER = "NAME_REGISTER";
+    public static final String REMOVE = "NAME_REMOVE";
+    public static final String ADD_ADDRESS = "NAME_ADD_ADDRESS";
+    public static final String REMOVE_ADDRESS = "NAME_REMOVE_ADDRESS";
+    public static final String SET_STRATEGY = "NAME_SET_STRATEGY";
+
+    private final FlatNamingService flat;
+    private final StructuredNamingService structured;
+    private final DNSSimulator dns;
+
+    public NamingReplica() {
+        this(new FlatNamingService(), new StructuredNamingService(), new DNSSimulator());
+    }
+
+    public NamingReplica(FlatNamingService flat, StructuredNamingService structured, DNSSimulator dns) {
+        this.flat = flat;
+        this.structured = structured;
+        this.dns = dns;
+    }
+
+    /**
+     * Log key of a name in one of the namespaces
+     */
+    public static String key(String namingType, String name) {
+        return namingType.toLowerCase() + ":" + name;
+    }
+
+    public static boolean isNamingOperation(Operation operation) {
+        switch (operation.getType()) {
+            case REGISTER:
+            case REMOVE:
+            case ADD_ADDRESS:
+            case REMOVE_ADDRESS:
+            case SET_STRATEGY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Apply a naming operation (see isNamingOperation); false for any other operation
+     */
+    public boolean apply(Operation operation) {
+        String key = operation.getKey();
+        int colon = key.indexOf(':');
+        if (colon < 0 || !isNamingOperation(operation)) return false;
+        String type = key.substring(0, colon);
+        String name = key.substring(colon + 1);
+        boolean register = REGISTER.equals(operation.getType());
+        String location = operation.getValue();
+
+        if (!register && !REMOVE.equals(operation.getType())) {
+            if (!"dns".equals(type)) {
+                SimLog.warn("Naming replica: {} applies only to dns, not {}", operation.getType(), operation);
+                return false;
+            }
+            return applyRecordSet(operation.getType(), name, location);
+        }
+
+        switch (type) {
+            case "flat":
+                if (register) flat.register(name, new Resource(name, location));
+                else flat.remove(name);
+                return true;
+            case "structured":
+                if (register) structured.register(name, new Resource(name, location));
+                else structured.remove(name);
+                return true;
+            case "dns":
+                if (register) dns.register(name, location);
+                else dns.remove(name);
+                return true;
+            default:
+                SimLog.warn("Naming replica: Unknown naming type in {}", operation);
+                return false;
+        }
+    }
+
+    private boolean applyRecordSet(String type, String name, String value) {
+        switch (type) {
+            case ADD_ADDRESS: {
+                int space = value.indexOf(' ');
+                String address = space < 0 ? value : value.substring(0, space);
+                int weight = space < 0 ? 1 : Integer.parseInt(value.substring(space + 1));
+                dns.addAddress(name, address, weight);
+                return true;
+            }
+            case REMOVE_ADDRESS:
+                dns.removeAddress(name, value);
+                return true;
+            default:
+                dns.setSelectionStrategy(name, DNSRecordSet.Strategy.valueOf(value));
+                return true;
+        }
+    }
+
+    /**
+     * Location or address of a name in one namespace, or null
+     */
+    public String lookupOrNull(String namingType, CharSequence name) {
+        switch (namingType) {
+            case "flat": return flat.lookupOrNull(name);
+            case "structured": return structured.lookupOrNull(name);
+            case "dns": return dns.lookupOrNull(name);
+            default: return null;
+        }
+    }
+
+    public FlatNamingService getFlat() { return flat; }
+    public StructuredNamingService getStructured() { return structured; }
+    public DNSSimulator getDns() { return dns; }
+
+    public int size() {
+        return flat.size() + structured.size() + dns.size();
+    }
+}
@@ -0,0 +1,243 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Change feed for one naming service: subscribers watch an exact name, a
+ * path prefix or a domain suffix and receive the registrations and
+ * removals that match, in batches
+ *
+ * Watches are indexed by their key, so publishing a change looks up the
+ * name itself, each of its parent paths (prefix watches) or each of its
+ * parent domains (suffix watches) instead of testing every subscription.
+ * Prefixes match on segment boundaries ("/services" covers
+ * "/services/web" but not "/servicesx") and suffixes on label boundaries;
+ * the empty prefix or suffix matches everything. Matching events wait up
+ * to the batch window and are then delivered together on a shared daemon
+ * thread, keeping only the latest event per name. Listeners should return
+ * quickly, as one slow listener delays the others.
+ */
+public class NamingWatchHub {
+    public static final long DEFAULT_BATCH_WINDOW_MS = Long.getLong("dcs.naming.watch.batch.ms", 20);
+
+    public enum Scope { EXACT, PREFIX, SUFFIX }
+
+    private final String service;
+    private final Map<Scope, Map<String, List<Subscription>>> watches;
+    private volatile int subscriptionCount;
+    private volatile long batchWindowMillis;
+
+    public NamingWatchHub(String service) {
+        this.service = service;
+        this.watches = new EnumMap<>(Scope.class);
+        for (Scope scope : Scope.values()) {
+            watches.put(scope, new ConcurrentHashMap<>());
+        }
+        this.batchWindowMillis = DEFAULT_BATCH_WINDOW_MS;
+    }
+
+    /**
+     * Watch a key; the listener receives batches of matching events until the subscription is cancelled
+     */
+    public Subscription subscribe(Scope scope, String key, Consumer<List<Event>> listener) {
+        Subscription subscription = new Subscription(scope, normalize(scope, key), listener);
+        synchronized (watches) {
+            watches.get(scope).computeIfAbsent(subscription.key, k -> new CopyOnWriteArrayList<>()).add(subscription);
+            subscriptionCount++;
+        }
+        return subscription;
+    }
+
+    /**
+     * Lowercase a key; prefixes and suffixes also drop the trailing '/' or '.'
+     * so "/services/" watches "/services"
+     */
+    private static String normalize(Scope scope, String key) {
+        String normalized = key.toLowerCase();
+        if (scope == Scope.EXACT) return normalized;
+        char separator = scope == Scope.SUFFIX ? '.' : '/';
+        while (!normalized.isEmpty() && normalized.charAt(normalized.length() - 1) == separator) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    public boolean hasSubscribers() {
+        return subscriptionCount > 0;
+    }
+
+    /**
+     * Queue a change for every subscription that matches its name (lowercase, canonical form)
+     * value is the new location or address, or null for a removal
+     */
+    public void publish(Event.Type type, String name, String value) {
+        if (subscriptionCount == 0) return;
+        Event event = new Event(service, type, name, value, System.nanoTime());
+
+        deliver(watches.get(Scope.EXACT).get(name), event);
+
+        Map<String, List<Subscription>> prefixes = watches.get(Scope.PREFIX);
+        if (!prefixes.isEmpty()) {
+            deliver(prefixes.get(""), event);
+            for (int slash = name.indexOf('/', 1); slash > 0; slash = name.indexOf('/', slash + 1)) {
+                deliver(prefixes.get(name.substring(0, slash)), event);
+            }
+            if (!name.isEmpty()) deliver(prefixes.get(name), event);
+        }
+
+        Map<String, List<Subscription>> suffixes = watches.get(Scope.SUFFIX);
+        if (!suffixes.isEmpty()) {
+            deliver(suffixes.get(""), event);
+            for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+                deliver(suffixes.get(name.substring(dot + 1)), event);
+            }
+            if (!name.isEmpty()) deliver(suffixes.get(name), event);
+        }
+    }
+
+    private void deliver(List<Subscription> subscriptions, Event event) {
+        if (subscriptions == null) return;
+        for (Subscription subscription : subscriptions) {
+            subscription.enqueue(event);
+        }
+    }
+
+    public void setBatchWindowMillis(long batchWindowMillis) {
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionCount;
+    }
+
+    /**
+     * One registration or removal as seen by a watcher
+     */
+    public static class Event {
+        public enum Type { REGISTERED, REMOVED }
+
+        private final String service;
+        private final Type type;
+        private final String name;
+        private final String value;
+        private final long timestampNanos;
+
+        Event(String service, Type type, String name, String value, long timestampNanos) {
+            this.service = service;
+            this.type = type;
+            this.name = name;
+            this.value = value;
+            this.timestampNanos = timestampNanos;
+        }
+
+        public String getService() { return service; }
+        public Type getType() { return type; }
+        /** Lowercase canonical name: a flat name, a path like /services/web, or a domain */
+        public String getName() { return name; }
+        /** New location, address or alias target; null for a removal */
+        public String getValue() { return value; }
+        public long getTimestampNanos() { return timestampNanos; }
+
+        @Override
+        public String toString() {
+            return service + " " + type + " " + name + (value == null ? "" : " -> " + value);
+        }
+    }
+
+    /**
+     * A watch and the events waiting for its next batch
+     */
+    public class Subscription {
+        private final Scope scope;
+        private final String key;
+        private final Consumer<List<Event>> listener;
+        private final Map<String, Event> pending; // Latest event per name, in first-seen order
+        private volatile boolean cancelled;
+        private long delivered;
+        private long batches;
+
+        Subscription(Scope scope, String key, Consumer<List<Event>> listener) {
+            this.scope = scope;
+            this.key = key;
+            this.listener = listener;
+            this.pending = new LinkedHashMap<>();
+        }
+
+        void enqueue(Event event) {
+            if (cancelled) return;
+            boolean schedule;
+            synchronized (pending) {
+                schedule = pending.isEmpty();
+                pending.put(event.getName(), event);
+            }
+            if (schedule) {
+                Dispatcher.INSTANCE.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            List<Event> batch;
+            synchronized (pending) {
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            if (batch.isEmpty() || cancelled) return;
+            try {
+                listener.accept(batch);
+            } catch (RuntimeException e) {
+                SimLog.warn("Naming watch on '{}' failed: {}", key, e);
+            }
+            synchronized (pending) {
+                delivered += batch.size();
+                batches++;
+            }
+        }
+
+        /**
+         * Stop receiving events; a batch already being delivered still arrives
+         */
+        public void cancel() {
+            synchronized (watches) {
+                if (cancelled) return;
+                cancelled = true;
+                List<Subscription> list = watches.get(scope).get(key);
+                if (list != null) {
+                    list.remove(this);
+                    if (list.isEmpty()) watches.get(scope).remove(key);
+                }
+                subscriptionCount--;
+            }
+        }
+
+        public Scope getScope() { return scope; }
+        public String getKey() { return key; }
+
+        public long getDeliveredCount() {
+            synchronized (pending) {
+                return delivered;
+            }
+        }
+
+        public long getBatchCount() {
+            synchronized (pending) {
+                return batches;
+            }
+        }
+    }
+
+    /**
+     * Delivers every hub's batches; a daemon thread, so it never keeps the JVM alive
+     */
+    private static class Dispatcher {
+        static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "naming-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
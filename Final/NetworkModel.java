@@ -0,0 +1,36 @@
+package Final;
+
+/**
+ * Network layer between the coordinator and service nodes
+ * Implementations decide how long a message takes, whether it is lost and
+ * whether two endpoints can reach each other at all
+ */
+public interface NetworkModel {
+    /** Endpoint name used for the central coordinator */
+    String COORDINATOR = "Coordinator";
+
+    /** Network with no delay, no loss and no partitions */
+    NetworkModel LOCAL = new NetworkModel() {
+        @Override
+        public boolean transmit(String from, String to, int payloadBytes) {
+            return true;
+        }
+
+        @Override
+        public boolean isReachable(String from, String to) {
+            return true;
+        }
+    };
+
+    /**
+     * Send a payload from one endpoint to another, blocking for the simulated
+     * transfer time including any retries
+     * Returns false if the message could not be delivered
+     */
+    boolean transmit(String from, String to, int payloadBytes) throws InterruptedException;
+
+    /**
+     * Check whether two endpoints are currently connected
+     */
+    boolean isReachable(String from, String to);
+}
@@ -5,20 +5,35 @@ package Final;
  * Used for maintaining operation logs and ensuring consistency
  */
 public class Operation {
+    // Fixed per-message overhead for sequence, type, timestamps and framing
+    private static final int HEADER_BYTES = 48;
+
     private final int sequenceNumber;
     private final String type; // "PUT", "DELETE", "GET"
     private final String key;
     private final String value;
     private final long timestamp;
+    private final long submitNanos; // monotonic clock, for lag and staleness
     private final String clientId;
+    private volatile TraceCollector.Context trace; // null when not sampled or once its trace is finished
 
     public Operation(int sequenceNumber, String type, String key, String value, String clientId) {
+        this(sequenceNumber, type, key, value, clientId, null);
+    }
+
+    /**
+     * Create an operation carrying a trace context (its open queueing span)
+     */
+    public Operation(int sequenceNumber, String type, String key, String value, String clientId,
+                     TraceCollector.Context trace) {
         this.sequenceNumber = sequenceNumber;
         this.type = type;
         this.key = key;
         this.value = value;
         this.clientId = clientId;
         this.timestamp = System.currentTimeMillis();
+        this.submitNanos = System.nanoTime();
+        this.trace = trace;
     }
 
     // Getters
@@ -27,7 +42,28 @@ public class Operation {
     public String getKey() { return key; }
     public String getValue() { return value; }
     public long getTimestamp() { return timestamp; }
+    public long getSubmitNanos() { return submitNanos; }
     public String getClientId() { return clientId; }
+    public TraceCollector.Context getTrace() { return trace; }
+
+    /**
+     * Let go of the trace context, so the log does not keep finished traces reachable
+     */
+    void clearTrace() { trace = null; }
+
+    /**
+     * Approximate size of this operation on the wire
+     */
+    public int getSizeBytes() {
+        return estimateSize(key, value);
+    }
+
+    /**
+     * Approximate wire size of an operation with the given key and value
+     */
+    public static int estimateSize(String key, String value) {
+        return HEADER_BYTES + (key == null ? 0 : key.length()) + (value == null ? 0 : value.length());
+    }
 
     @Override
     public String toString() {
@@ -8,13 +8,41 @@ public class PerformanceMetric {
     private final int totalOperations;
     private final double consistencyViolations;
     private final double averageLatency;
+    private final double p50Latency;
+    private final double p90Latency;
+    private final double p99Latency;
+    private final double p999Latency;
+    private final int maxReplicationLagOps;
+    private final double maxReplicationLagMs;
+    private final double convergenceTimeMs;
 
     public PerformanceMetric(long timestamp, int totalOperations, 
                            double consistencyViolations, double averageLatency) {
+        this(timestamp, totalOperations, consistencyViolations, averageLatency, 0, 0, 0, 0);
+    }
+
+    public PerformanceMetric(long timestamp, int totalOperations, double consistencyViolations,
+                           double averageLatency, double p50Latency, double p90Latency,
+                           double p99Latency, double p999Latency) {
+        this(timestamp, totalOperations, consistencyViolations, averageLatency,
+             p50Latency, p90Latency, p99Latency, p999Latency, 0, 0, 0);
+    }
+
+    public PerformanceMetric(long timestamp, int totalOperations, double consistencyViolations,
+                           double averageLatency, double p50Latency, double p90Latency,
+                           double p99Latency, double p999Latency, int maxReplicationLagOps,
+                           double maxReplicationLagMs, double convergenceTimeMs) {
         this.timestamp = timestamp;
         this.totalOperations = totalOperations;
         this.consistencyViolations = consistencyViolations;
         this.averageLatency = averageLatency;
+        this.p50Latency = p50Latency;
+        this.p90Latency = p90Latency;
+        this.p99Latency = p99Latency;
+        this.p999Latency = p999Latency;
+        this.maxReplicationLagOps = maxReplicationLagOps;
+        this.maxReplicationLagMs = maxReplicationLagMs;
+        this.convergenceTimeMs = convergenceTimeMs;
     }
 
     public long getTimestamp() {
@@ -33,9 +61,49 @@ public class PerformanceMetric {
         return averageLatency;
     }
 
+    public double getP50Latency() {
+        return p50Latency;
+    }
+
+    public double getP90Latency() {
+        return p90Latency;
+    }
+
+    public double getP99Latency() {
+        return p99Latency;
+    }
+
+    public double getP999Latency() {
+        return p999Latency;
+    }
+
+    /**
+     * Largest lag behind the coordinator head among available nodes, in operations
+     */
+    public int getMaxReplicationLagOps() {
+        return maxReplicationLagOps;
+    }
+
+    /**
+     * Age of the oldest operation still missing on some available node
+     */
+    public double getMaxReplicationLagMs() {
+        return maxReplicationLagMs;
+    }
+
+    /**
+     * Mean time for operations to become visible on every node during this interval
+     */
+    public double getConvergenceTimeMs() {
+        return convergenceTimeMs;
+    }
+
     @Override
     public String toString() {
-        return String.format("Metric[time=%d, ops=%d, violations=%.2f%%, latency=%.2fms]",
-                           timestamp, totalOperations, consistencyViolations * 100, averageLatency);
+        return String.format("Metric[time=%d, ops=%d, violations=%.2f%%, latency=%.2fms, p50=%.2fms, p99=%.2fms, p999=%.2fms, "
+                           + "lag=%d ops/%.1fms, convergence=%.1fms]",
+                           timestamp, totalOperations, consistencyViolations * 100, averageLatency,
+                           p50Latency, p99Latency, p999Latency,
+                           maxReplicationLagOps, maxReplicationLagMs, convergenceTimeMs);
     }
 } 
\ No newline at end of file
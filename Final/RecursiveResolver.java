@@ -0,0 +1,397 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recursive resolver that walks a DNSHierarchy from the root, following
+ * referrals down to the zone server that holds the answer
+ *
+ * Each query pays its server's link round trip. Three caches cut the walk
+ * short: final answers (including NXDOMAIN), zone delegations and TLD
+ * delegations, each bounded LRU and honouring the TTL it was given. A
+ * lookup starts at the most specific thing it has cached, so a warm zone
+ * delegation costs one hop and a cached answer none. Latency is recorded
+ * per starting point, which separates cold from warm lookups. An alias
+ * answer (CNAME) is followed with a walk for its target, up to
+ * DNSSimulator.MAX_CHAIN_LENGTH links, and the final answer is cached
+ * under the name asked for with the shortest TTL along the chain. The
+ * record is cached rather than one address, so a record set still picks
+ * an address (skipping those that are down) for every answer. When the
+ * hierarchy drops servers (see DNSHierarchy.getGeneration) every cache is
+ * flushed before the next lookup, since cached delegations may point at
+ * servers that no longer serve their zone.
+ */
+public class RecursiveResolver {
+    /** Where a resolution started, from warmest to coldest */
+    public enum Start { CACHED_ANSWER, ZONE_DELEGATION, TLD_DELEGATION, ROOT }
+
+    private static final int MAX_HOPS = 16;
+    private static final int QUERY_BYTES = 64;
+
+    private final String id;
+    private final DNSHierarchy hierarchy;
+    private final LruCache<String, CachedAnswer> answers;
+    private final LruCache<String, CachedDelegation> zoneDelegations;
+    private final LruCache<String, CachedDelegation> tldDelegations;
+    private final Map<Start, LatencyHistogram> latencyByStart;
+    private final LongAdder queriesSent;
+    private volatile long hierarchyGeneration;
+
+    public RecursiveResolver(String id, DNSHierarchy hierarchy) {
+        this(id, hierarchy, 4096, 1024, 64);
+    }
+
+    public RecursiveResolver(String id, DNSHierarchy hierarchy,
+                             int answerCapacity, int zoneCapacity, int tldCapacity) {
+        this.id = id;
+        this.hierarchy = hierarchy;
+        this.answers = new LruCache<>(answerCapacity);
+        this.zoneDelegations = new LruCache<>(zoneCapacity);
+        this.tldDelegations = new LruCache<>(tldCapacity);
+        this.latencyByStart = new EnumMap<>(Start.class);
+        for (Start start : Start.values()) {
+            latencyByStart.put(start, new LatencyHistogram());
+        }
+        this.queriesSent = new LongAdder();
+        this.hierarchyGeneration = hierarchy.getGeneration();
+    }
+
+    /**
+     * Resolve a name, walking the hierarchy from the closest cached point
+     */
+    public Resolution resolve(String domainName) {
+        String domain = domainName.toLowerCase();
+        long begin = System.nanoTime();
+        long generation = hierarchy.getGeneration();
+        if (generation != hierarchyGeneration) {
+            flush();
+            hierarchyGeneration = generation;
+        }
+
+        CachedAnswer cached = answers.get(domain, begin);
+        if (cached != null) {
+            return finish(domain, hierarchy.answer(cached.record), Start.CACHED_ANSWER, Collections.emptyList(), begin);
+        }
+
+        DNSZoneServer server = closestServer(domain, begin);
+        Start start = server.getLevel() == DNSZoneServer.Level.ZONE ? Start.ZONE_DELEGATION
+                : server.getLevel() == DNSZoneServer.Level.TLD ? Start.TLD_DELEGATION : Start.ROOT;
+
+        List<Hop> hops = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        visited.add(domain);
+        String name = domain;
+        long ttlMillis = Long.MAX_VALUE;
+        while (true) {
+            DNSZoneServer.Response response = walk(server, name, hops);
+            if (response == null) {
+                return finish(domain, null, start, hops, begin); // SERVFAIL, nothing cached
+            }
+            ttlMillis = Math.min(ttlMillis, response.getTtlMillis());
+            DNSRecord record = response.getRecord();
+            if (record == null || record.getType() != DNSRecord.Type.CNAME) {
+                answers.put(domain, new CachedAnswer(record), System.nanoTime(), ttlMillis);
+                return finish(domain, hierarchy.answer(record), start, hops, begin);
+            }
+            // An alias: resolve its target and cache the final answer under the name asked for
+            name = record.getTarget();
+            if (!visited.add(name) || visited.size() > DNSSimulator.MAX_CHAIN_LENGTH + 1) {
+                SimLog.warn("Resolver: alias chain for '{}' loops or is too long at '{}'", domain, name);
+                return finish(domain, null, start, hops, begin);
+            }
+            server = closestServer(name, System.nanoTime());
+        }
+    }
+
+    /**
+     * The most specific server cached for a name: its zone's, its TLD's, or the root
+     */
+    private DNSZoneServer closestServer(String domain, long now) {
+        int lastDot = domain.lastIndexOf('.');
+        if (lastDot > 0) {
+            // Zones sit at the registrable domain (last two labels), see DNSHierarchy
+            int secondDot = domain.lastIndexOf('.', lastDot - 1);
+            CachedDelegation delegation = secondDot < 0 ? null : zoneDelegations.get(domain.substring(secondDot + 1), now);
+            if (delegation != null) {
+                return delegation.server;
+            }
+            if ((delegation = tldDelegations.get(domain.substring(lastDot + 1), now)) != null) {
+                return delegation.server;
+            }
+        }
+        return hierarchy.getRoot();
+    }
+
+    /**
+     * Query servers from the given one, following and caching referrals, until
+     * one answers or says NXDOMAIN; null if a query was lost or MAX_HOPS ran out
+     */
+    private DNSZoneServer.Response walk(DNSZoneServer server, String domain, List<Hop> hops) {
+        while (hops.size() < MAX_HOPS) {
+            long hopStart = System.nanoTime();
+            if (!roundTrip(server)) {
+                hops.add(new Hop(server, System.nanoTime() - hopStart));
+                return null;
+            }
+            DNSZoneServer.Response response = server.query(domain);
+            hops.add(new Hop(server, System.nanoTime() - hopStart));
+            if (response.getType() != DNSZoneServer.Response.Type.REFERRAL) {
+                return response;
+            }
+            DNSZoneServer next = response.getReferral();
+            LruCache<String, CachedDelegation> cache =
+                next.getLevel() == DNSZoneServer.Level.TLD ? tldDelegations : zoneDelegations;
+            cache.put(next.getZone(), new CachedDelegation(next), System.nanoTime(), response.getTtlMillis());
+            server = next;
+        }
+        return null;
+    }
+
+    /**
+     * Wait one query round trip to a server; false if the query was lost on every attempt
+     */
+    private boolean roundTrip(DNSZoneServer server) {
+        LinkProfile link = server.getLink();
+        Random random = ThreadLocalRandom.current();
+        long totalNanos = 0;
+        boolean answered = false;
+        for (int attempt = 0; attempt <= link.getMaxRetries() && !answered; attempt++) {
+            queriesSent.increment();
+            long attemptNanos = 2 * (link.transferNanos(QUERY_BYTES) + link.sampleLatencyNanos(random));
+            if (random.nextDouble() >= link.getLossRate()) {
+                totalNanos += attemptNanos;
+                answered = true;
+            } else {
+                totalNanos += Math.max(attemptNanos, link.getRetryTimeoutMs() * 1_000_000);
+            }
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(totalNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return answered;
+    }
+
+    private Resolution finish(String domain, String address, Start start, List<Hop> hops, long begin) {
+        long elapsed = System.nanoTime() - begin;
+        latencyByStart.get(start).record(elapsed);
+        if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+            SimLog.debug("Resolver: {} -> {} from {} in {} hops", domain, address, start, hops.size());
+        }
+        return new Resolution(domain, address, start, hops, elapsed);
+    }
+
+    /**
+     * Drop every cached answer and delegation
+     */
+    public void flush() {
+        answers.clear();
+        zoneDelegations.clear();
+        tldDelegations.clear();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getQueriesSent() {
+        return queriesSent.sum();
+    }
+
+    /**
+     * Latency of lookups that started at the given point
+     */
+    public LatencyHistogram.Snapshot getLatency(Start start) {
+        return latencyByStart.get(start).snapshot();
+    }
+
+    public CacheStats getAnswerCacheStats() { return answers.stats(); }
+    public CacheStats getZoneCacheStats() { return zoneDelegations.stats(); }
+    public CacheStats getTldCacheStats() { return tldDelegations.stats(); }
+
+    /**
+     * Lookup latency by starting point and the state of each cache level
+     */
+    public String formatReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Resolver ").append(id).append(" (").append(getQueriesSent()).append(" queries sent)\n");
+        for (Start start : Start.values()) {
+            LatencyHistogram.Snapshot latency = getLatency(start);
+            sb.append(String.format("  %-16s %6d lookups, mean %7.2fms, p99 %7.2fms%n", start,
+                                    latency.getCount(), latency.getMeanMillis(), latency.quantileMillis(0.99)));
+        }
+        sb.append("  answers ").append(getAnswerCacheStats()).append('\n');
+        sb.append("  zones   ").append(getZoneCacheStats()).append('\n');
+        sb.append("  tlds    ").append(getTldCacheStats()).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Outcome of one resolution and the servers it queried
+     */
+    public static class Resolution {
+        private final String domain;
+        private final String address;
+        private final Start start;
+        private final List<Hop> hops;
+        private final long totalNanos;
+
+        Resolution(String domain, String address, Start start, List<Hop> hops, long totalNanos) {
+            this.domain = domain;
+            this.address = address;
+            this.start = start;
+            this.hops = hops;
+            this.totalNanos = totalNanos;
+        }
+
+        public String getDomain() { return domain; }
+        public Optional<String> getAddress() { return Optional.ofNullable(address); }
+        public Start getStart() { return start; }
+        public List<Hop> getHops() { return hops; }
+        public long getTotalNanos() { return totalNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s from %s via %s in %.1fms", domain, address == null ? "NXDOMAIN" : address,
+                                 start, hops, totalNanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * One query to one server and the round trip it cost
+     */
+    public static class Hop {
+        private final DNSZoneServer server;
+        private final long nanos;
+
+        Hop(DNSZoneServer server, long nanos) {
+            this.server = server;
+            this.nanos = nanos;
+        }
+
+        public DNSZoneServer getServer() { return server; }
+        public long getNanos() { return nanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.1fms", server.getName(), nanos / 1_000_000.0);
+        }
+    }
+
+    private static class CachedAnswer {
+        final DNSRecord record; // null = NXDOMAIN
+
+        CachedAnswer(DNSRecord record) {
+            this.record = record;
+        }
+    }
+
+    private static class CachedDelegation {
+        final DNSZoneServer server;
+
+        CachedDelegation(DNSZoneServer server) {
+            this.server = server;
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counts of one cache level
+     */
+    public static class CacheStats {
+        private final int size;
+        private final int capacity;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        CacheStats(int size, int capacity, long hits, long misses, long evictions) {
+            this.size = size;
+            this.capacity = capacity;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public int getSize() { return size; }
+        public int getCapacity() { return capacity; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d entries, hit rate %.1f%%, %d evicted",
+                                 size, capacity, getHitRate() * 100, evictions);
+        }
+    }
+
+    /**
+     * Access-ordered map with TTL expiry, bounded by entry count
+     */
+    private static class LruCache<K, V> {
+        private final int capacity;
+        private final LinkedHashMap<K, Expiring<V>> map;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        LruCache(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Expiring<V>> eldest) {
+                    if (size() > LruCache.this.capacity) {
+                        evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key, long nowNanos) {
+            Expiring<V> entry = map.get(key);
+            if (entry != null && nowNanos - entry.expiresAtNanos < 0) {
+                hits++;
+                return entry.value;
+            }
+            if (entry != null) map.remove(key);
+            misses++;
+            return null;
+        }
+
+        synchronized void put(K key, V value, long nowNanos, long ttlMillis) {
+            if (ttlMillis > 0) {
+                map.put(key, new Expiring<>(value, nowNanos + ttlMillis * 1_000_000));
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized CacheStats stats() {
+            return new CacheStats(map.size(), capacity, hits, misses, evictions);
+        }
+    }
+
+    private static class Expiring<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Expiring(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
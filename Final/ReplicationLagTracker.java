@@ -0,0 +1,160 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks how far each replica trails the coordinator head
+ *
+ * Each sample is O(nodes): a node's lag in operations is head minus the
+ * end of its contiguous applied prefix (see ServiceNode.getAppliedThrough),
+ * and its lag in time is the age of the first operation it is missing. An operation counts as converged once
+ * every available node has applied it; its convergence time goes into the
+ * CONVERGENCE histogram, accurate to the sampling interval.
+ */
+public class ReplicationLagTracker {
+    /** A replica further behind than this many operations is a violation, unless set per tracker */
+    public static final int DEFAULT_STALENESS_BOUND_OPS = Integer.getInteger("dcs.staleness.bound.ops", 5);
+
+    private final CentralCoordinator coordinator;
+    private final LatencyTracker latencyTracker;
+    private final Map<String, NodeLag> lagByNode;
+    private int convergedSequence;
+    private volatile double violationRate;
+    private volatile int stalenessBoundOps;
+
+    public ReplicationLagTracker(CentralCoordinator coordinator, LatencyTracker latencyTracker) {
+        this.coordinator = coordinator;
+        this.latencyTracker = latencyTracker;
+        this.lagByNode = new ConcurrentHashMap<>();
+        this.stalenessBoundOps = DEFAULT_STALENESS_BOUND_OPS;
+    }
+
+    /**
+     * How many operations a replica may trail the head before it counts as a violation
+     */
+    public void setStalenessBoundOps(int stalenessBoundOps) {
+        if (stalenessBoundOps < 0) {
+            throw new IllegalArgumentException("Staleness bound must not be negative: " + stalenessBoundOps);
+        }
+        this.stalenessBoundOps = stalenessBoundOps;
+    }
+
+    public int getStalenessBoundOps() {
+        return stalenessBoundOps;
+    }
+
+    /**
+     * Measure every node against the current coordinator head
+     */
+    public synchronized void sample(Collection<ServiceNode> nodes) {
+        long now = System.nanoTime();
+        int head = coordinator.getCurrentSequence();
+        if (head < convergedSequence) {
+            convergedSequence = 0; // Log was cleared
+        }
+
+        int minApplied = head;
+        int available = 0;
+        int violations = 0;
+        int bound = stalenessBoundOps;
+
+        for (ServiceNode node : nodes) {
+            // The contiguous prefix: a node may apply later operations (its own writes)
+            // before a lost batch is resent, and is behind until the gap is filled
+            int applied = Math.min(node.getAppliedThrough(), head);
+            int lagOps = head - applied;
+            double lagMs = 0;
+            if (lagOps > 0) {
+                Operation oldestMissing = coordinator.getOperation(applied + 1);
+                if (oldestMissing != null) {
+                    lagMs = (now - oldestMissing.getSubmitNanos()) / 1_000_000.0;
+                }
+            }
+            lagByNode.put(node.getNodeId(), new NodeLag(lagOps, lagMs, node.isAvailable()));
+
+            if (node.isAvailable()) {
+                available++;
+                minApplied = Math.min(minApplied, applied);
+                if (lagOps > bound) {
+                    violations++;
+                }
+            }
+        }
+
+        violationRate = available > 0 ? (double) violations / available : 0.0;
+
+        // Everything up to the slowest available replica is now visible everywhere
+        if (available > 0) {
+            LatencyHistogram convergence = latencyTracker.histogram(LatencyTracker.CONVERGENCE, "all");
+            for (int seq = convergedSequence + 1; seq <= minApplied; seq++) {
+                Operation op = coordinator.getOperation(seq);
+                if (op != null) {
+                    convergence.record(now - op.getSubmitNanos());
+                }
+            }
+            convergedSequence = Math.max(convergedSequence, minApplied);
+        }
+    }
+
+    /**
+     * Fraction of available nodes that trail the head by more than the staleness bound
+     */
+    public double getViolationRate() {
+        return violationRate;
+    }
+
+    /**
+     * Latest lag of every node, sorted by node id
+     */
+    public Map<String, NodeLag> getLagByNode() {
+        return new TreeMap<>(lagByNode);
+    }
+
+    public int getMaxLagOps() {
+        int max = 0;
+        for (NodeLag lag : lagByNode.values()) {
+            if (lag.isAvailable()) max = Math.max(max, lag.getLagOps());
+        }
+        return max;
+    }
+
+    public double getMaxLagMillis() {
+        double max = 0;
+        for (NodeLag lag : lagByNode.values()) {
+            if (lag.isAvailable()) max = Math.max(max, lag.getLagMillis());
+        }
+        return max;
+    }
+
+    /**
+     * Highest sequence number known to be applied on every available node
+     */
+    public synchronized int getConvergedSequence() {
+        return convergedSequence;
+    }
+
+    /**
+     * Lag of one replica at the last sample
+     */
+    public static class NodeLag {
+        private final int lagOps;
+        private final double lagMillis;
+        private final boolean available;
+
+        NodeLag(int lagOps, double lagMillis, boolean available) {
+            this.lagOps = lagOps;
+            this.lagMillis = lagMillis;
+            this.available = available;
+        }
+
+        public int getLagOps() { return lagOps; }
+        public double getLagMillis() { return lagMillis; }
+        public boolean isAvailable() { return available; }
+
+        @Override
+        public String toString() {
+            return String.format("Lag[%d ops, %.1fms%s]", lagOps, lagMillis, available ? "" : ", down");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package Final;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attributes allocated bytes and CPU time to simulator subsystems
+ *
+ * Code paths bracket their work with enter(subsystem) / exit(). Each thread
+ * keeps a preallocated stack of open scopes and reads its own allocation
+ * and CPU counters from the JVM's ThreadMXBean at both ends, so a nested
+ * scope (e.g. naming called from node code) is charged to the inner
+ * subsystem only. enter reports whether it opened a frame and exit closes
+ * one only when told it did, so turning accounting on or off while scopes
+ * are open never unbalances the stack. Off by default; when off, enter
+ * returns after a single volatile read and exit after testing its argument.
+ */
+public final class ResourceAccounting {
+    public enum Subsystem { COORDINATOR, NODE_APPLY, NAMING, LOGGING, METRICS, GUI }
+
+    private static final int MAX_DEPTH = 16;
+    private static final Subsystem[] SUBSYSTEMS = Subsystem.values();
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final LongAdder[] calls = adders();
+    private static final LongAdder[] allocatedBytes = adders();
+    private static final LongAdder[] cpuNanos = adders();
+
+    private static volatile boolean enabled;
+
+    private static final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+    private ResourceAccounting() {}
+
+    /**
+     * Turn accounting on or off; returns false if this JVM cannot measure per-thread allocation
+     */
+    public static boolean setEnabled(boolean on) {
+        if (on && THREADS == null) return false;
+        if (on) {
+            if (THREADS.isThreadAllocatedMemorySupported()) THREADS.setThreadAllocatedMemoryEnabled(true);
+            if (THREADS.isThreadCpuTimeSupported()) THREADS.setThreadCpuTimeEnabled(true);
+        }
+        enabled = on;
+        return true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open a scope charged to the given subsystem; its result must be passed
+     * to exit() in a finally block
+     * @return whether a frame was opened (false while accounting is off or nested too deep)
+     */
+    public static boolean enter(Subsystem subsystem) {
+        if (!enabled) return false;
+        Frames stack = frames.get();
+        int depth = stack.depth;
+        if (depth == MAX_DEPTH) return false;
+        stack.subsystems[depth] = subsystem;
+        stack.childBytes[depth] = 0;
+        stack.childCpu[depth] = 0;
+        stack.startBytes[depth] = THREADS.getCurrentThreadAllocatedBytes();
+        stack.startCpu[depth] = THREADS.getCurrentThreadCpuTime();
+        stack.depth = depth + 1;
+        return true;
+    }
+
+    /**
+     * Close the innermost scope and charge its own (exclusive) cost
+     * @param entered what the matching enter() returned
+     */
+    public static void exit(boolean entered) {
+        if (!entered) return;
+        Frames stack = frames.get();
+
+        long bytes = THREADS.getCurrentThreadAllocatedBytes();
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        int depth = --stack.depth;
+        long totalBytes = bytes - stack.startBytes[depth];
+        long totalCpu = cpu - stack.startCpu[depth];
+
+        int index = stack.subsystems[depth].ordinal();
+        calls[index].increment();
+        allocatedBytes[index].add(totalBytes - stack.childBytes[depth]);
+        cpuNanos[index].add(totalCpu - stack.childCpu[depth]);
+        stack.subsystems[depth] = null;
+
+        if (depth > 0) {
+            stack.childBytes[depth - 1] += totalBytes;
+            stack.childCpu[depth - 1] += totalCpu;
+        }
+    }
+
+    /**
+     * Cumulative totals per subsystem
+     */
+    public static Map<Subsystem, Usage> snapshot() {
+        Map<Subsystem, Usage> result = new EnumMap<>(Subsystem.class);
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            int i = subsystem.ordinal();
+            result.put(subsystem, new Usage(calls[i].sum(), allocatedBytes[i].sum(), cpuNanos[i].sum()));
+        }
+        return result;
+    }
+
+    /**
+     * Format the usage between two snapshots as a table of rates
+     */
+    public static String formatReport(Map<Subsystem, Usage> before, Map<Subsystem, Usage> after, long elapsedMillis) {
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("📦 Resource usage over %.1fs%n", seconds));
+        sb.append(String.format("  %-12s %10s %12s %12s %10s%n", "Subsystem", "Calls/s", "Alloc MB/s", "Bytes/call", "CPU %"));
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            Usage delta = after.get(subsystem).minus(before.get(subsystem));
+            sb.append(String.format("  %-12s %10.0f %12.2f %12.0f %10.1f%n", subsystem,
+                                    delta.getCalls() / seconds,
+                                    delta.getAllocatedBytes() / seconds / (1024 * 1024),
+                                    delta.getBytesPerCall(),
+                                    delta.getCpuNanos() / 1e7 / seconds));
+        }
+        return sb.toString();
+    }
+
+    public static void reset() {
+        for (int i = 0; i < SUBSYSTEMS.length; i++) {
+            calls[i].reset();
+            allocatedBytes[i].reset();
+            cpuNanos[i].reset();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] result = new LongAdder[SUBSYSTEMS.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+
+    /**
+     * Open scopes of one thread, preallocated so accounting itself does not allocate
+     */
+    private static final class Frames {
+        final Subsystem[] subsystems = new Subsystem[MAX_DEPTH];
+        final long[] startBytes = new long[MAX_DEPTH];
+        final long[] startCpu = new long[MAX_DEPTH];
+        final long[] childBytes = new long[MAX_DEPTH];
+        final long[] childCpu = new long[MAX_DEPTH];
+        int depth;
+    }
+
+    /**
+     * Calls, bytes and CPU time charged to one subsystem
+     */
+    public static class Usage {
+        private final long calls;
+        private final long allocatedBytes;
+        private final long cpuNanos;
+
+        Usage(long calls, long allocatedBytes, long cpuNanos) {
+            this.calls = calls;
+            this.allocatedBytes = allocatedBytes;
+            this.cpuNanos = cpuNanos;
+        }
+
+        public Usage minus(Usage earlier) {
+            return new Usage(calls - earlier.calls, allocatedBytes - earlier.allocatedBytes, cpuNanos - earlier.cpuNanos);
+        }
+
+        public long getCalls() { return calls; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public long getCpuNanos() { return cpuNanos; }
+
+        public double getBytesPerCall() {
+            return calls == 0 ? 0 : (double) allocatedBytes / calls;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package Final;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service node that represents a distributed system participant
@@ -14,16 +19,45 @@ public class ServiceNode {
     private final FlatNamingService flatNaming;
     private final StructuredNamingService structuredNaming;
     private final DNSSimulator dnsService;
+    private final CachingResolver resolver;
+    private volatile ChordNamingService dhtNaming;
+    
+    // Local naming replica, fed from the coordinator's log
+    public static final long DEFAULT_NAMING_STALENESS_MS = Long.getLong("dcs.naming.staleness.ms", 1000);
+    private static final int NAME_QUERY_BYTES = 64;
+    private final NamingReplica namingReplica;
+    private volatile long namingStalenessBoundNanos;
+    private final LongAdder localNameReads;
+    private final LongAdder remoteNameReads;
+    
+    // Replication progress: every operation up to appliedThrough has been applied,
+    // and the replica held everything submitted before freshAsOfNanos
+    private final Object progressLock;
+    private int appliedThrough;
+    private final TreeSet<Integer> appliedAhead;
+    private final Map<String, Integer> keyVersions; // Sequence of the last write each data key took
+    private final TreeMap<Integer, Operation> heldNaming; // Naming operations waiting for every earlier one
+    private volatile long freshAsOfNanos;
     private final Random random;
     
     // Client-centric consistency tracking
     private final Map<String, Integer> clientVersions;
-    private int lastAppliedSequence;
-    private boolean isAvailable;
+    private volatile int lastAppliedSequence;
+    private volatile boolean isAvailable;
     
     // Threading and resource management
     private int sharedResource;
     private final Object resourceLock;
+    
+    // Workload capture
+    private volatile WorkloadTraceWriter traceWriter;
+    
+    // Network between this node and the coordinator
+    private volatile NetworkModel network;
+    
+    // Per-operation timing
+    private volatile LatencyTracker latencyTracker;
+    private volatile TraceCollector traceCollector;
 
     public ServiceNode(String nodeId, CentralCoordinator coordinator, 
                       FlatNamingService flatNaming, StructuredNamingService structuredNaming,
@@ -33,6 +67,7 @@ public class ServiceNode {
         this.flatNaming = flatNaming;
         this.structuredNaming = structuredNaming;
         this.dnsService = dnsService;
+        this.resolver = new CachingResolver(dnsService);
         this.dataStore = new ConcurrentHashMap<>();
         this.clientVersions = new ConcurrentHashMap<>();
         this.random = new Random();
@@ -40,6 +75,16 @@ public class ServiceNode {
         this.isAvailable = true;
         this.sharedResource = 100; // Initial resource value for threading demo
         this.resourceLock = new Object();
+        this.network = NetworkModel.LOCAL;
+        this.latencyTracker = new LatencyTracker();
+        this.namingReplica = new NamingReplica();
+        this.namingStalenessBoundNanos = DEFAULT_NAMING_STALENESS_MS * 1_000_000;
+        this.localNameReads = new LongAdder();
+        this.remoteNameReads = new LongAdder();
+        this.progressLock = new Object();
+        this.appliedAhead = new TreeSet<>();
+        this.keyVersions = new HashMap<>();
+        this.heldNaming = new TreeMap<>();
     }
 
     /**
@@ -61,28 +106,31 @@ public class ServiceNode {
      */
     public void performOperation(String operation, String key, String value) {
         if (!isAvailable) {
-            System.out.println(nodeId + ": Node unavailable for operation " + operation);
+            SimLog.debug("{}: Node unavailable for operation {}", nodeId, operation);
             return;
         }
 
+        WorkloadTraceWriter writer = traceWriter;
+        if (writer != null) {
+            writer.record(nodeId, operation, key, value);
+        }
+
         String clientId = nodeId + "-client";
+        String type = operation.toUpperCase();
+        long start = System.nanoTime();
         
-        switch (operation.toUpperCase()) {
+        switch (type) {
             case "PUT":
-                Operation putOp = coordinator.submitOperation("PUT", key, value, clientId);
-                applyOperation(putOp);
-                updateClientVersion(clientId, putOp.getSequenceNumber());
+                submitWrite("PUT", key, value, clientId);
                 break;
                 
             case "GET":
                 String retrievedValue = get(key);
-                System.out.println(nodeId + ": GET " + key + " = " + retrievedValue);
+                SimLog.debug("{}: GET {} = {}", nodeId, key, retrievedValue);
                 break;
                 
             case "DELETE":
-                Operation deleteOp = coordinator.submitOperation("DELETE", key, null, clientId);
-                applyOperation(deleteOp);
-                updateClientVersion(clientId, deleteOp.getSequenceNumber());
+                submitWrite("DELETE", key, null, clientId);
                 break;
                 
             case "DEPOSIT":
@@ -94,7 +142,47 @@ public class ServiceNode {
                 break;
                 
             default:
-                System.out.println(nodeId + ": Unknown operation " + operation);
+                SimLog.warn("{}: Unknown operation {}", nodeId, operation);
+                return;
+        }
+        
+        long elapsed = System.nanoTime() - start;
+        LatencyTracker tracker = latencyTracker;
+        tracker.record(LatencyTracker.OP_BY_TYPE, type, elapsed);
+        tracker.record(LatencyTracker.OP_BY_NODE, nodeId, elapsed);
+    }
+
+    /**
+     * Send a write through the coordinator and apply it locally
+     */
+    private void submitWrite(String type, String key, String value, String clientId) {
+        SimulatorEvents.OperationSubmit event = new SimulatorEvents.OperationSubmit();
+        event.begin();
+        TraceCollector tracer = traceCollector;
+        TraceCollector.Context root = tracer != null && tracer.shouldSample()
+            ? tracer.beginTrace(nodeId, System.nanoTime()) : null;
+        TraceCollector.Context request = root != null ? tracer.child(root, System.nanoTime()) : null;
+        
+        if (reachCoordinator(Operation.estimateSize(key, value))) {
+            if (request != null) {
+                tracer.end(request, TraceCollector.REQUEST, nodeId, System.nanoTime());
+            }
+            Operation op = coordinator.submitOperation(type, key, value, clientId, request);
+            // The local apply follows sequencing directly, not the broadcast queue
+            TraceCollector.Context trace = op.getTrace();
+            applyOperation(op, trace != null ? trace.parent() : null);
+            updateClientVersion(clientId, op.getSequenceNumber());
+            event.sequence = op.getSequenceNumber();
+            event.delivered = true;
+        }
+        if (root != null) {
+            tracer.endTrace(root, event.sequence, key, System.nanoTime());
+        }
+        if (event.shouldCommit()) {
+            event.node = nodeId;
+            event.type = type;
+            event.key = key;
+            event.commit();
         }
     }
 
@@ -102,45 +190,126 @@ public class ServiceNode {
      * Apply an operation to this node (for consistency)
      */
     public boolean applyOperation(Operation operation) {
-        if (!isAvailable) return false;
-        
+        return applyOperation(operation, operation.getTrace());
+    }
+
+    /**
+     * Apply an operation, tracing the apply as caused by the given span (null if untraced)
+     *
+     * The broadcast, the local apply after a write and catch-up syncs can
+     * deliver operations out of order or more than once. An operation this
+     * node has already applied is ignored, and a PUT or DELETE older than the
+     * last write to its key is recorded as applied without touching the store,
+     * so a late delivery never brings back a stale value. Returns false for both.
+     *
+     * Naming operations do not commute that way (a NAME_REGISTER replaces the
+     * addresses a NAME_ADD_ADDRESS added), so they take effect strictly in log
+     * order: one delivered ahead of a gap is held until every earlier
+     * operation has been applied, exactly as the shared registry applied them.
+     */
+    public boolean applyOperation(Operation operation, TraceCollector.Context cause) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NODE_APPLY);
         try {
-            // Simulate network delay for eventual consistency
-            if (random.nextBoolean()) {
-                Thread.sleep(random.nextInt(100) + 50); // 50-150ms delay
-            }
+            if (!isAvailable) return false;
             
-            switch (operation.getType()) {
-                case "PUT":
-                    dataStore.put(operation.getKey(), operation.getValue());
-                    break;
-                case "DELETE":
-                    dataStore.remove(operation.getKey());
-                    break;
-                default:
+            // Network delay is paid by whoever delivers the operation, see NetworkModel
+            SimulatorEvents.Apply event = new SimulatorEvents.Apply();
+            event.begin();
+            long start = System.nanoTime();
+            int sequence = operation.getSequenceNumber();
+            synchronized (progressLock) {
+                if (sequence <= appliedThrough || appliedAhead.contains(sequence)) {
+                    return false; // Already applied
+                }
+                boolean naming = NamingReplica.isNamingOperation(operation);
+                if (!naming && !"PUT".equals(operation.getType()) && !"DELETE".equals(operation.getType())) {
                     return false;
+                }
+                Integer newer = naming ? null : keyVersions.get(operation.getKey());
+                boolean superseded = newer != null && newer > sequence;
+                if (naming) {
+                    heldNaming.put(sequence, operation);
+                } else if (!superseded) {
+                    if ("PUT".equals(operation.getType())) {
+                        dataStore.put(operation.getKey(), operation.getValue());
+                    } else {
+                        dataStore.remove(operation.getKey());
+                    }
+                    keyVersions.put(operation.getKey(), sequence);
+                }
+                if (sequence > lastAppliedSequence) {
+                    lastAppliedSequence = sequence;
+                }
+                recordApplied(sequence);
+                applyHeldNaming();
+                if (superseded) {
+                    SimLog.debug("{}: Skipped {}, superseded by seq {}", nodeId, operation, newer);
+                    return false;
+                }
             }
-            
-            lastAppliedSequence = operation.getSequenceNumber();
-            System.out.println(nodeId + ": Applied " + operation);
+            long now = System.nanoTime();
+            latencyTracker.record(LatencyTracker.NODE_APPLY, nodeId, now - start);
+            // Staleness: how long after submission this replica saw the operation
+            latencyTracker.record(LatencyTracker.REPLICA_STALENESS, nodeId, now - operation.getSubmitNanos());
+            if (event.shouldCommit()) {
+                event.node = nodeId;
+                event.type = operation.getType();
+                event.key = operation.getKey();
+                event.sequence = sequence;
+                event.stalenessNanos = now - operation.getSubmitNanos();
+                event.commit();
+            }
+            TraceCollector tracer = traceCollector;
+            if (tracer != null && cause != null) {
+                tracer.end(tracer.child(cause, start), TraceCollector.APPLY, nodeId, now);
+            }
+            SimLog.debug("{}: Applied {}", nodeId, operation);
             return true;
-            
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Apply, in log order, the held naming operations the applied prefix has reached
+     * Called with progressLock held
+     */
+    private void applyHeldNaming() {
+        while (!heldNaming.isEmpty() && heldNaming.firstKey() <= appliedThrough) {
+            namingReplica.apply(heldNaming.pollFirstEntry().getValue());
+        }
+    }
+
+    /**
+     * Send a request of the given size to the coordinator over the network
+     * Returns false if the coordinator could not be reached
+     */
+    private boolean reachCoordinator(int payloadBytes) {
+        try {
+            if (network.transmit(nodeId, NetworkModel.COORDINATOR, payloadBytes)) {
+                return true;
+            }
+            SimLog.warn("{}: Coordinator unreachable, operation dropped", nodeId);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            return false;
         }
+        return false;
     }
 
     /**
      * Perform deposit operation (from threading demo)
      */
     public void performDeposit() {
+        SimulatorEvents.LockWait wait = beginLockWait();
         synchronized (resourceLock) {
+            endLockWait(wait, "DEPOSIT");
             int oldValue = sharedResource;
             try {
                 Thread.sleep(100); // Simulate processing time
                 sharedResource += 10;
-                System.out.println("[" + nodeId + "] Deposit: " + oldValue + " + 10 = " + sharedResource);
+                if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                    SimLog.debug("[{}] Deposit: {} + 10 = {}", nodeId, oldValue, sharedResource);
+                }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -151,28 +320,56 @@ public class ServiceNode {
      * Perform withdraw operation (from threading demo)
      */
     public void performWithdraw() {
+        SimulatorEvents.LockWait wait = beginLockWait();
         synchronized (resourceLock) {
+            endLockWait(wait, "WITHDRAW");
             int oldValue = sharedResource;
             if (sharedResource >= 6) {
                 try {
                     Thread.sleep(150); // Simulate processing time
                     sharedResource -= 6;
-                    System.out.println("[" + nodeId + "] Withdraw: " + oldValue + " - 6 = " + sharedResource);
+                    if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                        SimLog.debug("[{}] Withdraw: {} - 6 = {}", nodeId, oldValue, sharedResource);
+                    }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
             } else {
-                System.out.println("[" + nodeId + "] Withdraw failed: Insufficient funds (" + sharedResource + ")");
+                if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                    SimLog.debug("[{}] Withdraw failed: Insufficient funds ({})", nodeId, sharedResource);
+                }
             }
         }
     }
 
+    private static SimulatorEvents.LockWait beginLockWait() {
+        SimulatorEvents.LockWait wait = new SimulatorEvents.LockWait();
+        wait.begin();
+        return wait;
+    }
+
+    /**
+     * Record how long the caller waited for resourceLock; called once it is held
+     */
+    private void endLockWait(SimulatorEvents.LockWait wait, String operation) {
+        wait.end();
+        if (wait.shouldCommit()) {
+            wait.node = nodeId;
+            wait.operation = operation;
+            wait.sequence = lastAppliedSequence;
+            wait.key = "sharedResource";
+            wait.commit();
+        }
+    }
+
     /**
      * Get value with client-centric consistency
      */
     public String get(String key) {
         String value = dataStore.get(key);
-        System.out.println(nodeId + ": Read " + key + " = " + value + " (seq: " + lastAppliedSequence + ")");
+        if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+            SimLog.debug("{}: Read {} = {} (seq: {})", nodeId, key, value, lastAppliedSequence);
+        }
         return value;
     }
 
@@ -196,12 +393,46 @@ public class ServiceNode {
     public void syncWithCoordinator() {
         if (!isAvailable) return;
         
-        List<Operation> missedOperations = coordinator.getOperationsSince(lastAppliedSequence);
+        // Everything sequenced before this point is in the log we are about to read
+        long fetchedAt = System.nanoTime();
+        int sequence = coordinator.getCurrentSequence();
+        List<Operation> missedOperations = coordinator.getOperationsSince(getAppliedThrough());
         
-        if (!missedOperations.isEmpty()) {
-            System.out.println(nodeId + ": Syncing " + missedOperations.size() + " missed operations");
+        if (missedOperations.isEmpty()) {
+            if (network.isReachable(nodeId, NetworkModel.COORDINATOR)) {
+                markFresh(sequence, fetchedAt);
+            }
+        } else {
+            // The whole catch-up batch crosses the link, so large batches cost more
+            int batchBytes = 0;
             for (Operation op : missedOperations) {
-                applyOperation(op);
+                batchBytes += op.getSizeBytes();
+            }
+            SimulatorEvents.SyncBatch event = new SimulatorEvents.SyncBatch();
+            event.begin();
+            boolean delivered = false;
+            long transferStart = System.nanoTime();
+            try {
+                if (!network.transmit(NetworkModel.COORDINATOR, nodeId, batchBytes)) {
+                    SimLog.warn("{}: Sync failed, coordinator unreachable", nodeId);
+                    return;
+                }
+                
+                if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                    SimLog.debug("{}: Syncing {} missed operations", nodeId, missedOperations.size());
+                }
+                TraceCollector tracer = traceCollector;
+                long transferEnd = System.nanoTime();
+                for (Operation op : missedOperations) {
+                    applyOperation(op, tracer == null ? null
+                                     : tracer.transfer(op, TraceCollector.SYNC, nodeId, transferStart, transferEnd));
+                }
+                markFresh(sequence, fetchedAt);
+                delivered = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                SimulatorEvents.commitSyncBatch(event, nodeId, "catch-up", missedOperations, batchBytes, delivered);
             }
         }
     }
@@ -210,28 +441,196 @@ public class ServiceNode {
      * Lookup resource using different naming services
      */
     public String lookupResource(String resourceName, String namingType) {
+        return lookup(namingType.toLowerCase(), resourceName, isNamingReplicaFresh());
+    }
+
+    /**
+     * One lookup, served from the local replica if fresh was true when the caller checked
+     */
+    private String lookup(String type, String resourceName, boolean fresh) {
+        SimulatorEvents.NamingLookup event = new SimulatorEvents.NamingLookup();
+        event.begin();
+        long start = System.nanoTime();
+        String result;
+        boolean cacheHit = false;
         try {
-            switch (namingType.toLowerCase()) {
+            switch (type) {
                 case "flat":
-                    return flatNaming.lookup(resourceName).orElse("Not found");
                 case "structured":
-                    return structuredNaming.lookup(resourceName).orElse("Not found");
+                    result = readName(type, resourceName, fresh);
+                    break;
+                case "dht":
+                    // Routed over the ring from this node's own virtual node
+                    result = dhtNaming == null ? "Not found"
+                        : dhtNaming.lookupFrom(nodeId, resourceName).getLocation().orElse("Not found");
+                    break;
                 case "dns":
-                    return dnsService.lookup(resourceName).orElse("Not found");
+                    if (fresh) {
+                        // Bypasses the resolver: counted as a local read, not in its cache stats or as a cacheHit
+                        localNameReads.increment();
+                        result = orNotFound(namingReplica.lookupOrNull(type, resourceName));
+                        break;
+                    }
+                    remoteNameReads.increment();
+                    // Through this node's resolver; only cache misses pay the query round trip
+                    CachingResolver.Answer answer = resolver.resolve(resourceName);
+                    result = answer.getAddress().orElse("Not found");
+                    cacheHit = answer.isCached();
+                    break;
                 default:
                     return "Invalid naming type";
             }
         } catch (Exception e) {
-            return "Lookup failed: " + e.getMessage();
+            result = "Lookup failed: " + e.getMessage();
+        }
+        latencyTracker.record(LatencyTracker.NAMING_LOOKUP, type, System.nanoTime() - start);
+        SimulatorEvents.commitNamingLookup(event, nodeId, type, resourceName, !"Not found".equals(result), cacheHit);
+        return result;
+    }
+
+    /**
+     * Read a flat or structured name from the local replica while it is within
+     * the staleness bound, otherwise from the shared registry behind the coordinator
+     */
+    private String readName(String type, String name, boolean fresh) {
+        if (fresh) {
+            localNameReads.increment();
+            return orNotFound(namingReplica.lookupOrNull(type, name));
+        }
+        remoteNameReads.increment();
+        try {
+            if (!network.transmit(nodeId, NetworkModel.COORDINATOR, NAME_QUERY_BYTES)
+                || !network.transmit(NetworkModel.COORDINATOR, nodeId, NAME_QUERY_BYTES)) {
+                return "Lookup failed: registry unreachable";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Lookup failed: interrupted";
+        }
+        String location = "flat".equals(type) ? flatNaming.lookupOrNull(name) : structuredNaming.lookupOrNull(name);
+        return orNotFound(location);
+    }
+
+    private static String orNotFound(String location) {
+        return location == null ? "Not found" : location;
+    }
+
+    /**
+     * Lookup without tying up the calling thread
+     * Reads from a fresh local replica complete at once, as in lookupResource.
+     * DNS misses complete when the hedged query answers, or with a failure
+     * message on timeout. DHT routes and flat or structured reads from the
+     * shared registry wait on the network, so they run on a shared pool thread
+     */
+    public CompletableFuture<String> lookupResourceAsync(String resourceName, String namingType) {
+        String type = namingType.toLowerCase();
+        boolean fresh = isNamingReplicaFresh();
+        boolean blocking;
+        switch (type) {
+            case "flat":
+            case "structured":
+                blocking = !fresh;
+                break;
+            case "dht":
+                blocking = true;
+                break;
+            case "dns":
+                if (fresh) {
+                    return CompletableFuture.completedFuture(lookup(type, resourceName, true));
+                }
+                return resolveAsync(type, resourceName);
+            default:
+                blocking = false;
+        }
+        if (!blocking) {
+            return CompletableFuture.completedFuture(lookup(type, resourceName, fresh));
+        }
+        return CompletableFuture.supplyAsync(() -> lookup(type, resourceName, fresh), LookupPool.INSTANCE);
+    }
+
+    private CompletableFuture<String> resolveAsync(String type, String resourceName) {
+        remoteNameReads.increment();
+        SimulatorEvents.NamingLookup event = new SimulatorEvents.NamingLookup();
+        event.begin();
+        long start = System.nanoTime();
+        return resolver.resolveAsync(resourceName).handle((answer, error) -> {
+            latencyTracker.record(LatencyTracker.NAMING_LOOKUP, type, System.nanoTime() - start);
+            String result;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                result = "Lookup failed: " + cause.getMessage();
+            } else {
+                result = answer.getAddress().orElse("Not found");
+            }
+            SimulatorEvents.commitNamingLookup(event, nodeId, type, resourceName, !"Not found".equals(result),
+                                               error == null && answer.isCached());
+            return result;
+        });
+    }
+
+    /**
+     * Note an applied sequence number, advancing the contiguous prefix
+     */
+    private void recordApplied(int sequence) {
+        synchronized (progressLock) {
+            if (sequence == appliedThrough + 1) {
+                appliedThrough = sequence;
+                while (!appliedAhead.isEmpty() && appliedAhead.first() == appliedThrough + 1) {
+                    appliedThrough = appliedAhead.pollFirst();
+                }
+            } else if (sequence > appliedThrough + 1) {
+                appliedAhead.add(sequence);
+            }
+        }
+    }
+
+    /**
+     * Highest sequence number up to which this node has applied every operation
+     */
+    public int getAppliedThrough() {
+        synchronized (progressLock) {
+            return appliedThrough;
+        }
+    }
+
+    /**
+     * Record that the coordinator had sequenced nothing past the given number
+     * as of asOfNanos; once this node has applied through it, its replica is
+     * known to hold everything submitted before that time
+     */
+    public void markFresh(int sequence, long asOfNanos) {
+        synchronized (progressLock) {
+            if (appliedThrough >= sequence && asOfNanos - freshAsOfNanos > 0) {
+                freshAsOfNanos = asOfNanos;
+            }
         }
     }
 
+    /**
+     * How far behind the coordinator the naming replica may be (Long.MAX_VALUE before its first sync)
+     */
+    public long getNamingStalenessNanos() {
+        long freshAsOf = freshAsOfNanos;
+        return freshAsOf == 0 ? Long.MAX_VALUE : System.nanoTime() - freshAsOf;
+    }
+
+    private boolean isNamingReplicaFresh() {
+        return isAvailable && getNamingStalenessNanos() <= namingStalenessBoundNanos;
+    }
+
+    /**
+     * Serve lookups locally only while the replica is at most this far behind (0 = always remote)
+     */
+    public void setNamingStalenessBound(long millis) {
+        this.namingStalenessBoundNanos = millis * 1_000_000;
+    }
+
     /**
      * Simulate node failure
      */
     public void simulateFailure() {
         isAvailable = false;
-        System.out.println(nodeId + ": Node failed!");
+        SimLog.info("{}: Node failed!", nodeId);
     }
 
     /**
@@ -240,7 +639,7 @@ public class ServiceNode {
     public void recover() {
         isAvailable = true;
         syncWithCoordinator(); // Catch up on missed operations
-        System.out.println(nodeId + ": Node recovered and synced!");
+        SimLog.info("{}: Node recovered and synced!", nodeId);
     }
 
     /**
@@ -253,6 +652,46 @@ public class ServiceNode {
         System.out.println("  Shared resource: " + sharedResource);
         System.out.println("  Data store: " + dataStore);
         System.out.println("  Client versions: " + clientVersions);
+        System.out.println("  DNS cache: " + resolver.getStats());
+        long staleness = getNamingStalenessNanos();
+        System.out.println("  Naming replica: " + namingReplica.size() + " names, "
+                           + (staleness == Long.MAX_VALUE ? "never synced" : String.format("%.0fms behind", staleness / 1e6))
+                           + ", " + localNameReads.sum() + " local / " + remoteNameReads.sum() + " remote reads");
+    }
+
+    /**
+     * Record every client operation issued on this node (null to stop)
+     */
+    public void setTraceWriter(WorkloadTraceWriter traceWriter) {
+        this.traceWriter = traceWriter;
+    }
+
+    /**
+     * Set the tracker that receives this node's operation, apply and lookup latencies
+     */
+    public void setLatencyTracker(LatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    /**
+     * Set the collector that receives this node's trace spans (null disables)
+     */
+    public void setTraceCollector(TraceCollector traceCollector) {
+        this.traceCollector = traceCollector;
+    }
+
+    /**
+     * Set the partitioned naming service used for "dht" lookups
+     */
+    public void setDhtNaming(ChordNamingService dhtNaming) {
+        this.dhtNaming = dhtNaming;
+    }
+
+    /**
+     * Set the network used to talk to the coordinator
+     */
+    public void setNetwork(NetworkModel network) {
+        this.network = network;
     }
 
     // Getters
@@ -260,5 +699,21 @@ public class ServiceNode {
     public int getLastSequence() { return lastAppliedSequence; }
     public boolean isAvailable() { return isAvailable; }
     public int getSharedResource() { return sharedResource; }
+    public CachingResolver getResolver() { return resolver; }
+    public NamingReplica getNamingReplica() { return namingReplica; }
+    public long getLocalNameReads() { return localNameReads.sum(); }
+    public long getRemoteNameReads() { return remoteNameReads.sum(); }
     public Map<String, String> getDataStore() { return new HashMap<>(dataStore); }
+
+    /**
+     * Runs async lookups that wait on the network; created on first use, with
+     * daemon threads so it never keeps the JVM alive
+     */
+    private static class LookupPool {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "naming-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 } 
\ No newline at end of file
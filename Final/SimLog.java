@@ -0,0 +1,284 @@
+package Final;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous, level-gated console logging for the simulator
+ *
+ * A disabled call costs one volatile read, as long as its arguments are
+ * already objects: a call that passes an int or long boxes it before the
+ * level check, so hot paths guard such calls with isEnabled. An enabled
+ * call formats its line on the calling thread, into a buffer the thread
+ * reuses, so every thread formats in parallel and a line shows its
+ * arguments as they were at the time of the call. The finished line goes
+ * into a bounded lock-free ring; the background writer only joins the
+ * lines of a batch and takes the System.out lock once per batch. When the
+ * ring is full the caller waits for the writer, or with
+ * -Ddcs.log.drop.when.full (or setBlockWhenFull(false)) the line is
+ * dropped and counted instead.
+ *
+ * The level defaults to INFO and can be set with -Ddcs.log.level.
+ */
+public final class SimLog {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int CAPACITY = ringCapacity(Integer.getInteger("dcs.log.buffer", 8192));
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private static volatile Level threshold = parseLevel(System.getProperty("dcs.log.level"), Level.INFO);
+    private static volatile PrintStream output; // null = whatever System.out is at write time
+    private static volatile boolean synchronous;
+    private static volatile boolean blockWhenFull = !Boolean.getBoolean("dcs.log.drop.when.full");
+
+    // Ring slots; a slot holding sequence s is free for producer s and readable by the writer at s + 1
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final String[] lines = new String[CAPACITY];
+    private static final AtomicLong tail = new AtomicLong();
+    private static volatile long head;
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile boolean writerParked; // Producers only unpark the writer while it is parked
+    private static long droppedReported;
+
+    private static final Thread writer;
+    private static final int MAX_REUSED_LINE = 8192;
+    private static final ThreadLocal<StringBuilder> lineBuffer = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+        writer = new Thread(SimLog::drainLoop, "sim-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private SimLog() {}
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Format and print on the calling thread, e.g. to keep output in step with a crash
+     * Mirrors the old println behaviour and is the baseline in LoggingBenchmark
+     */
+    public static void setSynchronous(boolean enabled) {
+        synchronous = enabled;
+    }
+
+    /**
+     * Wait for the writer when the ring is full (the default) rather than dropping the message
+     */
+    public static void setBlockWhenFull(boolean enabled) {
+        blockWhenFull = enabled;
+    }
+
+    /**
+     * Send log lines to the given stream instead of System.out (null restores System.out)
+     */
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    /**
+     * Parse a level name, falling back to the default for null or unknown names
+     */
+    public static Level parseLevel(String name, Level defaultLevel) {
+        if (name == null) return defaultLevel;
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+
+    // Fixed-arity overloads so disabled calls allocate no varargs array
+    public static void debug(String message) { log(Level.DEBUG, message, 0, null, null, null, null); }
+    public static void debug(String pattern, Object a) { log(Level.DEBUG, pattern, 1, a, null, null, null); }
+    public static void debug(String pattern, Object a, Object b) { log(Level.DEBUG, pattern, 2, a, b, null, null); }
+    public static void debug(String pattern, Object a, Object b, Object c) { log(Level.DEBUG, pattern, 3, a, b, c, null); }
+    public static void debug(String pattern, Object a, Object b, Object c, Object d) { log(Level.DEBUG, pattern, 4, a, b, c, d); }
+
+    public static void info(String message) { log(Level.INFO, message, 0, null, null, null, null); }
+    public static void info(String pattern, Object a) { log(Level.INFO, pattern, 1, a, null, null, null); }
+    public static void info(String pattern, Object a, Object b) { log(Level.INFO, pattern, 2, a, b, null, null); }
+    public static void info(String pattern, Object a, Object b, Object c) { log(Level.INFO, pattern, 3, a, b, c, null); }
+
+    public static void warn(String message) { log(Level.WARN, message, 0, null, null, null, null); }
+    public static void warn(String pattern, Object a) { log(Level.WARN, pattern, 1, a, null, null, null); }
+    public static void warn(String pattern, Object a, Object b) { log(Level.WARN, pattern, 2, a, b, null, null); }
+
+    public static void error(String message) { log(Level.ERROR, message, 0, null, null, null, null); }
+    public static void error(String pattern, Object a) { log(Level.ERROR, pattern, 1, a, null, null, null); }
+
+    /**
+     * Log a message built by the supplier, which only runs if the level is enabled
+     */
+    public static void log(Level level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            publish(message.get(), 0, null, null, null, null);
+        }
+    }
+
+    private static void log(Level level, String pattern, int argCount, Object a, Object b, Object c, Object d) {
+        if (level.compareTo(threshold) >= 0 && level != Level.OFF) {
+            publish(pattern, argCount, a, b, c, d);
+        }
+    }
+
+    /**
+     * Format a line on the caller and hand it to the writer, or print it here when synchronous
+     */
+    private static void publish(String pattern, int argCount, Object a, Object b, Object c, Object d) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.LOGGING);
+        try {
+            StringBuilder buffer = lineBuffer.get();
+            format(buffer, pattern, argCount, a, b, c, d);
+            String line = buffer.toString();
+            buffer.setLength(0);
+            if (buffer.capacity() > MAX_REUSED_LINE) {
+                lineBuffer.set(new StringBuilder(256)); // Don't keep one huge line's buffer per thread
+            }
+            if (synchronous) {
+                PrintStream out = output;
+                (out != null ? out : System.out).print(line);
+            } else {
+                enqueue(line);
+            }
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    private static void enqueue(String line) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) (position & MASK);
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    lines[slot] = line;
+                    sequences.set(slot, position + 1); // Publish to the writer
+                    if (writerParked && position - head >= CAPACITY / 2) {
+                        wakeWriter(); // Half full: start draining before producers have to wait
+                    }
+                    return;
+                }
+            } else if (sequence < position) {
+                if (!blockWhenFull) {
+                    dropped.incrementAndGet(); // Ring full: never block the caller
+                    return;
+                }
+                if (writerParked) {
+                    wakeWriter();
+                }
+                Thread.yield();
+            }
+            // Another producer claimed this slot first, retry with the new tail
+        }
+    }
+
+    /**
+     * Unpark the writer; the first producer to see it parked clears the flag, so the rest don't pile on
+     */
+    private static void wakeWriter() {
+        writerParked = false;
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Wait until everything logged so far has been written
+     */
+    public static void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (head < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+        PrintStream out = output;
+        (out != null ? out : System.out).flush();
+    }
+
+    /**
+     * Messages discarded because the ring was full
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private static void drainLoop() {
+        StringBuilder batch = new StringBuilder(4096);
+        while (true) {
+            long position = head;
+            if (sequences.get((int) (position & MASK)) != position + 1 && dropped.get() == droppedReported) {
+                writerParked = true;
+                if (sequences.get((int) (position & MASK)) != position + 1) { // Recheck after announcing it
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+
+            boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.LOGGING);
+            int drained = 0;
+            while (drained < CAPACITY) {
+                int slot = (int) (position & MASK);
+                if (sequences.get(slot) != position + 1) break;
+
+                batch.append(lines[slot]);
+                lines[slot] = null;
+                sequences.set(slot, position + CAPACITY); // Hand the slot back to producers
+                position++;
+                drained++;
+            }
+
+            long droppedNow = dropped.get();
+            if (droppedNow != droppedReported) {
+                batch.append("[log] ").append(droppedNow - droppedReported)
+                     .append(" messages dropped, buffer full\n");
+                droppedReported = droppedNow;
+            }
+
+            if (batch.length() > 0) {
+                PrintStream out = output != null ? output : System.out;
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            }
+            head = position; // After printing, so flush() sees output that is really written
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    private static void format(StringBuilder sb, String pattern, int argCount,
+                               Object a, Object b, Object c, Object d) {
+        int arg = 0;
+        int from = 0;
+        int at;
+        while (arg < argCount && (at = pattern.indexOf("{}", from)) >= 0) {
+            sb.append(pattern, from, at).append(arg == 0 ? a : arg == 1 ? b : arg == 2 ? c : d);
+            from = at + 2;
+            arg++;
+        }
+        sb.append(pattern, from, pattern.length()).append('\n');
+    }
+
+    private static int ringCapacity(int requested) {
+        int capacity = Integer.highestOneBit(Math.max(16, requested));
+        return capacity < requested ? capacity << 1 : capacity;
+    }
+}
@@ -0,0 +1,197 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Network model with per-link latency, bandwidth and loss, plus scripted
+ * partitions between named groups of endpoints
+ *
+ * Links are directional and fall back to a default profile. A partition
+ * blocks traffic in both directions between its two groups; the group
+ * "*" stands for every endpoint not in the other group.
+ */
+public class SimulatedNetwork implements NetworkModel {
+    public static final String EVERYONE = "*";
+
+    private final Map<String, LinkProfile> links;
+    private final Map<String, Partition> partitions;
+    private final List<Consumer<Set<String>>> healListeners;
+    private final ScheduledExecutorService partitionScheduler;
+    private volatile LinkProfile defaultProfile;
+
+    // Statistics
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong packetsLost = new AtomicLong();
+    private final AtomicLong deliveriesFailed = new AtomicLong();
+    private final AtomicLong partitionDrops = new AtomicLong();
+
+    public SimulatedNetwork(LinkProfile defaultProfile) {
+        this.defaultProfile = defaultProfile;
+        this.links = new ConcurrentHashMap<>();
+        this.partitions = new ConcurrentHashMap<>();
+        this.healListeners = new CopyOnWriteArrayList<>();
+        this.partitionScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "network-partition-script");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public boolean transmit(String from, String to, int payloadBytes) throws InterruptedException {
+        if (!isReachable(from, to)) {
+            partitionDrops.incrementAndGet();
+            return false;
+        }
+
+        LinkProfile link = getLink(from, to);
+        Random random = ThreadLocalRandom.current();
+        long totalNanos = 0;
+        boolean delivered = false;
+
+        for (int attempt = 0; attempt <= link.getMaxRetries(); attempt++) {
+            messagesSent.incrementAndGet();
+            bytesSent.addAndGet(payloadBytes);
+            long attemptNanos = link.transferNanos(payloadBytes) + link.sampleLatencyNanos(random);
+
+            if (random.nextDouble() >= link.getLossRate()) {
+                totalNanos += attemptNanos;
+                delivered = true;
+                break;
+            }
+            // Sender only notices the loss once the retransmission timer fires
+            packetsLost.incrementAndGet();
+            totalNanos += Math.max(attemptNanos, link.getRetryTimeoutMs() * 1_000_000);
+        }
+
+        if (totalNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(totalNanos);
+        }
+        if (!delivered) {
+            deliveriesFailed.incrementAndGet();
+        }
+        return delivered;
+    }
+
+    @Override
+    public boolean isReachable(String from, String to) {
+        for (Partition partition : partitions.values()) {
+            if (partition.separates(from, to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Override the profile of the link from one endpoint to another
+     */
+    public void setLink(String from, String to, LinkProfile profile) {
+        links.put(linkKey(from, to), profile);
+    }
+
+    /**
+     * Override the profile of a link in both directions
+     */
+    public void setBidirectionalLink(String a, String b, LinkProfile profile) {
+        setLink(a, b, profile);
+        setLink(b, a, profile);
+    }
+
+    public LinkProfile getLink(String from, String to) {
+        LinkProfile profile = links.get(linkKey(from, to));
+        return profile != null ? profile : defaultProfile;
+    }
+
+    public void setDefaultProfile(LinkProfile profile) {
+        this.defaultProfile = profile;
+    }
+
+    public LinkProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * Cut all traffic between two groups of endpoints until healed
+     */
+    public void partition(String name, Collection<String> groupA, Collection<String> groupB) {
+        partitions.put(name, new Partition(new HashSet<>(groupA), new HashSet<>(groupB)));
+        SimLog.info("🌐 Network partition '{}': {} | {}", name, groupA, groupB);
+    }
+
+    /**
+     * Remove a named partition and notify listeners of the endpoints it affected
+     */
+    public void heal(String name) {
+        Partition removed = partitions.remove(name);
+        if (removed == null) return;
+
+        SimLog.info("🌐 Network partition '{}' healed", name);
+        Set<String> affected = new HashSet<>(removed.groupA);
+        affected.addAll(removed.groupB);
+        affected.remove(EVERYONE);
+        for (Consumer<Set<String>> listener : healListeners) {
+            listener.accept(affected);
+        }
+    }
+
+    /**
+     * Script a partition that starts after a delay and heals after a duration
+     */
+    public void schedulePartition(String name, long startAfterMs, long durationMs,
+                                  Collection<String> groupA, Collection<String> groupB) {
+        List<String> a = new ArrayList<>(groupA);
+        List<String> b = new ArrayList<>(groupB);
+        partitionScheduler.schedule(() -> partition(name, a, b), startAfterMs, TimeUnit.MILLISECONDS);
+        partitionScheduler.schedule(() -> heal(name), startAfterMs + durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Be told which endpoints regained connectivity when a partition heals
+     */
+    public void addHealListener(Consumer<Set<String>> listener) {
+        healListeners.add(listener);
+    }
+
+    public Set<String> getActivePartitions() {
+        return new HashSet<>(partitions.keySet());
+    }
+
+    // Statistics
+    public long getMessagesSent() { return messagesSent.get(); }
+    public long getBytesSent() { return bytesSent.get(); }
+    public long getPacketsLost() { return packetsLost.get(); }
+    public long getDeliveriesFailed() { return deliveriesFailed.get(); }
+    public long getPartitionDrops() { return partitionDrops.get(); }
+
+    public void shutdown() {
+        partitionScheduler.shutdownNow();
+    }
+
+    private static String linkKey(String from, String to) {
+        return from + "->" + to;
+    }
+
+    private static class Partition {
+        private final Set<String> groupA;
+        private final Set<String> groupB;
+
+        Partition(Set<String> groupA, Set<String> groupB) {
+            this.groupA = groupA;
+            this.groupB = groupB;
+        }
+
+        boolean separates(String from, String to) {
+            return (in(groupA, groupB, from) && in(groupB, groupA, to))
+                || (in(groupB, groupA, from) && in(groupA, groupB, to));
+        }
+
+        private static boolean in(Set<String> group, Set<String> other, String endpoint) {
+            return group.contains(endpoint) || (group.contains(EVERYONE) && !other.contains(endpoint));
+        }
+    }
+}
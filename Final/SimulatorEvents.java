@@ -0,0 +1,142 @@
+package Final;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event types emitted by the simulator
+ *
+ * Record a run with -XX:StartFlightRecording=filename=run.jfr (or
+ * DistributedSystemSimulator.startFlightRecording) and open it in JDK
+ * Mission Control; the events appear under "Distributed Simulator".
+ * Every event carries the node, sequence number and key it concerns where
+ * they apply. Events that are not enabled in the recording cost a single
+ * check on the calling thread.
+ */
+public final class SimulatorEvents {
+    private static final String CATEGORY = "Distributed Simulator";
+
+    private SimulatorEvents() {}
+
+    /**
+     * A client write from a node: reaching the coordinator, sequencing and local apply
+     */
+    @Name("dcs.OperationSubmit")
+    @Label("Operation Submit")
+    @Category({CATEGORY, "Operations"})
+    @StackTrace(false)
+    public static class OperationSubmit extends Event {
+        @Label("Node") public String node;
+        @Label("Type") public String type;
+        @Label("Key") public String key;
+        @Label("Sequence") public int sequence;
+        @Label("Delivered") public boolean delivered;
+    }
+
+    /**
+     * Assigning a sequence number inside the coordinator, including waiting for the log lock
+     */
+    @Name("dcs.Sequencing")
+    @Label("Coordinator Sequencing")
+    @Category({CATEGORY, "Coordinator"})
+    @StackTrace(false)
+    public static class Sequencing extends Event {
+        @Label("Client") public String client;
+        @Label("Type") public String type;
+        @Label("Key") public String key;
+        @Label("Sequence") public int sequence;
+    }
+
+    /**
+     * Applying one sequenced operation to a node's store
+     */
+    @Name("dcs.Apply")
+    @Label("Node Apply")
+    @Category({CATEGORY, "Replication"})
+    @StackTrace(false)
+    public static class Apply extends Event {
+        @Label("Node") public String node;
+        @Label("Type") public String type;
+        @Label("Key") public String key;
+        @Label("Sequence") public int sequence;
+        @Label("Staleness") @Timespan(Timespan.NANOSECONDS) public long stalenessNanos;
+    }
+
+    /**
+     * A batch shipped to a node, either a coordinator broadcast or a catch-up sync
+     */
+    @Name("dcs.SyncBatch")
+    @Label("Sync Batch")
+    @Category({CATEGORY, "Replication"})
+    @StackTrace(false)
+    public static class SyncBatch extends Event {
+        @Label("Node") public String node;
+        @Label("Kind") public String kind;
+        @Label("First Sequence") public int firstSequence;
+        @Label("Last Sequence") public int lastSequence;
+        @Label("Operations") public int operations;
+        @Label("Bytes") @DataAmount public int bytes;
+        @Label("Delivered") public boolean delivered;
+    }
+
+    /**
+     * Fill in and commit a sync batch event that was begun before the transfer
+     */
+    static void commitSyncBatch(SyncBatch event, String node, String kind,
+                                java.util.List<Operation> batch, int bytes, boolean delivered) {
+        if (event.shouldCommit()) {
+            event.node = node;
+            event.kind = kind;
+            event.firstSequence = batch.get(0).getSequenceNumber();
+            event.lastSequence = batch.get(batch.size() - 1).getSequenceNumber();
+            event.operations = batch.size();
+            event.bytes = bytes;
+            event.delivered = delivered;
+            event.commit();
+        }
+    }
+
+    /**
+     * A naming service lookup
+     */
+    @Name("dcs.NamingLookup")
+    @Label("Naming Lookup")
+    @Category({CATEGORY, "Naming"})
+    @StackTrace(false)
+    public static class NamingLookup extends Event {
+        @Label("Node") public String node;
+        @Label("Service") public String service;
+        @Label("Name") public String key;
+        @Label("Found") public boolean found;
+        @Label("Cache Hit") @Description("Answered from a resolver cache without querying the service; false for reads from the node's naming replica")
+        public boolean cacheHit;
+    }
+
+    /**
+     * Fill in and commit a naming lookup event that was begun before the lookup
+     */
+    static void commitNamingLookup(NamingLookup event, String node, String service, String name,
+                                   boolean found, boolean cacheHit) {
+        if (event.shouldCommit()) {
+            event.node = node;
+            event.service = service;
+            event.key = name;
+            event.found = found;
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+    }
+
+    /**
+     * Time a node's deposit or withdraw waited for the shared resource lock
+     */
+    @Name("dcs.LockWait")
+    @Label("Resource Lock Wait")
+    @Category({CATEGORY, "Contention"})
+    @StackTrace(false)
+    public static class LockWait extends Event {
+        @Label("Node") public String node;
+        @Label("Operation") public String operation;
+        @Label("Sequence") public int sequence;
+        @Label("Key") public String key;
+    }
+}
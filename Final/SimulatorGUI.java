@@ -40,7 +40,10 @@ public class SimulatorGUI extends JFrame {
     private JLabel totalOpsLabel;
     private JLabel consistencyLabel;
     private JLabel latencyLabel;
+    private JLabel replicationLagLabel;
+    private JLabel convergenceLabel;
     private JTextArea analysisArea;
+    private long lastTableTimestamp = Long.MIN_VALUE;
 
     // New components for enhanced functionality
     private JTextField domainField;
@@ -53,6 +56,18 @@ public class SimulatorGUI extends JFrame {
 
     public SimulatorGUI() {
         simulator = new DistributedSystemSimulator();
+        Integer metricsPort = Integer.getInteger("dcs.metrics.port");
+        if (metricsPort != null) {
+            try {
+                simulator.startMetricsEndpoint(metricsPort);
+            } catch (java.io.IOException e) {
+                System.out.println("Metrics endpoint not started: " + e.getMessage());
+            }
+        }
+        Long accountingInterval = Long.getLong("dcs.accounting.interval");
+        if (accountingInterval != null) {
+            simulator.enableResourceAccounting(accountingInterval);
+        }
         initializeGUI();
         setupEventHandlers();
         startGUIUpdates();
@@ -133,7 +148,7 @@ public class SimulatorGUI extends JFrame {
         gbc.gridx = 0; gbc.gridy = 5;
         controlPanel.add(new JLabel("Naming Type:"), gbc);
         gbc.gridx = 1;
-        namingTypeSelector = new JComboBox<>(new String[]{"flat", "structured", "dns"});
+        namingTypeSelector = new JComboBox<>(new String[]{"flat", "structured", "dns", "dht"});
         controlPanel.add(namingTypeSelector, gbc);
 
         gbc.gridx = 0; gbc.gridy = 6;
@@ -324,7 +339,9 @@ public class SimulatorGUI extends JFrame {
 
         totalOpsLabel = new JLabel("Total Operations: 0");
         consistencyLabel = new JLabel("Consistency Violations: 0%");
-        latencyLabel = new JLabel("Avg Latency: 0ms");
+        latencyLabel = new JLabel("Latency: 0ms");
+        replicationLagLabel = new JLabel("Replication Lag: 0 ops");
+        convergenceLabel = new JLabel("Convergence: 0ms");
         systemLoadBar = new JProgressBar(0, 100);
         systemLoadBar.setStringPainted(true);
         systemLoadBar.setString("System Load");
@@ -333,11 +350,11 @@ public class SimulatorGUI extends JFrame {
         metricsPanel.add(consistencyLabel);
         metricsPanel.add(latencyLabel);
         metricsPanel.add(systemLoadBar);
-        metricsPanel.add(new JLabel(""));
-        metricsPanel.add(new JLabel(""));
+        metricsPanel.add(replicationLagLabel);
+        metricsPanel.add(convergenceLabel);
 
         // Performance table
-        String[] columnNames = {"Timestamp", "Operations", "Violations %", "Latency (ms)"};
+        String[] columnNames = {"Timestamp", "Operations", "Violations %", "Avg (ms)", "p50 (ms)", "p99 (ms)", "p999 (ms)"};
         performanceTableModel = new DefaultTableModel(columnNames, 0);
         performanceTable = new JTable(performanceTableModel);
         performanceTable.setPreferredScrollableViewportSize(new Dimension(500, 150));
@@ -416,31 +433,49 @@ public class SimulatorGUI extends JFrame {
 
     private void updateGUI() {
         SwingUtilities.invokeLater(() -> {
-            List<PerformanceMetric> metrics = simulator.getMetrics();
-            if (!metrics.isEmpty()) {
-                PerformanceMetric latest = metrics.get(metrics.size() - 1);
-                totalOpsLabel.setText("Total Operations: " + latest.getTotalOperations());
-                consistencyLabel.setText(String.format("Consistency Violations: %.1f%%", 
-                                                     latest.getConsistencyViolations() * 100));
-                latencyLabel.setText(String.format("Avg Latency: %.1fms", latest.getAverageLatency()));
-                
-                int load = Math.min(100, latest.getTotalOperations() % 100);
-                systemLoadBar.setValue(load);
-                
-                if (performanceTableModel.getRowCount() > 20) {
-                    performanceTableModel.removeRow(0);
+            boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.GUI);
+            try {
+                PerformanceMetric latest = simulator.getLatestMetric();
+                if (latest != null) {
+                    totalOpsLabel.setText("Total Operations: " + latest.getTotalOperations());
+                    consistencyLabel.setText(String.format("Consistency Violations: %.1f%%", 
+                                                         latest.getConsistencyViolations() * 100));
+                    latencyLabel.setText(String.format("Latency avg %.1fms, p50 %.1fms, p99 %.1fms",
+                                                     latest.getAverageLatency(), latest.getP50Latency(),
+                                                     latest.getP99Latency()));
+                    
+                    replicationLagLabel.setText(String.format("Replication Lag: %d ops / %.0fms",
+                                                              latest.getMaxReplicationLagOps(),
+                                                              latest.getMaxReplicationLagMs()));
+                    convergenceLabel.setText(String.format("Convergence: %.0fms", latest.getConvergenceTimeMs()));
+                    
+                    int load = Math.min(100, latest.getTotalOperations() % 100);
+                    systemLoadBar.setValue(load);
+                    
+                    // Only samples we have not shown yet
+                    for (PerformanceMetric metric : simulator.metricsSince(lastTableTimestamp)) {
+                        if (performanceTableModel.getRowCount() > 20) {
+                            performanceTableModel.removeRow(0);
+                        }
+                        
+                        Object[] row = {
+                            new java.util.Date(metric.getTimestamp()),
+                            metric.getTotalOperations(),
+                            String.format("%.2f", metric.getConsistencyViolations() * 100),
+                            String.format("%.1f", metric.getAverageLatency()),
+                            String.format("%.1f", metric.getP50Latency()),
+                            String.format("%.1f", metric.getP99Latency()),
+                            String.format("%.1f", metric.getP999Latency())
+                        };
+                        performanceTableModel.addRow(row);
+                        lastTableTimestamp = metric.getTimestamp();
+                    }
                 }
                 
-                Object[] row = {
-                    new java.util.Date(latest.getTimestamp()),
-                    latest.getTotalOperations(),
-                    String.format("%.2f", latest.getConsistencyViolations() * 100),
-                    String.format("%.1f", latest.getAverageLatency())
-                };
-                performanceTableModel.addRow(row);
+                statusLabel.setText("Status: " + (simulator.isRunning() ? "Running" : "Stopped"));
+            } finally {
+                ResourceAccounting.exit(accounted);
             }
-            
-            statusLabel.setText("Status: " + (simulator.isRunning() ? "Running" : "Stopped"));
         });
     }
 
@@ -528,7 +563,10 @@ public class SimulatorGUI extends JFrame {
             analysis.append(String.format("- Total Operations: %d\n", latest.getTotalOperations()));
             analysis.append(String.format("- Consistency Violations: %.2f%%\n", 
                                          latest.getConsistencyViolations() * 100));
-            analysis.append(String.format("- Average Latency: %.2f ms\n\n", latest.getAverageLatency()));
+            analysis.append(String.format("- Average Latency: %.2f ms\n", latest.getAverageLatency()));
+            analysis.append(String.format("- Latency p50/p90/p99/p999: %.2f / %.2f / %.2f / %.2f ms\n\n",
+                                        latest.getP50Latency(), latest.getP90Latency(),
+                                        latest.getP99Latency(), latest.getP999Latency()));
             
             if (metrics.size() > 5) {
                 analysis.append("Performance Trends:\n");
@@ -611,9 +649,8 @@ public class SimulatorGUI extends JFrame {
         analysis.append("Low Latency <-> Consistency\n");
         analysis.append("Partition Tolerance <-> Consistency\n\n");
         
-        List<PerformanceMetric> metrics = simulator.getMetrics();
-        if (!metrics.isEmpty()) {
-            PerformanceMetric latest = metrics.get(metrics.size() - 1);
+        PerformanceMetric latest = simulator.getLatestMetric();
+        if (latest != null) {
             analysis.append("CURRENT STATUS:\n");
             if (latest.getConsistencyViolations() < 0.01) {
                 analysis.append("Strong consistency maintained\n");
@@ -0,0 +1,179 @@
+package Final;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted index of names split into parts by a separator, for range queries
+ *
+ * Keys are kept in a ConcurrentSkipListMap, so every name under a prefix
+ * ("/services" for paths, "com.example" for reversed domains) sits in one
+ * contiguous range: the prefix itself plus [prefix + sep, prefix + (sep+1)).
+ * A query seeks to the start of the range in O(log n) and then walks only
+ * the entries it returns, which is what lets the first page of a query
+ * over millions of names come back in microseconds. Resuming after a
+ * cursor is another seek. Iterators are weakly consistent: they never
+ * fail on concurrent changes and may or may not see them.
+ *
+ * Globs match one part with '*' (any characters but the separator) and
+ * '?' (one such character) and any number of parts with "**". The literal
+ * parts before the first wildcard narrow the range; the rest is filtered.
+ */
+public class SortedNameIndex<V> {
+    private final ConcurrentSkipListMap<String, V> entries;
+    private final char separator;
+
+    public SortedNameIndex(char separator) {
+        this.entries = new ConcurrentSkipListMap<>();
+        this.separator = separator;
+    }
+
+    public void put(String key, V value) {
+        entries.put(key, value);
+    }
+
+    public V remove(String key) {
+        return entries.remove(key);
+    }
+
+    /**
+     * Remove the prefix and every key under it
+     */
+    public void removeUnder(String prefix) {
+        if (prefix.isEmpty()) {
+            entries.clear();
+            return;
+        }
+        entries.remove(prefix);
+        range(prefix).clear();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Entries at or under a prefix in key order, starting after a key ("" = everything)
+     * @param after last key already seen, or null to start at the beginning
+     */
+    public Iterator<Map.Entry<String, V>> under(String prefix, String after) {
+        if (prefix.isEmpty()) {
+            return (after == null ? entries : entries.tailMap(after, false)).entrySet().iterator();
+        }
+        ConcurrentNavigableMap<String, V> children = range(prefix);
+        if (after != null && after.compareTo(prefix) >= 0) {
+            return children.tailMap(after, false).entrySet().iterator();
+        }
+        V self = entries.get(prefix);
+        Iterator<Map.Entry<String, V>> rest = children.entrySet().iterator();
+        if (self == null) return rest;
+        return concat(new AbstractMap.SimpleImmutableEntry<>(prefix, self), rest);
+    }
+
+    /**
+     * Entries whose key matches a glob, in key order, starting after a key
+     */
+    public Iterator<Map.Entry<String, V>> glob(String pattern, String after) {
+        Pattern compiled = compileGlob(pattern, separator);
+        Iterator<Map.Entry<String, V>> candidates = under(literalPrefix(pattern, separator), after);
+        return new Iterator<>() {
+            private Map.Entry<String, V> next = advance();
+
+            private Map.Entry<String, V> advance() {
+                while (candidates.hasNext()) {
+                    Map.Entry<String, V> entry = candidates.next();
+                    if (compiled.matcher(entry.getKey()).matches()) return entry;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<String, V> next() {
+                if (next == null) throw new NoSuchElementException();
+                Map.Entry<String, V> current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Keys strictly under a prefix: [prefix + sep, prefix + (sep + 1))
+     */
+    private ConcurrentNavigableMap<String, V> range(String prefix) {
+        return entries.subMap(prefix + separator, true, prefix + (char) (separator + 1), false);
+    }
+
+    /**
+     * The whole parts of a glob before its first wildcard, e.g. "/services" for "/services/web-*"
+     */
+    static String literalPrefix(String glob, char separator) {
+        int wildcard = 0;
+        while (wildcard < glob.length() && glob.charAt(wildcard) != '*' && glob.charAt(wildcard) != '?') {
+            wildcard++;
+        }
+        if (wildcard == glob.length()) return glob; // No wildcard: the glob names one key
+        int boundary = glob.lastIndexOf(separator, wildcard);
+        return boundary <= 0 ? "" : glob.substring(0, boundary);
+    }
+
+    static Pattern compileGlob(String glob, char separator) {
+        String notSeparator = "[^\\" + separator + "]";
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            if (c == '?') {
+                regex.append(notSeparator);
+            } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append(notSeparator).append('*');
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static <T> Iterator<T> concat(T first, Iterator<T> rest) {
+        return new Iterator<>() {
+            private boolean firstTaken;
+
+            @Override
+            public boolean hasNext() {
+                return !firstTaken || rest.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!firstTaken) {
+                    firstTaken = true;
+                    return first;
+                }
+                return rest.next();
+            }
+        };
+    }
+}
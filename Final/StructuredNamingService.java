@@ -1,47 +1,137 @@
 package Final;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Structured naming service using hierarchical paths
  * Similar to DNS or file system paths
+ *
+ * Paths are stored in a trie with one node per path segment, so a lookup
+ * walks depth nodes, listing a directory visits only its children and
+ * subtree counts and deletes do not touch unrelated paths. Lookups are
+ * lock-free; registrations and removals are serialized on the trie so
+ * pruning empty nodes never races with a registration below them.
+ * Segments are case-insensitive and empty segments are ignored, so
+ * "/Services//web/" names the same entry as "/services/web". Children are
+ * kept in a CaseInsensitiveIndex, so a lookup probes each segment in place
+ * without lowercasing or splitting the path; lookupOrNull allocates nothing.
+ * Changes are published to watchers in canonical form ("/services/web"),
+ * one event per path, including every path a subtree removal drops.
+ *
+ * Next to the trie, every canonical path is kept in a SortedNameIndex, so
+ * listing or globbing a subtree seeks straight to it and pages through it
+ * in path order (see listUnder and glob).
  */
 public class StructuredNamingService {
-    private final Map<String, Resource> pathToResource;
+    private final PathNode root;
+    private final NamingWatchHub watchers;
+    private final SortedNameIndex<Resource> sorted;
 
     public StructuredNamingService() {
-        this.pathToResource = new ConcurrentHashMap<>();
+        this.root = new PathNode("");
+        this.sorted = new SortedNameIndex<>('/');
+        this.watchers = new NamingWatchHub("structured");
     }
 
     /**
      * Register a resource with a hierarchical path
      */
     public void register(String path, Resource resource) {
-        if (!isValidPath(path)) {
-            throw new IllegalArgumentException("Invalid path format: " + path + ". Must start with '/'");
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            if (!isValidPath(path)) {
+                throw new IllegalArgumentException("Invalid path format: " + path + ". Must start with '/'");
+            }
+
+            List<String> segments = segments(path);
+            String canonical = canonical(segments);
+            synchronized (root) {
+                List<PathNode> trail = new ArrayList<>();
+                PathNode node = root;
+                trail.add(node);
+                for (String segment : segments) {
+                    node = node.children.computeIfAbsent(segment, PathNode::new);
+                    trail.add(node);
+                }
+                if (node.resource == null) {
+                    adjustCounts(trail, 1);
+                }
+                node.resource = resource;
+                sorted.put(canonical, resource);
+                if (watchers.hasSubscribers()) {
+                    watchers.publish(NamingWatchHub.Event.Type.REGISTERED, canonical, resource.getLocation());
+                }
+            }
+            SimLog.debug("Structured naming: Registered '{}' -> {}", path, resource.getLocation());
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
-        
-        pathToResource.put(path.toLowerCase(), resource);
-        System.out.println("Structured naming: Registered '" + path + "' -> " + resource.getLocation());
     }
 
     /**
      * Lookup a resource by hierarchical path
      */
     public Optional<String> lookup(String path) {
-        if (!isValidPath(path)) {
-            System.out.println("Structured naming: Invalid path format '" + path + "'");
-            return Optional.empty();
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            if (!isValidPath(path)) {
+                SimLog.debug("Structured naming: Invalid path format '{}'", path);
+                return Optional.empty();
+            }
+
+            PathNode node = find(path);
+            Resource resource = node == null ? null : node.resource;
+            if (resource != null) {
+                SimLog.debug("Structured naming: Found '{}' -> {}", path, resource.getLocation());
+                return Optional.of(resource.getLocation());
+            } else {
+                SimLog.debug("Structured naming: Not found '{}'", path);
+                return Optional.empty();
+            }
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
+    }
 
-        Resource resource = pathToResource.get(path.toLowerCase());
-        if (resource != null) {
-            System.out.println("Structured naming: Found '" + path + "' -> " + resource.getLocation());
-            return Optional.of(resource.getLocation());
-        } else {
-            System.out.println("Structured naming: Not found '" + path + "'");
-            return Optional.empty();
+    /**
+     * Hot-path lookup: the resource's location, or null, without allocating or logging
+     */
+    public String lookupOrNull(CharSequence path) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            if (path == null || path.length() == 0 || path.charAt(0) != '/') return null;
+            PathNode node = find(path);
+            Resource resource = node == null ? null : node.resource;
+            return resource == null ? null : resource.getLocation();
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    /**
+     * Lookup many paths at once; paths that are not registered are left out
+     * The result keeps the order and spelling of the paths given
+     */
+    public Map<String, String> lookupAll(Collection<String> paths) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            Map<String, String> found = new LinkedHashMap<>(paths.size() * 2);
+            for (String path : paths) {
+                PathNode node = isValidPath(path) ? find(path) : null;
+                Resource resource = node == null ? null : node.resource;
+                if (resource != null) {
+                    found.put(path, resource.getLocation());
+                }
+            }
+            if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+                SimLog.debug("Structured naming: Batch found {} of {}", found.size(), paths.size());
+            }
+            return found;
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
     }
 
@@ -49,12 +139,80 @@ public class StructuredNamingService {
      * Remove a resource from the naming service
      */
     public boolean remove(String path) {
-        Resource removed = pathToResource.remove(path.toLowerCase());
-        if (removed != null) {
-            System.out.println("Structured naming: Removed '" + path + "'");
-            return true;
+        if (!isValidPath(path)) return false;
+
+        synchronized (root) {
+            List<PathNode> trail = trail(path);
+            if (trail == null) return false;
+            PathNode node = trail.get(trail.size() - 1);
+            if (node.resource == null) return false;
+
+            String canonical = canonical(segments(path));
+            node.resource = null;
+            adjustCounts(trail, -1);
+            prune(trail);
+            sorted.remove(canonical);
+            if (watchers.hasSubscribers()) {
+                watchers.publish(NamingWatchHub.Event.Type.REMOVED, canonical, null);
+            }
         }
-        return false;
+        SimLog.debug("Structured naming: Removed '{}'", path);
+        return true;
+    }
+
+    /**
+     * Remove every resource at or below a path; returns how many were removed
+     */
+    public int removeSubtree(String path) {
+        if (!isValidPath(path)) return 0;
+
+        int removed;
+        synchronized (root) {
+            List<PathNode> trail = trail(path);
+            if (trail == null) return 0;
+            PathNode node = trail.get(trail.size() - 1);
+            removed = node.count;
+            if (removed == 0) return 0;
+
+            String canonical = canonical(segments(path));
+            publishRemovals(node, canonical);
+            sorted.removeUnder(rangeKey(canonical));
+            node.children.clear();
+            node.resource = null;
+            adjustCounts(trail, -removed);
+            prune(trail);
+        }
+        if (SimLog.isEnabled(SimLog.Level.DEBUG)) {
+            SimLog.debug("Structured naming: Removed {} entries under '{}'", removed, path);
+        }
+        return removed;
+    }
+
+    /**
+     * Watch one path; the listener receives batches of its registrations and removals
+     */
+    public NamingWatchHub.Subscription watch(String path, Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.EXACT, canonical(segments(path)), listener);
+    }
+
+    /**
+     * Watch a path and everything below it; "/" watches the whole namespace
+     */
+    public NamingWatchHub.Subscription watchPrefix(String path, Consumer<List<NamingWatchHub.Event>> listener) {
+        return watchers.subscribe(NamingWatchHub.Scope.PREFIX, canonical(segments(path)), listener);
+    }
+
+    public NamingWatchHub getWatchHub() {
+        return watchers;
+    }
+
+    /**
+     * Publish a removal for every resource at or below a node (under the trie lock)
+     */
+    private void publishRemovals(PathNode node, String path) {
+        if (!watchers.hasSubscribers()) return;
+        collect(node, "/".equals(path) ? "" : path,
+                (removedPath, resource) -> watchers.publish(NamingWatchHub.Event.Type.REMOVED, removedPath, null));
     }
 
     /**
@@ -65,26 +223,69 @@ public class StructuredNamingService {
             return new ArrayList<>();
         }
 
-        List<String> children = new ArrayList<>();
-        String prefix = parentPath.toLowerCase();
-        if (!prefix.endsWith("/")) {
-            prefix += "/";
+        PathNode parent = find(parentPath);
+        if (parent == null) {
+            return new ArrayList<>();
         }
+        return new ArrayList<>(parent.children.keySet());
+    }
 
-        for (String path : pathToResource.keySet()) {
-            if (path.startsWith(prefix) && !path.equals(parentPath.toLowerCase())) {
-                // Find immediate children only
-                String relativePath = path.substring(prefix.length());
-                int slashIndex = relativePath.indexOf('/');
-                String childName = slashIndex == -1 ? relativePath : relativePath.substring(0, slashIndex);
-                
-                if (!children.contains(childName)) {
-                    children.add(childName);
-                }
-            }
+    /**
+     * One page of the resources at or below a path, in path order
+     * @param cursor getNextCursor() of the previous page, or null for the first page
+     */
+    public NamingPage listUnder(String prefix, String cursor, int limit) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            if (!isValidPath(prefix)) return NamingPage.take(Collections.emptyIterator(), limit, PATH_VIEW);
+            return NamingPage.take(sorted.under(rangeKey(canonical(segments(prefix))), cursor), limit, PATH_VIEW);
+        } finally {
+            ResourceAccounting.exit(accounted);
         }
+    }
 
-        return children;
+    /**
+     * Every resource at or below a path, in path order, read lazily as the stream is consumed
+     */
+    public Stream<Map.Entry<String, String>> streamUnder(String prefix) {
+        if (!isValidPath(prefix)) return Stream.empty();
+        return NamingPage.stream(sorted.under(rangeKey(canonical(segments(prefix))), null), PATH_VIEW);
+    }
+
+    /**
+     * One page of the paths matching a glob such as "/services/web-*" or "/apps/**", in path order
+     * '*' matches within one segment, "**" across segments
+     */
+    public NamingPage glob(String pattern, String cursor, int limit) {
+        boolean accounted = ResourceAccounting.enter(ResourceAccounting.Subsystem.NAMING);
+        try {
+            return NamingPage.take(sorted.glob(pattern.toLowerCase(), cursor), limit, PATH_VIEW);
+        } finally {
+            ResourceAccounting.exit(accounted);
+        }
+    }
+
+    public Stream<Map.Entry<String, String>> streamGlob(String pattern) {
+        return NamingPage.stream(sorted.glob(pattern.toLowerCase(), null), PATH_VIEW);
+    }
+
+    private static final Function<Map.Entry<String, Resource>, Map.Entry<String, String>> PATH_VIEW =
+            entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().getLocation());
+
+    /**
+     * Key of a canonical path's range in the sorted index; the root's range is everything
+     */
+    private static String rangeKey(String canonical) {
+        return "/".equals(canonical) ? "" : canonical;
+    }
+
+    /**
+     * Number of resources at or below a path
+     */
+    public int countUnder(String path) {
+        if (!isValidPath(path)) return 0;
+        PathNode node = find(path);
+        return node == null ? 0 : node.count;
     }
 
     /**
@@ -94,32 +295,127 @@ public class StructuredNamingService {
         return path != null && path.startsWith("/");
     }
 
+    /**
+     * Lowercased non-empty segments of a path
+     */
+    private static List<String> segments(String path) {
+        String lower = path.toLowerCase();
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        while (start < lower.length()) {
+            int slash = lower.indexOf('/', start);
+            int end = slash == -1 ? lower.length() : slash;
+            if (end > start) {
+                result.add(lower.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Canonical spelling of a path: "/" followed by its segments, or "/" for the root
+     */
+    private static String canonical(List<String> segments) {
+        return segments.isEmpty() ? "/" : "/" + String.join("/", segments);
+    }
+
+    /**
+     * Walk to the node for a path without creating anything or copying the path
+     */
+    private PathNode find(CharSequence path) {
+        PathNode node = root;
+        int length = path.length();
+        int start = 0;
+        while (node != null && start < length) {
+            int end = start;
+            while (end < length && path.charAt(end) != '/') end++;
+            if (end > start) {
+                node = node.children.get(path, start, end);
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Nodes from the root to a path, or null if the path is not in the trie
+     */
+    private List<PathNode> trail(String path) {
+        List<PathNode> trail = new ArrayList<>();
+        PathNode node = root;
+        trail.add(node);
+        for (String segment : segments(path)) {
+            node = node.children.get(segment);
+            if (node == null) return null;
+            trail.add(node);
+        }
+        return trail;
+    }
+
+    private static void adjustCounts(List<PathNode> trail, int delta) {
+        for (PathNode node : trail) {
+            node.count += delta;
+        }
+    }
+
+    /**
+     * Drop nodes that no longer lead to any resource, deepest first
+     */
+    private static void prune(List<PathNode> trail) {
+        for (int i = trail.size() - 1; i > 0; i--) {
+            PathNode node = trail.get(i);
+            if (node.count > 0) break;
+            trail.get(i - 1).children.remove(node.segment);
+        }
+    }
+
     /**
      * Get all registered paths
      */
     public Set<String> getAllPaths() {
-        return new HashSet<>(pathToResource.keySet());
+        Set<String> paths = new HashSet<>();
+        collect(root, "", (path, resource) -> paths.add(path));
+        return paths;
+    }
+
+    private static void collect(PathNode node, String path, java.util.function.BiConsumer<String, Resource> visitor) {
+        Resource resource = node.resource;
+        if (resource != null) {
+            visitor.accept(path.isEmpty() ? "/" : path, resource);
+        }
+        for (PathNode child : node.children.values()) {
+            collect(child, path + "/" + child.segment, visitor);
+        }
     }
 
     /**
      * Get the number of entries
      */
     public int size() {
-        return pathToResource.size();
+        return root.count;
     }
 
     /**
      * Check if a path exists
      */
     public boolean contains(String path) {
-        return pathToResource.containsKey(path.toLowerCase());
+        if (!isValidPath(path)) return false;
+        PathNode node = find(path);
+        return node != null && node.resource != null;
     }
 
     /**
      * Clear all entries
      */
     public void clear() {
-        pathToResource.clear();
+        synchronized (root) {
+            publishRemovals(root, "/");
+            sorted.clear();
+            root.children.clear();
+            root.resource = null;
+            root.count = 0;
+        }
     }
 
     /**
@@ -127,14 +423,37 @@ public class StructuredNamingService {
      */
     public void printAll() {
         System.out.println("Structured Naming Service entries:");
-        List<String> sortedPaths = new ArrayList<>(pathToResource.keySet());
-        Collections.sort(sortedPaths);
-        
-        for (String path : sortedPaths) {
-            Resource resource = pathToResource.get(path);
-            int depth = path.split("/").length - 1;
-            String indent = "  ".repeat(depth);
-            System.out.println(indent + path + " -> " + resource.getLocation());
+        printTree(root, "", 0);
+    }
+
+    private void printTree(PathNode node, String path, int depth) {
+        Resource resource = node.resource;
+        if (resource != null) {
+            System.out.println("  ".repeat(depth) + (path.isEmpty() ? "/" : path) + " -> " + resource.getLocation());
+        }
+        List<String> names = new ArrayList<>(node.children.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            PathNode child = node.children.get(name);
+            if (child != null) {
+                printTree(child, path + "/" + name, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * One path segment: its children, the resource registered at it (if any)
+     * and how many resources its subtree holds
+     */
+    private static class PathNode {
+        final String segment;
+        final CaseInsensitiveIndex<PathNode> children;
+        volatile Resource resource;
+        volatile int count; // Written only under the trie lock
+
+        PathNode(String segment) {
+            this.segment = segment;
+            this.children = new CaseInsensitiveIndex<>(1);
         }
     }
-} 
\ No newline at end of file
+}
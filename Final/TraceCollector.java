@@ -0,0 +1,402 @@
+package Final;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects causal traces of write operations from submit to the last replica apply
+ *
+ * A sampled write gets a trace id and a root span when a node submits it.
+ * Spans for the request to the coordinator, sequencing, waiting in the
+ * broadcast queue, network delivery and apply on every node hang off it
+ * through their parent ids. A trace completes when every expected node has
+ * applied the operation; its replication completion time is the moment the
+ * last node first applied it, and its critical path is the chain of spans
+ * that led to that apply.
+ *
+ * Memory is bounded: at most maxActive traces wait for completion (the
+ * oldest is retired as incomplete, e.g. when a node is partitioned away)
+ * and only the last maxRetained finished traces are kept. A finished trace
+ * is cut loose from the operation that carried it, so the coordinator's
+ * log does not keep every sampled trace reachable.
+ */
+public class TraceCollector {
+    // Span names
+    public static final String SUBMIT = "submit";
+    public static final String REQUEST = "network.request";
+    public static final String SEQUENCE = "sequence";
+    public static final String QUEUE = "queue";
+    public static final String DELIVER = "network.deliver";
+    public static final String SYNC = "network.sync";
+    public static final String APPLY = "apply";
+
+    private final Collection<String> expectedNodes;
+    private final double sampleRate;
+    private final int maxActive;
+    private final int maxRetained;
+    private final AtomicLong ids;
+    private final long epochNanos;
+
+    private final LinkedHashMap<Long, OperationTrace> active; // Oldest first, guarded by itself
+    private final Deque<OperationTrace> finished;
+
+    /**
+     * @param expectedNodes nodes that must apply an operation for its trace to complete (may be a live view)
+     * @param sampleRate fraction of writes to trace, 0..1
+     */
+    public TraceCollector(Collection<String> expectedNodes, double sampleRate) {
+        this(expectedNodes, sampleRate, 10_000, 1_000);
+    }
+
+    public TraceCollector(Collection<String> expectedNodes, double sampleRate, int maxActive, int maxRetained) {
+        this.expectedNodes = expectedNodes;
+        this.sampleRate = sampleRate;
+        this.maxActive = maxActive;
+        this.maxRetained = maxRetained;
+        this.ids = new AtomicLong();
+        this.epochNanos = System.nanoTime();
+        this.active = new LinkedHashMap<>();
+        this.finished = new ArrayDeque<>();
+    }
+
+    /**
+     * Decide whether to trace the next write
+     */
+    public boolean shouldSample() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Open a trace for a write submitted by a node; the returned root span
+     * stays open until endTrace
+     */
+    public Context beginTrace(String node, long startNanos) {
+        long traceId = ids.incrementAndGet();
+        long rootSpanId = ids.incrementAndGet();
+        OperationTrace trace = new OperationTrace(traceId, node, startNanos);
+        OperationTrace oldest = null;
+        synchronized (active) {
+            active.put(traceId, trace);
+            if (active.size() > maxActive) {
+                Iterator<OperationTrace> it = active.values().iterator();
+                oldest = it.next();
+                it.remove();
+            }
+        }
+        if (oldest != null) {
+            finish(oldest);
+        }
+        return new Context(trace, rootSpanId, 0, startNanos);
+    }
+
+    /**
+     * Note the operation carrying a span of its trace, so the span can be
+     * dropped from it once the trace is finished
+     */
+    void carriedBy(Context span, Operation operation) {
+        OperationTrace trace = span.trace;
+        trace.carrier = operation;
+        if (trace.retired) {
+            operation.clearTrace(); // Finished before we got here
+        }
+    }
+
+    /**
+     * Open a span caused by the given one
+     */
+    public Context child(Context parent, long startNanos) {
+        return new Context(parent.trace, ids.incrementAndGet(), parent.spanId, startNanos);
+    }
+
+    /**
+     * Close a span and add it to its trace; ignored once the trace is retired
+     */
+    public void end(Context span, String name, String node, long endNanos) {
+        OperationTrace trace = span.trace;
+        if (trace.retired) return;
+        Span closed = new Span(span.spanId, span.parentId, name, node, span.startNanos, endNanos);
+        trace.add(closed);
+        if (APPLY.equals(name) && trace.markApplied(node, closed) && trace.appliedEverywhere(expectedNodes)) {
+            retire(trace);
+        }
+    }
+
+    /**
+     * Record the network transfer that delivered a traced operation to a node
+     * Returns the span its apply hangs off, or null if the operation is untraced
+     */
+    public Context transfer(Operation op, String name, String node, long startNanos, long endNanos) {
+        Context trace = op.getTrace();
+        if (trace == null) return null;
+        // A broadcast follows the queue; a catch-up sync is caused by the sequenced write itself
+        Context cause = SYNC.equals(name) ? trace.parent() : trace;
+        Context transfer = child(cause, startNanos);
+        end(transfer, name, node, endNanos);
+        return transfer;
+    }
+
+    /**
+     * Close the root span once the submitting client has its answer
+     * Replication may already have completed by then, so this is kept even for retired traces
+     */
+    public void endTrace(Context root, int sequence, String key, long endNanos) {
+        OperationTrace trace = root.trace;
+        trace.sequence = sequence;
+        trace.key = key;
+        trace.add(new Span(root.spanId, 0, SUBMIT, trace.origin, root.startNanos, endNanos));
+    }
+
+    private void retire(OperationTrace trace) {
+        synchronized (active) {
+            if (active.remove(trace.traceId) == null) return;
+        }
+        finish(trace);
+    }
+
+    private void finish(OperationTrace trace) {
+        trace.retired = true;
+        Operation carrier = trace.carrier;
+        if (carrier != null) {
+            carrier.clearTrace();
+            trace.carrier = null;
+        }
+        synchronized (finished) {
+            finished.addLast(trace);
+            while (finished.size() > maxRetained) {
+                finished.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Finished traces, oldest first
+     */
+    public List<OperationTrace> getFinishedTraces() {
+        synchronized (finished) {
+            return new ArrayList<>(finished);
+        }
+    }
+
+    public int getActiveCount() {
+        synchronized (active) {
+            return active.size();
+        }
+    }
+
+    /**
+     * Write retained traces (finished and in flight) as Chrome trace-event JSON,
+     * viewable in chrome://tracing or ui.perfetto.dev
+     * Each operation is a process row and each node a thread row
+     */
+    public void exportChromeTrace(File file) throws IOException {
+        List<OperationTrace> traces = getFinishedTraces();
+        synchronized (active) {
+            traces.addAll(active.values());
+        }
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            for (OperationTrace trace : traces) {
+                List<Span> critical = trace.getCriticalPath();
+                String process = "seq " + trace.sequence + " " + trace.key + (trace.isComplete() ? "" : " (incomplete)");
+                first = writeEvent(out, first, String.format(
+                    "{\"ph\":\"M\",\"name\":\"process_name\",\"pid\":%d,\"args\":{\"name\":\"%s\"}}",
+                    trace.traceId, jsonEscape(process)));
+                for (Span span : trace.getSpans()) {
+                    first = writeEvent(out, first, String.format(Locale.ROOT,
+                        "{\"ph\":\"X\",\"name\":\"%s\",\"pid\":%d,\"tid\":\"%s\",\"ts\":%.3f,\"dur\":%.3f,"
+                        + "\"args\":{\"spanId\":%d,\"parentId\":%d,\"critical\":%b}}",
+                        span.name, trace.traceId, jsonEscape(span.node),
+                        (span.startNanos - epochNanos) / 1000.0, span.getDurationNanos() / 1000.0,
+                        span.spanId, span.parentId, critical.contains(span)));
+                }
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    private static boolean writeEvent(Writer out, boolean first, String event) throws IOException {
+        if (!first) out.write(",\n");
+        out.write(event);
+        return false;
+    }
+
+    private static String jsonEscape(String s) {
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * An open span of a traced operation, carried on Operations through the pipeline
+     */
+    public static class Context {
+        private final OperationTrace trace;
+        private final long spanId;
+        private final long parentId;
+        private final long startNanos;
+
+        Context(OperationTrace trace, long spanId, long parentId, long startNanos) {
+            this.trace = trace;
+            this.spanId = spanId;
+            this.parentId = parentId;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Handle on this span's parent, for work caused by the parent rather than by this span
+         */
+        public Context parent() {
+            return new Context(trace, parentId, 0, startNanos);
+        }
+
+        public long getTraceId() { return trace.traceId; }
+        public long getSpanId() { return spanId; }
+        public long getParentId() { return parentId; }
+        public long getStartNanos() { return startNanos; }
+    }
+
+    /**
+     * One timed step of an operation
+     */
+    public static class Span {
+        private final long spanId;
+        private final long parentId;
+        private final String name;
+        private final String node;
+        private final long startNanos;
+        private final long endNanos;
+
+        Span(long spanId, long parentId, String name, String node, long startNanos, long endNanos) {
+            this.spanId = spanId;
+            this.parentId = parentId;
+            this.name = name;
+            this.node = node;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+
+        public long getSpanId() { return spanId; }
+        public long getParentId() { return parentId; }
+        public String getName() { return name; }
+        public String getNode() { return node; }
+        public long getStartNanos() { return startNanos; }
+        public long getEndNanos() { return endNanos; }
+        public long getDurationNanos() { return endNanos - startNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%s@%s %.3fms", name, node, getDurationNanos() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * All spans of one traced operation
+     */
+    public static class OperationTrace {
+        private final long traceId;
+        private final String origin;
+        private final long startNanos;
+        private final List<Span> spans;
+        private final Map<String, Span> firstApply;
+        private volatile int sequence;
+        private volatile String key;
+        private volatile boolean complete;
+        private volatile boolean retired;
+        private volatile Operation carrier; // Until the trace is finished
+
+        OperationTrace(long traceId, String origin, long startNanos) {
+            this.traceId = traceId;
+            this.origin = origin;
+            this.startNanos = startNanos;
+            this.spans = new ArrayList<>();
+            this.firstApply = new HashMap<>();
+        }
+
+        synchronized void add(Span span) {
+            spans.add(span);
+        }
+
+        /**
+         * Remember the first apply on a node; true if this was it
+         */
+        synchronized boolean markApplied(String node, Span apply) {
+            return firstApply.putIfAbsent(node, apply) == null;
+        }
+
+        synchronized boolean appliedEverywhere(Collection<String> nodes) {
+            complete = firstApply.keySet().containsAll(nodes);
+            return complete;
+        }
+
+        public long getTraceId() { return traceId; }
+        public String getOrigin() { return origin; }
+        public int getSequence() { return sequence; }
+        public String getKey() { return key; }
+        public boolean isComplete() { return complete; }
+
+        public synchronized List<Span> getSpans() {
+            List<Span> sorted = new ArrayList<>(spans);
+            sorted.sort(Comparator.comparingLong(Span::getStartNanos));
+            return sorted;
+        }
+
+        /**
+         * Nodes that have applied the operation, mapped to how long after submit they first did
+         */
+        public synchronized Map<String, Long> getVisibilityNanos() {
+            Map<String, Long> result = new TreeMap<>();
+            for (Map.Entry<String, Span> entry : firstApply.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().endNanos - startNanos);
+            }
+            return result;
+        }
+
+        /**
+         * Time from submit until the last node first applied the operation, or -1 if incomplete
+         */
+        public synchronized long getReplicationCompletionNanos() {
+            if (!complete) return -1;
+            return lastApply().endNanos - startNanos;
+        }
+
+        /**
+         * Spans leading to the last first-apply, root first; the steps that decided
+         * how long the operation took to become visible everywhere
+         */
+        public synchronized List<Span> getCriticalPath() {
+            Span last = lastApply();
+            if (last == null) return Collections.emptyList();
+
+            Map<Long, Span> byId = new HashMap<>();
+            for (Span span : spans) {
+                byId.put(span.spanId, span);
+            }
+            LinkedList<Span> path = new LinkedList<>();
+            for (Span span = last; span != null; span = span.parentId == 0 ? null : byId.get(span.parentId)) {
+                path.addFirst(span);
+            }
+            return path;
+        }
+
+        private Span lastApply() {
+            Span last = null;
+            for (Span apply : firstApply.values()) {
+                if (last == null || apply.endNanos > last.endNanos) last = apply;
+            }
+            return last;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Trace %d seq=%d key=%s from %s: ", traceId, sequence, key, origin));
+            long completion = getReplicationCompletionNanos();
+            sb.append(completion < 0 ? "incomplete" : String.format("visible everywhere after %.3fms", completion / 1_000_000.0));
+            sb.append(", critical path ").append(getCriticalPath());
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package Final;
+
+/**
+ * A single client operation captured in a workload trace
+ * Issue time is relative to the start of the recording, in nanoseconds
+ */
+public class TraceRecord {
+    private final long issueNanos;
+    private final String nodeId;
+    private final String type;
+    private final String key;
+    private final int valueSize; // -1 when the operation carried no value
+
+    public TraceRecord(long issueNanos, String nodeId, String type, String key, int valueSize) {
+        this.issueNanos = issueNanos;
+        this.nodeId = nodeId;
+        this.type = type;
+        this.key = key;
+        this.valueSize = valueSize;
+    }
+
+    // Getters
+    public long getIssueNanos() { return issueNanos; }
+    public String getNodeId() { return nodeId; }
+    public String getType() { return type; }
+    public String getKey() { return key; }
+    public int getValueSize() { return valueSize; }
+
+    @Override
+    public String toString() {
+        return String.format("Trace[t=%.3fms, node=%s, type=%s, key=%s, valueSize=%d]",
+                           issueNanos / 1_000_000.0, nodeId, type, key, valueSize);
+    }
+}
@@ -0,0 +1,133 @@
+package Final;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded workload trace against a simulator
+ *
+ * Records are streamed from disk and handed to one worker per node, so
+ * operations from the same node keep their order while nodes run
+ * concurrently as they did when recorded. Each worker has a bounded queue;
+ * when it is full the reader blocks, keeping memory flat for any trace size.
+ */
+public class TraceReplayer {
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+    private static final int NODE_QUEUE_CAPACITY = 1024;
+
+    private final DistributedSystemSimulator simulator;
+    private final double speed;
+    private final Map<String, ExecutorService> nodeWorkers;
+    private final Map<Integer, String> valueCache;
+
+    private long replayedRecords;
+    private long maxLagNanos;
+
+    /**
+     * @param speed 1.0 for real time, N for N times faster, AS_FAST_AS_POSSIBLE to ignore timing
+     */
+    public TraceReplayer(DistributedSystemSimulator simulator, double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Replay speed must be positive or 0 (as fast as possible): " + speed);
+        }
+        this.simulator = simulator;
+        this.speed = speed;
+        this.nodeWorkers = new HashMap<>();
+        this.valueCache = new HashMap<>();
+    }
+
+    /**
+     * Replay every record in the trace and wait for all nodes to finish
+     */
+    public void replay(File traceFile) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+
+        try (WorkloadTraceReader reader = new WorkloadTraceReader(traceFile)) {
+            TraceRecord record;
+            while ((record = reader.next()) != null) {
+                if (speed != AS_FAST_AS_POSSIBLE) {
+                    waitUntil(startNanos + (long) (record.getIssueNanos() / speed));
+                }
+                dispatch(record);
+                replayedRecords++;
+            }
+        } finally {
+            for (ExecutorService worker : nodeWorkers.values()) {
+                worker.shutdown();
+            }
+            for (ExecutorService worker : nodeWorkers.values()) {
+                worker.awaitTermination(1, TimeUnit.HOURS);
+            }
+        }
+    }
+
+    private void waitUntil(long targetNanos) {
+        long remaining;
+        while ((remaining = targetNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+        maxLagNanos = Math.max(maxLagNanos, -remaining);
+    }
+
+    private void dispatch(TraceRecord record) {
+        String value = record.getValueSize() < 0 ? null : valueOfSize(record.getValueSize());
+        ExecutorService worker = nodeWorkers.computeIfAbsent(record.getNodeId(), id -> newNodeWorker());
+        worker.execute(() -> simulator.performOperation(record.getNodeId(), record.getType(), record.getKey(), value));
+    }
+
+    private ExecutorService newNodeWorker() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(NODE_QUEUE_CAPACITY),
+            (task, executor) -> {
+                try {
+                    executor.getQueue().put(task); // Back-pressure the reader instead of dropping
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while queueing replay", e);
+                }
+            });
+    }
+
+    private String valueOfSize(int size) {
+        return valueCache.computeIfAbsent(size, n -> "v".repeat(n));
+    }
+
+    public long getReplayedRecords() { return replayedRecords; }
+
+    /**
+     * Largest amount by which a record was issued later than its scheduled time
+     */
+    public double getMaxScheduleLagMillis() { return maxLagNanos / 1_000_000.0; }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java Final.TraceReplayer <trace-file> [speed|max]");
+            System.out.println("  speed: 1 = real time (default), N = N times faster, max = as fast as possible");
+            return;
+        }
+
+        double speed = 1.0;
+        if (args.length > 1) {
+            speed = args[1].equalsIgnoreCase("max") ? AS_FAST_AS_POSSIBLE : Double.parseDouble(args[1]);
+        }
+
+        DistributedSystemSimulator simulator = new DistributedSystemSimulator();
+        simulator.startServices();
+        TraceReplayer replayer = new TraceReplayer(simulator, speed);
+
+        long start = System.currentTimeMillis();
+        try {
+            replayer.replay(new File(args[0]));
+        } finally {
+            simulator.stopSimulation();
+        }
+
+        System.out.println("Replayed " + replayer.getReplayedRecords() + " operations in "
+                         + (System.currentTimeMillis() - start) + "ms (max schedule lag "
+                         + String.format("%.2f", replayer.getMaxScheduleLagMillis()) + "ms)");
+    }
+}
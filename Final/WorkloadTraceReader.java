@@ -0,0 +1,110 @@
+package Final;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for traces written by WorkloadTraceWriter
+ * Holds only the node table in memory, so traces of any size can be replayed
+ */
+public class WorkloadTraceReader implements Closeable {
+    private final DataInputStream in;
+    private final List<String> nodeTable;
+    private final long recordedAtMillis;
+    private long issueNanos;
+
+    public WorkloadTraceReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        this.nodeTable = new ArrayList<>();
+
+        try {
+            if (in.readInt() != WorkloadTraceWriter.MAGIC) {
+                throw new IOException("Not a workload trace: " + file);
+            }
+            int version = in.readUnsignedShort();
+            if (version != WorkloadTraceWriter.VERSION) {
+                throw new IOException("Unsupported trace version " + version + " in " + file);
+            }
+            this.recordedAtMillis = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the next record
+     * Returns null at the end of the trace
+     */
+    public TraceRecord next() throws IOException {
+        long delta;
+        try {
+            delta = readVarLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        issueNanos += delta;
+
+        int index = (int) readVarLong();
+        String nodeId;
+        if (index == nodeTable.size()) {
+            nodeId = in.readUTF();
+            nodeTable.add(nodeId);
+        } else if (index < nodeTable.size()) {
+            nodeId = nodeTable.get(index);
+        } else {
+            throw new IOException("Corrupt trace: unknown node index " + index);
+        }
+
+        int typeCode = in.readUnsignedByte();
+        String type;
+        if (typeCode == WorkloadTraceWriter.OTHER_TYPE) {
+            type = in.readUTF();
+        } else if (typeCode < WorkloadTraceWriter.TYPES.length) {
+            type = WorkloadTraceWriter.TYPES[typeCode];
+        } else {
+            throw new IOException("Corrupt trace: unknown operation code " + typeCode);
+        }
+
+        String key = in.readUTF();
+        int valueSize = (int) readVarLong() - 1;
+        return new TraceRecord(issueNanos, nodeId, type, key, valueSize);
+    }
+
+    /**
+     * Wall-clock time at which the trace was recorded
+     */
+    public long getRecordedAtMillis() {
+        return recordedAtMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = shift == 0 ? in.readUnsignedByte() : readContinuationByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("Corrupt trace: varint too long");
+            }
+        }
+    }
+
+    private int readContinuationByte() throws IOException {
+        try {
+            return in.readUnsignedByte();
+        } catch (EOFException e) {
+            throw new IOException("Corrupt trace: truncated record", e);
+        }
+    }
+}
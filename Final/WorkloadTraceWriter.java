@@ -0,0 +1,105 @@
+package Final;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records client operations to a compact binary trace file
+ *
+ * Layout: a header (magic, version, wall-clock start) followed by one
+ * record per operation. Records store the issue time as a varint delta from
+ * the previous record, the node as an index into a table that is defined
+ * inline the first time a node appears, and the operation type as one byte.
+ */
+public class WorkloadTraceWriter implements Closeable {
+    static final int MAGIC = 0x44535452; // "DSTR"
+    static final int VERSION = 1;
+    static final String[] TYPES = {"PUT", "GET", "DELETE", "DEPOSIT", "WITHDRAW"};
+    static final int OTHER_TYPE = 0xFF;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> nodeIndex;
+    private final long startNanos;
+    private long lastIssueNanos;
+    private long recordCount;
+    private boolean failed;
+
+    public WorkloadTraceWriter(File file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        this.nodeIndex = new HashMap<>();
+        this.startNanos = System.nanoTime();
+        this.lastIssueNanos = 0;
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Append one operation to the trace
+     * Safe to call from every node thread; the issue time is taken under the lock
+     * so deltas are never negative
+     */
+    public synchronized void record(String nodeId, String type, String key, String value) {
+        if (failed) return;
+
+        try {
+            long issueNanos = System.nanoTime() - startNanos;
+            writeVarLong(issueNanos - lastIssueNanos);
+            lastIssueNanos = issueNanos;
+
+            Integer index = nodeIndex.get(nodeId);
+            if (index == null) {
+                index = nodeIndex.size();
+                nodeIndex.put(nodeId, index);
+                writeVarLong(index);
+                out.writeUTF(nodeId);
+            } else {
+                writeVarLong(index);
+            }
+
+            int typeCode = typeCode(type);
+            out.writeByte(typeCode);
+            if (typeCode == OTHER_TYPE) {
+                out.writeUTF(type);
+            }
+
+            out.writeUTF(key == null ? "" : key);
+            writeVarLong(value == null ? 0 : value.length() + 1L);
+            recordCount++;
+        } catch (IOException e) {
+            failed = true;
+            SimLog.warn("Trace: Recording stopped after write failure: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of records written so far
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static int typeCode(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equalsIgnoreCase(type)) {
+                return i;
+            }
+        }
+        return OTHER_TYPE;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
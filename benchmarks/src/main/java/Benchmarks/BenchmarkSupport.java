@@ -0,0 +1,19 @@
+package Benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Shared helpers for the benchmark suite
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {}
+
+    /**
+     * Discard console output so println-heavy code paths measure their own work
+     * rather than the terminal; benchmarks that study logging cost opt out
+     */
+    static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,70 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock contention pattern from ShinpleThreadDemo.SimpleThreadDemo
+ *
+ * The demo's deposit, withdraw and audit services sleep for hundreds of
+ * milliseconds inside their loops, so they cannot be measured directly.
+ * This reproduces the same critical sections (read-modify-write under a
+ * shared monitor, guarded withdraw, unsynchronized audit read) without the
+ * sleeps, running all three roles concurrently as one group.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ContentionBenchmark {
+    private final Object lock = new Object();
+    private int resource = 100;
+
+    @Benchmark
+    @Group("bank")
+    @GroupThreads(1)
+    public int deposit() {
+        synchronized (lock) {
+            resource += 10;
+            return resource;
+        }
+    }
+
+    @Benchmark
+    @Group("bank")
+    @GroupThreads(1)
+    public boolean withdraw() {
+        synchronized (lock) {
+            if (resource >= 6) {
+                resource -= 6;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("bank")
+    @GroupThreads(1)
+    public void audit(Blackhole blackhole) {
+        blackhole.consume(resource);
+    }
+
+    @Benchmark
+    @Group("bankHeavy")
+    @GroupThreads(3)
+    public int depositHeavy() {
+        return deposit();
+    }
+
+    @Benchmark
+    @Group("bankHeavy")
+    @GroupThreads(3)
+    public boolean withdrawHeavy() {
+        return withdraw();
+    }
+}
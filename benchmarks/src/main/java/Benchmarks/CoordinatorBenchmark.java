@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import Final.CentralCoordinator;
+import Final.Operation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of sequencing an operation and of reading the log tail for catch-up
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoordinatorBenchmark {
+
+    @Param({"1000", "100000"})
+    public int logSize;
+
+    /** How many operations behind the head the reader is */
+    @Param({"10", "1000"})
+    public int behind;
+
+    private CentralCoordinator coordinator;
+    private int readFrom;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        BenchmarkSupport.silenceStdout();
+    }
+
+    @Setup(Level.Iteration)
+    public void fillLog() {
+        coordinator = new CentralCoordinator();
+        for (int i = 0; i < logSize; i++) {
+            coordinator.submitOperation("PUT", "key" + (i % 100), "value" + i, "bench");
+        }
+        coordinator.getPendingOperations();
+        readFrom = Math.max(0, logSize - behind);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Operation submitOperation() {
+        return coordinator.submitOperation("PUT", "key", "value", "bench");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Operation submitOperationContended() {
+        return coordinator.submitOperation("PUT", "key", "value", "bench");
+    }
+
+    @Benchmark
+    public List<Operation> getOperationsSince() {
+        return coordinator.getOperationsSince(readFrom);
+    }
+}
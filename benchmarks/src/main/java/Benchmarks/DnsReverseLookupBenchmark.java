@@ -0,0 +1,72 @@
+package Benchmarks;
+
+import Final.DNSSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reverse (IP to domain) lookups against a large DNS table, where each
+ * host serves several domains
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class DnsReverseLookupBenchmark {
+
+    @Param({"1000000"})
+    public int records;
+
+    /** Domains registered on each IP address */
+    @Param({"8"})
+    public int domainsPerHost;
+
+    private DNSSimulator dns;
+    private String hostIp;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        dns = new DNSSimulator();
+        for (int i = 0; i < records; i++) {
+            dns.register("service-" + i + ".example.com", ip(i / domainsPerHost));
+        }
+        hostIp = ip(records / domainsPerHost / 2);
+    }
+
+    private static String ip(int host) {
+        return "10." + (host >> 16 & 255) + "." + (host >> 8 & 255) + "." + (host & 255);
+    }
+
+    @Benchmark
+    public Optional<String> reverseHit() {
+        return dns.reverseLookup(hostIp);
+    }
+
+    @Benchmark
+    public Optional<String> reverseMiss() {
+        return dns.reverseLookup("172.16.0.1");
+    }
+
+    @Benchmark
+    public Set<String> reverseAllOnHost() {
+        return dns.reverseLookupAll(hostIp);
+    }
+
+    /**
+     * Move a domain to another host and back, keeping the index in step
+     */
+    @Benchmark
+    public void reassign() {
+        int i = next++ % records;
+        String domain = "service-" + i + ".example.com";
+        dns.register(domain, "192.168.0.1");
+        dns.register(domain, ip(i / domainsPerHost));
+    }
+}
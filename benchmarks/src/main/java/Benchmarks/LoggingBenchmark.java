@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import Final.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client operation throughput with synchronous, asynchronous and disabled logging
+ *
+ * Each invocation is a node GET plus a flat naming lookup, both of which log
+ * a DEBUG line. SYNC formats and prints on the caller like the old println
+ * calls, ASYNC formats on the caller and hands the finished line to
+ * SimLog's ring buffer, and DISABLED filters it out at the level check. Run
+ * with several threads to see stdout lock contention. ASYNC waits for the
+ * writer when the ring is full rather than dropping lines, so every
+ * completed operation really was logged.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    @Param({"SYNC", "ASYNC", "DISABLED"})
+    public String logging;
+
+    private ServiceNode node;
+    private FlatNamingService flat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        SimLog.setSynchronous("SYNC".equals(logging));
+        SimLog.setBlockWhenFull(true);
+        SimLog.setLevel("DISABLED".equals(logging) ? SimLog.Level.INFO : SimLog.Level.DEBUG);
+
+        CentralCoordinator coordinator = new CentralCoordinator();
+        flat = new FlatNamingService();
+        node = new ServiceNode("BenchNode", coordinator, flat,
+                               new StructuredNamingService(), new DNSSimulator());
+        node.applyOperation(coordinator.submitOperation("PUT", "key1", "value1", "bench"));
+        flat.register("bench-service", new Resource("bench-service", "BenchNode"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SimLog.flush();
+        SimLog.setSynchronous(false);
+        SimLog.setBlockWhenFull(!Boolean.getBoolean("dcs.log.drop.when.full"));
+        SimLog.setLevel(SimLog.Level.INFO);
+    }
+
+    @Benchmark
+    public Object getAndLookup() {
+        node.performOperation("GET", "key1", null);
+        return flat.lookup("bench-service");
+    }
+}
@@ -0,0 +1,180 @@
+package Benchmarks;
+
+import Final.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit and miss lookups on the flat, structured and DNS naming services,
+ * listing one directory of the structured namespace, and resolving a
+ * batch of 100 names with lookupAll against a loop of single lookups
+ * dnsRecordSetFast picks one of 8 addresses behind a name, with a health
+ * check that reports a quarter of them down, on a server of its own
+ *
+ * The *Fast benchmarks use the lookupOrNull hot path with mixed-case names;
+ * run them with -prof gc to check gc.alloc.rate.norm is 0 bytes per lookup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamingLookupBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"100", "100000"})
+    public int entries;
+
+    private FlatNamingService flat;
+    private StructuredNamingService structured;
+    private DNSSimulator dns;
+    private DNSSimulator pool; // Own server, so its health check never touches the other DNS benchmarks
+    private String flatName;
+    private String path;
+    private String domain;
+    private List<String> batchNames;
+    private List<String> batchPaths;
+    private List<String> batchDomains;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        flat = new FlatNamingService();
+        structured = new StructuredNamingService();
+        dns = new DNSSimulator();
+        for (int i = 0; i < entries; i++) {
+            Resource resource = new Resource("svc" + i, "Node" + (i % 3));
+            flat.register("Service-" + i, resource);
+            structured.register("/services/group" + (i % 50) + "/service-" + i, resource);
+            dns.register("service-" + i + ".example.com", "10.0." + (i / 256 % 256) + "." + (i % 256));
+        }
+        int probe = entries / 2;
+        flatName = "Service-" + probe;
+        path = "/Services/group" + (probe % 50) + "/Service-" + probe;
+        domain = "Service-" + probe + ".Example.com";
+        dns.registerAlias("api.example.org", "frontend.example.org");
+        dns.registerAlias("frontend.example.org", domain);
+        pool = new DNSSimulator();
+        for (int i = 0; i < 8; i++) {
+            pool.addAddress("pool.example.org", "10.1.0." + i);
+        }
+        pool.setHealthCheck(address -> !address.equals("10.1.0.3") && !address.equals("10.1.0.6"));
+
+        batchNames = new ArrayList<>();
+        batchPaths = new ArrayList<>();
+        batchDomains = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            int n = (int) ((long) i * entries / BATCH);
+            batchNames.add("Service-" + n);
+            batchPaths.add("/services/group" + (n % 50) + "/service-" + n);
+            batchDomains.add("service-" + n + ".example.com");
+        }
+    }
+
+    @Benchmark
+    public Optional<String> flatHit() {
+        return flat.lookup(flatName);
+    }
+
+    @Benchmark
+    public String flatHitFast() {
+        return flat.lookupOrNull(flatName);
+    }
+
+    @Benchmark
+    public Optional<String> flatMiss() {
+        return flat.lookup("no-such-service");
+    }
+
+    @Benchmark
+    public Optional<String> structuredHit() {
+        return structured.lookup(path);
+    }
+
+    @Benchmark
+    public String structuredHitFast() {
+        return structured.lookupOrNull(path);
+    }
+
+    @Benchmark
+    public Optional<String> structuredMiss() {
+        return structured.lookup("/services/none/missing");
+    }
+
+    @Benchmark
+    public List<String> structuredListChildren() {
+        return structured.listChildren("/services/group7");
+    }
+
+    @Benchmark
+    public Optional<String> dnsHit() {
+        return dns.lookup(domain);
+    }
+
+    /**
+     * Two-link alias chain, answered from the resolved-chain cache after the first call
+     */
+    @Benchmark
+    public Optional<String> dnsAliasHit() {
+        return dns.lookup("api.example.org");
+    }
+
+    @Benchmark
+    public String dnsHitFast() {
+        return dns.lookupOrNull(domain);
+    }
+
+    @Benchmark
+    public String dnsRecordSetFast() {
+        return pool.lookupOrNull("Pool.Example.org");
+    }
+
+    @Benchmark
+    public String dnsAliasHitFast() {
+        return dns.lookupOrNull("API.example.org");
+    }
+
+    @Benchmark
+    public String dnsMissFast() {
+        return dns.lookupOrNull("missing.example.com");
+    }
+
+    @Benchmark
+    public Optional<String> dnsMiss() {
+        return dns.lookup("missing.example.com");
+    }
+
+    @Benchmark
+    public Map<String, String> flatBatch() {
+        return flat.lookupAll(batchNames);
+    }
+
+    /**
+     * Same result as flatBatch, built from single lookups
+     */
+    @Benchmark
+    public Map<String, String> flatLoop() {
+        Map<String, String> found = new LinkedHashMap<>();
+        for (String name : batchNames) {
+            flat.lookup(name).ifPresent(location -> found.put(name, location));
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Map<String, String> structuredBatch() {
+        return structured.lookupAll(batchPaths);
+    }
+
+    @Benchmark
+    public Map<String, String> dnsBatch() {
+        return dns.lookupAll(batchDomains);
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import Final.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * First and next pages of prefix, suffix and glob queries against the
+ * sorted indexes, next to the scan-and-sort a caller needed before them
+ *
+ * One subtree (or zone) holds a tenth of the entries, so the scans touch
+ * every name while the indexed queries touch only the page they return.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamingQueryBenchmark {
+    private static final int PAGE = 100;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private StructuredNamingService structured;
+    private DNSSimulator dns;
+    private String pathCursor;
+    private String domainCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        structured = new StructuredNamingService();
+        dns = new DNSSimulator();
+        for (int i = 0; i < entries; i++) {
+            structured.register("/region" + (i % 10) + "/service-" + i, new Resource("svc" + i, "Node" + (i % 3)));
+            dns.register("host-" + i + ".zone" + (i % 10) + ".example.com", "10.0." + (i / 256 % 256) + "." + (i % 256));
+        }
+        pathCursor = structured.listUnder("/region3", null, PAGE).getNextCursor();
+        domainCursor = dns.listUnder("zone3.example.com", null, PAGE).getNextCursor();
+    }
+
+    @Benchmark
+    public NamingPage prefixFirstPage() {
+        return structured.listUnder("/region3", null, PAGE);
+    }
+
+    @Benchmark
+    public NamingPage prefixNextPage() {
+        return structured.listUnder("/region3", pathCursor, PAGE);
+    }
+
+    @Benchmark
+    public NamingPage pathGlobFirstPage() {
+        return structured.glob("/region3/service-1*", null, PAGE);
+    }
+
+    @Benchmark
+    public List<String> prefixScan() {
+        return structured.getAllPaths().stream()
+                .filter(path -> path.startsWith("/region3/"))
+                .sorted()
+                .limit(PAGE)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public NamingPage suffixFirstPage() {
+        return dns.listUnder("zone3.example.com", null, PAGE);
+    }
+
+    @Benchmark
+    public NamingPage suffixNextPage() {
+        return dns.listUnder("zone3.example.com", domainCursor, PAGE);
+    }
+
+    @Benchmark
+    public NamingPage domainGlobFirstPage() {
+        return dns.glob("host-1*.zone3.example.com", null, PAGE);
+    }
+
+    @Benchmark
+    public List<String> suffixScan() {
+        return dns.getAllDomains().stream()
+                .filter(domain -> domain.endsWith(".zone3.example.com"))
+                .sorted()
+                .limit(PAGE)
+                .collect(Collectors.toList());
+    }
+}
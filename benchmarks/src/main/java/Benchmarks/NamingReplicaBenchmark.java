@@ -0,0 +1,98 @@
+package Benchmarks;
+
+import Final.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups served by a node's own naming replica against lookups sent to
+ * the shared registry over a 1ms link, plus the cost of applying one
+ * replicated registration
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamingReplicaBenchmark {
+
+    @Param({"10000"})
+    public int entries;
+
+    private ServiceNode localNode;
+    private ServiceNode remoteNode;
+    private int sequence;
+    private String flatName;
+    private String path;
+    private String domain;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        CentralCoordinator coordinator = new CentralCoordinator();
+        FlatNamingService flat = new FlatNamingService();
+        StructuredNamingService structured = new StructuredNamingService();
+        DNSSimulator dns = new DNSSimulator();
+        NamingReplica shared = new NamingReplica(flat, structured, dns);
+        localNode = new ServiceNode("LocalNode", coordinator, flat, structured, dns);
+        remoteNode = new ServiceNode("RemoteNode", coordinator, flat, structured, dns);
+
+        for (int i = 0; i < entries; i++) {
+            String location = "Node" + (i % 3);
+            for (Operation op : new Operation[] {
+                    coordinator.submitOperation(NamingReplica.REGISTER, NamingReplica.key("flat", "service-" + i), location, "bench"),
+                    coordinator.submitOperation(NamingReplica.REGISTER, NamingReplica.key("structured", "/services/service-" + i), location, "bench"),
+                    coordinator.submitOperation(NamingReplica.REGISTER, NamingReplica.key("dns", "service-" + i + ".example.com"),
+                                                "10.0." + (i / 256 % 256) + "." + (i % 256), "bench")}) {
+                shared.apply(op);
+                localNode.applyOperation(op);
+            }
+        }
+        localNode.syncWithCoordinator(); // Caught up: marks the replica fresh
+        localNode.setNamingStalenessBound(TimeUnit.HOURS.toMillis(1));
+
+        SimulatedNetwork network = new SimulatedNetwork(LinkProfile.uniform(1, 1));
+        remoteNode.setNetwork(network);
+        remoteNode.setNamingStalenessBound(0);
+
+        int probe = entries / 2;
+        flatName = "service-" + probe;
+        path = "/services/service-" + probe;
+        domain = "service-" + probe + ".example.com";
+        sequence = coordinator.getCurrentSequence();
+    }
+
+    @Benchmark
+    public String localFlatRead() {
+        return localNode.lookupResource(flatName, "flat");
+    }
+
+    @Benchmark
+    public String localStructuredRead() {
+        return localNode.lookupResource(path, "structured");
+    }
+
+    @Benchmark
+    public String localDnsRead() {
+        return localNode.lookupResource(domain, "dns");
+    }
+
+    /**
+     * Replica treated as too stale: a round trip to the registry behind the coordinator
+     */
+    @Benchmark
+    public String remoteFlatRead() {
+        return remoteNode.lookupResource(flatName, "flat");
+    }
+
+    /**
+     * A new sequence number each time, since nodes ignore operations they have already applied
+     */
+    @Benchmark
+    public boolean applyRegistration() {
+        return localNode.applyOperation(new Operation(++sequence, NamingReplica.REGISTER,
+                                                      NamingReplica.key("flat", flatName), "Node9", "bench"));
+    }
+}
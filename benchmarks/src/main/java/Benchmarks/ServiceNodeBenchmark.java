@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import Final.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying a sequenced operation to a node's local store
+ *
+ * Nodes ignore operations they have already applied, so every invocation
+ * applies a new operation with the next sequence number.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceNodeBenchmark {
+    private ServiceNode node;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        node = new ServiceNode("BenchNode", new CentralCoordinator(), new FlatNamingService(),
+                               new StructuredNamingService(), new DNSSimulator());
+    }
+
+    @Benchmark
+    public boolean applyPut() {
+        return node.applyOperation(new Operation(++sequence, "PUT", "key1", "value1", "bench"));
+    }
+
+    @Benchmark
+    public boolean applyPutThenDelete() {
+        node.applyOperation(new Operation(++sequence, "PUT", "key1", "value1", "bench"));
+        return node.applyOperation(new Operation(++sequence, "DELETE", "key1", null, "bench"));
+    }
+}